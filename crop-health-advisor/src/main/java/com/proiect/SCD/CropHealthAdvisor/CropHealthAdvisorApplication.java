@@ -2,10 +2,12 @@ package com.proiect.SCD.CropHealthAdvisor;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 
 @SpringBootApplication
+@EnableScheduling
 public class CropHealthAdvisorApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,37 @@
+package com.proiect.SCD.CropHealthAdvisor.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Async request handling: controllers return Mono so servlet threads are released
+ * while Sentinel Hub / AI calls are in flight, and blocking JPA work runs on a
+ * dedicated bounded scheduler instead of reactor's event-loop threads.
+ */
+@Configuration
+public class AsyncConfig implements WebMvcConfigurer {
+
+    @Value("${reports.async.request-timeout-seconds:70}")
+    private long requestTimeoutSeconds;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(requestTimeoutSeconds * 1000);
+    }
+
+    /**
+     * Scheduler for blocking JPA calls. Thread cap matches the default Hikari pool size,
+     * so extra work queues here instead of waiting for a connection.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler jpaScheduler(
+            @Value("${reports.jpa-scheduler.threads:10}") int threads,
+            @Value("${reports.jpa-scheduler.queue-size:10000}") int queueSize) {
+        return Schedulers.newBoundedElastic(threads, queueSize, "jpa");
+    }
+}
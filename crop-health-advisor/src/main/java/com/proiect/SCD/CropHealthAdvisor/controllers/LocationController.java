@@ -2,13 +2,19 @@
 package com.proiect.SCD.CropHealthAdvisor.controllers;
 
 import com.proiect.SCD.CropHealthAdvisor.models.Location;
+import com.proiect.SCD.CropHealthAdvisor.models.SatelliteObservation;
 import com.proiect.SCD.CropHealthAdvisor.services.LocationService;
+import com.proiect.SCD.CropHealthAdvisor.services.SatelliteTimeSeriesService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -18,6 +24,9 @@ public class LocationController {
     @Autowired
     private LocationService locationService;
 
+    @Autowired
+    private SatelliteTimeSeriesService satelliteTimeSeriesService;
+
     /**
      * Creates a new location.
      * Location object must contain a valid User reference or user_id.
@@ -78,4 +87,21 @@ public class LocationController {
         }
         return ResponseEntity.notFound().build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Stored daily NDVI/EVI/NDWI statistics of a location (default: last 90 days), oldest first.
+     */
+    @GetMapping("/{id}/satellite-series")
+    public Mono<ResponseEntity<List<SatelliteObservation>>> getSatelliteSeries(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(90);
+        if (start.isAfter(end)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return satelliteTimeSeriesService.getSeries(id, start, end)
+                .map(ResponseEntity::ok);
+    }
+}
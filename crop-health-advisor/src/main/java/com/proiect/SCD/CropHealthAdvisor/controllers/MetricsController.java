@@ -0,0 +1,181 @@
+package com.proiect.SCD.CropHealthAdvisor.controllers;
+
+import com.proiect.SCD.CropHealthAdvisor.services.GeminiAIService;
+import com.proiect.SCD.CropHealthAdvisor.services.InterpretationCache;
+import com.proiect.SCD.CropHealthAdvisor.services.NdviImageService;
+import com.proiect.SCD.CropHealthAdvisor.services.NdviTileService;
+import com.proiect.SCD.CropHealthAdvisor.services.ReportInterpretationQueue;
+import com.proiect.SCD.CropHealthAdvisor.services.ReportJobService;
+import com.proiect.SCD.CropHealthAdvisor.services.SatelliteDataService;
+import com.proiect.SCD.CropHealthAdvisor.services.SatelliteMetricsCache;
+import com.proiect.SCD.CropHealthAdvisor.services.SatelliteRefreshScheduler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Exposes internal counters (caches, queues) for monitoring and capacity planning.
+ */
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+
+    @Autowired
+    private SatelliteMetricsCache satelliteMetricsCache;
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @Autowired
+    private SatelliteDataService satelliteDataService;
+
+    @Autowired
+    private SatelliteRefreshScheduler satelliteRefreshScheduler;
+
+    @Autowired
+    private NdviImageService ndviImageService;
+
+    @Autowired
+    private NdviTileService ndviTileService;
+
+    @Autowired
+    private InterpretationCache interpretationCache;
+
+    @Autowired
+    private GeminiAIService geminiAIService;
+
+    @Autowired
+    private ReportInterpretationQueue reportInterpretationQueue;
+
+    /**
+     * Hit/miss/eviction counters of the satellite metrics cache.
+     */
+    @GetMapping("/satellite-cache")
+    public ResponseEntity<Map<String, Object>> getSatelliteCacheStats() {
+        return ResponseEntity.ok(satelliteMetricsCache.getStats());
+    }
+
+    /**
+     * Clears the satellite metrics cache (forces fresh Sentinel Hub requests).
+     */
+    @DeleteMapping("/satellite-cache")
+    public ResponseEntity<Void> clearSatelliteCache() {
+        satelliteMetricsCache.clear();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Upstream requests issued vs. saved by grouped multi-location statistics.
+     */
+    @GetMapping("/satellite-batch")
+    public ResponseEntity<Map<String, Object>> getSatelliteBatchStats() {
+        return ResponseEntity.ok(satelliteDataService.getBatchStats());
+    }
+
+    /**
+     * Upstream calls saved by coalescing identical in-flight metrics and LST requests.
+     */
+    @GetMapping("/satellite-coalescing")
+    public ResponseEntity<Map<String, Object>> getSatelliteCoalescingStats() {
+        return ResponseEntity.ok(satelliteDataService.getCoalescingStats());
+    }
+
+    /**
+     * Days requested from the Statistical API vs. skipped thanks to the stored time series.
+     */
+    @GetMapping("/satellite-series")
+    public ResponseEntity<Map<String, Object>> getSatelliteSeriesStats() {
+        return ResponseEntity.ok(satelliteDataService.getTimeSeriesFetchStats());
+    }
+
+    /**
+     * Scenes selected for metrics vs. newer days skipped as too cloudy.
+     */
+    @GetMapping("/satellite-scenes")
+    public ResponseEntity<Map<String, Object>> getSatelliteSceneStats() {
+        return ResponseEntity.ok(satelliteDataService.getSceneSelectionStats());
+    }
+
+    /**
+     * Raw-band mode: raster downloads, stored rasters and metrics/images computed from them.
+     */
+    @GetMapping("/satellite-raw-bands")
+    public ResponseEntity<Map<String, Object>> getSatelliteRawBandStats() {
+        return ResponseEntity.ok(satelliteDataService.getRawBandStats());
+    }
+
+    /**
+     * NDVI image cache size, hits and 304 answers.
+     */
+    @GetMapping("/ndvi-image-cache")
+    public ResponseEntity<Map<String, Object>> getNdviImageCacheStats() {
+        return ResponseEntity.ok(ndviImageService.getStats());
+    }
+
+    /**
+     * NDVI tile pyramid size, index hits/misses, evictions and coalesced requests.
+     */
+    @GetMapping("/ndvi-tiles")
+    public ResponseEntity<Map<String, Object>> getNdviTileStats() {
+        return ResponseEntity.ok(ndviTileService.getStats());
+    }
+
+    /**
+     * Sentinel Hub OAuth token refresh count and latency.
+     */
+    @GetMapping("/sentinelhub-token")
+    public ResponseEntity<Map<String, Object>> getSentinelHubTokenStats() {
+        return ResponseEntity.ok(satelliteDataService.getTokenStats());
+    }
+
+    /**
+     * Background refresh pipeline: last run, refreshed/skipped/failed locations, upstream permits.
+     */
+    @GetMapping("/satellite-refresh")
+    public ResponseEntity<Map<String, Object>> getSatelliteRefreshStats() {
+        return ResponseEntity.ok(satelliteRefreshScheduler.getStats());
+    }
+
+    /**
+     * AI interpretation cache size, hit rate and evictions.
+     */
+    @GetMapping("/ai-interpretation-cache")
+    public ResponseEntity<Map<String, Object>> getInterpretationCacheStats() {
+        return ResponseEntity.ok(interpretationCache.getStats());
+    }
+
+    /**
+     * Clears the AI interpretation cache (forces new interpretations).
+     */
+    @DeleteMapping("/ai-interpretation-cache")
+    public ResponseEntity<Void> clearInterpretationCache() {
+        interpretationCache.clear();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Gemini calls, streamed chunks, retries, timeouts, mock fallbacks and the concurrency limit.
+     */
+    @GetMapping("/ai-client")
+    public ResponseEntity<Map<String, Object>> getAiClientStats() {
+        return ResponseEntity.ok(geminiAIService.getStats());
+    }
+
+    /**
+     * Report job executor counters: queue depth, active workers, durations.
+     */
+    @GetMapping("/report-jobs")
+    public ResponseEntity<Map<String, Object>> getReportJobStats() {
+        return ResponseEntity.ok(reportJobService.getStats());
+    }
+
+    /**
+     * Two-phase report counters: interpretation queue depth, outcomes, queue wait and lag.
+     */
+    @GetMapping("/report-interpretations")
+    public ResponseEntity<Map<String, Object>> getReportInterpretationStats() {
+        return ResponseEntity.ok(reportInterpretationQueue.getStats());
+    }
+}
@@ -1,14 +1,26 @@
 // src/main/java/com/proiect/SCD/CropHealthAdvisor/controllers/ReportController.java
 package com.proiect.SCD.CropHealthAdvisor.controllers;
 
+import com.proiect.SCD.CropHealthAdvisor.dto.BatchReportRequest;
+import com.proiect.SCD.CropHealthAdvisor.dto.BatchReportResultDTO;
 import com.proiect.SCD.CropHealthAdvisor.models.Reports;
 import com.proiect.SCD.CropHealthAdvisor.services.ReportService;
 
 import jakarta.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
 import java.util.List;
 
 @RestController
@@ -18,6 +30,9 @@ public class ReportController {
     @Autowired
     private ReportService reportService;
 
+    @Value("${reports.batch.timeout-minutes:60}")
+    private long batchTimeoutMinutes;
+
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("API is running!");
@@ -31,30 +46,81 @@ public class ReportController {
     /**
      * Generates and saves a new crop health report for a location.
      * Fetches real-time satellite data and generates AI interpretation.
+     * Returns asynchronously: the servlet thread is released while upstream calls are in flight.
      */
     @GetMapping
-    public ResponseEntity<Reports> getFieldData(@Valid @RequestParam Long locationId) {
-        try {
-            Reports report = reportService.generateAndSaveReport(locationId)
-                    .block(java.time.Duration.ofSeconds(60));
-            
-            if (report != null) {
-                return ResponseEntity.ok(report);
-            } else {
-                return ResponseEntity.notFound().build();
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            System.err.println("Error generating report for location " + locationId + ": " + e.getMessage());
-            String errorMessage = e.getMessage();
-            if (e.getCause() != null) {
-                errorMessage = e.getCause().getMessage();
-            }
-            if (errorMessage != null && errorMessage.contains("not found")) {
-                return ResponseEntity.badRequest().build();
-            }
-            return ResponseEntity.status(500).build();
+    public Mono<ResponseEntity<Reports>> getFieldData(@Valid @RequestParam Long locationId) {
+        return reportService.generateAndSaveReport(locationId)
+                .timeout(Duration.ofSeconds(60))
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorResume(e -> {
+                    System.err.println("Error generating report for location " + locationId + ": " + e.getMessage());
+                    String errorMessage = e.getMessage();
+                    if (e.getCause() != null) {
+                        errorMessage = e.getCause().getMessage();
+                    }
+                    if (errorMessage != null && errorMessage.contains("not found")) {
+                        return Mono.just(ResponseEntity.badRequest().<Reports>build());
+                    }
+                    return Mono.just(ResponseEntity.status(500).<Reports>build());
+                });
+    }
+
+    /**
+     * Streams the AI interpretation of a location's current metrics as Server-Sent Events:
+     * {@code chunk} events with the text as it is generated, then {@code done} (or {@code error}).
+     */
+    @GetMapping(value = "/interpretation/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamInterpretation(@RequestParam Long locationId) {
+        return reportService.streamInterpretation(locationId)
+                .map(chunk -> ServerSentEvent.builder(chunk).event("chunk").build())
+                .concatWith(Mono.just(ServerSentEvent.<String>builder().event("done").build()))
+                .onErrorResume(e -> {
+                    System.err.println("Error streaming interpretation for location " + locationId + ": " + e.getMessage());
+                    return Mono.just(ServerSentEvent.builder(String.valueOf(e.getMessage())).event("error").build());
+                });
+    }
+
+    /**
+     * Generates reports for many locations in one call: explicit IDs, all locations
+     * of a user, or the whole fleet. Returns per-location outcomes and throughput.
+     * Only admins may generate for the whole fleet or for other users' locations.
+     * Uses its own (longer) async timeout since large batches take minutes.
+     */
+    @PostMapping("/batch")
+    public DeferredResult<ResponseEntity<BatchReportResultDTO>> generateBatch(@RequestBody BatchReportRequest request,
+                                                                             Authentication authentication) {
+        DeferredResult<ResponseEntity<BatchReportResultDTO>> result =
+                new DeferredResult<>(Duration.ofMinutes(batchTimeoutMinutes).toMillis(),
+                        ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).<BatchReportResultDTO>build());
+
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        if (!admin && !reportService.isOwnBatch(authentication.getName(), request)) {
+            result.setResult(ResponseEntity.status(HttpStatus.FORBIDDEN).build());
+            return result;
         }
+
+        Mono<BatchReportResultDTO> batch;
+        if (request.isAll()) {
+            batch = reportService.generateReportsForAllLocations(request.getParallelism());
+        } else if (request.getUserId() != null) {
+            batch = reportService.generateReportsForUser(request.getUserId(), request.getParallelism());
+        } else if (request.getLocationIds() != null && !request.getLocationIds().isEmpty()) {
+            batch = reportService.generateReports(request.getLocationIds(), request.getParallelism());
+        } else {
+            result.setResult(ResponseEntity.badRequest().build());
+            return result;
+        }
+
+        batch.subscribe(
+                batchResult -> result.setResult(ResponseEntity.ok(batchResult)),
+                error -> {
+                    System.err.println("Error generating report batch: " + error.getMessage());
+                    result.setResult(ResponseEntity.status(500).build());
+                });
+        return result;
     }
 
     /**
@@ -0,0 +1,61 @@
+package com.proiect.SCD.CropHealthAdvisor.controllers;
+
+import com.proiect.SCD.CropHealthAdvisor.dto.ReportJobStatusDTO;
+import com.proiect.SCD.CropHealthAdvisor.services.ReportJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.net.URI;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Asynchronous report generation: create a job, then poll it or follow its progress via SSE.
+ */
+@RestController
+@RequestMapping("/api/reports/jobs")
+public class ReportJobController {
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    /**
+     * Queues a report generation job for a location.
+     * Returns 202 with the job status and its URL in the Location header,
+     * or 503 when the job queue is full.
+     */
+    @PostMapping
+    public ResponseEntity<ReportJobStatusDTO> createJob(@RequestParam Long locationId) {
+        try {
+            ReportJobStatusDTO job = reportJobService.submit(locationId);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/reports/jobs/" + job.getJobId()))
+                    .body(job);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    /**
+     * Returns the current status of a job.
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ReportJobStatusDTO> getJob(@PathVariable String jobId) {
+        return reportJobService.getStatus(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Server-sent events with the job status after each completed stage.
+     */
+    @GetMapping(value = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> getJobEvents(@PathVariable String jobId) {
+        return reportJobService.subscribe(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -1,12 +1,20 @@
 package com.proiect.SCD.CropHealthAdvisor.controllers;
 
-import com.proiect.SCD.CropHealthAdvisor.services.SatelliteDataService;
+import com.proiect.SCD.CropHealthAdvisor.services.NdviImageService;
+import com.proiect.SCD.CropHealthAdvisor.services.NdviTileService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Controller for generating satellite images (NDVI maps, etc.).
@@ -17,7 +25,13 @@ import org.springframework.web.bind.annotation.*;
 public class SatelliteImageController {
 
     @Autowired
-    private SatelliteDataService satelliteDataService;
+    private NdviImageService ndviImageService;
+    
+    @Autowired
+    private NdviTileService ndviTileService;
+    
+    @Value("${satellite.image-cache.max-age-seconds:3600}")
+    private long imageMaxAgeSeconds;
     
     /**
      * Test endpoint to verify controller is detected.
@@ -33,42 +47,78 @@ public class SatelliteImageController {
      * @param lon Longitude
      * @param width Image width (default: 512)
      * @param height Image height (default: 512)
-     * @return PNG image with colored NDVI map
+     * @param ifNoneMatch ETag of a previously returned image
+     * @return PNG image with colored NDVI map, or 304 when the client's copy is current
      */
     @GetMapping("/image/ndvi")
-    public ResponseEntity<byte[]> getNDVIImage(
+    public Mono<ResponseEntity<Resource>> getNDVIImage(
             @RequestParam double lat,
             @RequestParam double lon,
             @RequestParam(defaultValue = "512") int width,
-            @RequestParam(defaultValue = "512") int height
+            @RequestParam(defaultValue = "512") int height,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
         System.out.println("=== NDVI Image Request ===");
         System.out.println("Lat: " + lat + ", Lon: " + lon + ", Width: " + width + ", Height: " + height);
         
-        try {
-            // Use Sentinel Hub Process API to generate NDVI image
-            byte[] imageData = satelliteDataService.generateNDVIImage(lat, lon, width, height)
-                    .block(java.time.Duration.ofSeconds(30));
-            
-            System.out.println("Image data length: " + (imageData != null ? imageData.length : "null"));
-            
-            if (imageData != null && imageData.length > 0) {
-                HttpHeaders headers = new HttpHeaders();
-                headers.setContentType(MediaType.IMAGE_PNG);
-                headers.setContentLength(imageData.length);
-                headers.set("Content-Disposition", "inline; filename=ndvi-map.png");
-                
-                System.out.println("Returning image with size: " + imageData.length);
-                return new ResponseEntity<>(imageData, headers, HttpStatus.OK);
-            } else {
-                System.err.println("Image data is null or empty");
-                return ResponseEntity.notFound().build();
-            }
-        } catch (Exception e) {
-            System.err.println("Error generating NDVI image: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        // Cached image, or Sentinel Hub Process API to generate NDVI image.
+        // The body is a file (or a small mock), streamed to the client without loading it in memory.
+        return ndviImageService.getImage(lat, lon, width, height, ifNoneMatch)
+                .timeout(Duration.ofSeconds(30))
+                .map(image -> {
+                    if (image.notModified()) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                                .eTag(image.etag())
+                                .cacheControl(cacheControl(image))
+                                .<Resource>build();
+                    }
+                    HttpHeaders headers = new HttpHeaders();
+                    headers.setContentType(MediaType.IMAGE_PNG);
+                    headers.set("Content-Disposition", "inline; filename=ndvi-map.png");
+                    headers.setCacheControl(cacheControl(image));
+                    if (image.etag() != null) {
+                        headers.setETag(image.etag());
+                    }
+                    return new ResponseEntity<>(image.body(), headers, HttpStatus.OK);
+                })
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorResume(e -> {
+                    System.err.println("Error generating NDVI image: " + e.getMessage());
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).<Resource>build());
+                });
+    }
+    
+    /**
+     * NDVI map tile (XYZ scheme, Web Mercator, 256x256 RGBA PNG, transparent where there is no data).
+     * @return 404 for zoom levels that are not served, 502 when Sentinel Hub fails
+     */
+    @GetMapping("/tiles/{z}/{x}/{y}.png")
+    public Mono<ResponseEntity<byte[]>> getNDVITile(@PathVariable int z, @PathVariable int x, @PathVariable int y) {
+        if (!ndviTileService.isServed(z, x, y)) {
+            return Mono.just(ResponseEntity.notFound().build());
         }
+        return ndviTileService.getTile(z, x, y)
+                .timeout(Duration.ofSeconds(30))
+                .map(png -> ResponseEntity.ok()
+                        .contentType(MediaType.IMAGE_PNG)
+                        .cacheControl(CacheControl.maxAge(ndviTileService.getTtlSeconds(), TimeUnit.SECONDS).cachePublic())
+                        .body(png))
+                .onErrorResume(e -> {
+                    System.err.println("Error generating NDVI tile " + z + "/" + x + "/" + y + ": " + e.getMessage());
+                    return Mono.just(ResponseEntity.status(HttpStatus.BAD_GATEWAY).<byte[]>build());
+                });
+    }
+    
+    /**
+     * Cached images are immutable for their acquisition; mock images must never be reused.
+     */
+    private CacheControl cacheControl(NdviImageService.NdviImage image) {
+        if (image.mock()) {
+            return CacheControl.noStore();
+        }
+        if (image.etag() == null) {
+            return CacheControl.noCache();
+        }
+        return CacheControl.maxAge(imageMaxAgeSeconds, TimeUnit.SECONDS).cachePublic();
     }
 }
-
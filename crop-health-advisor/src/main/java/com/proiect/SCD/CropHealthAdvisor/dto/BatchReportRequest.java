@@ -0,0 +1,17 @@
+package com.proiect.SCD.CropHealthAdvisor.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Batch report generation request: explicit location IDs, all locations of a user,
+ * or every location (all = true).
+ */
+@Data
+public class BatchReportRequest {
+    private List<Long> locationIds;
+    private Long userId;
+    private boolean all;
+    private Integer parallelism; // Optional, defaults to reports.batch.parallelism
+}
@@ -0,0 +1,28 @@
+package com.proiect.SCD.CropHealthAdvisor.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Result of a batch report generation: per-location outcomes and throughput.
+ */
+@Data
+public class BatchReportResultDTO {
+    private int requested;
+    private int succeeded;
+    private int failed;
+    private int parallelism;
+    private long elapsedMs;
+    private double reportsPerMinute;
+    private List<LocationOutcome> results;
+
+    @Data
+    public static class LocationOutcome {
+        private Long locationId;
+        private boolean success;
+        private Long reportId;
+        private String error;
+        private long durationMs;
+    }
+}
@@ -0,0 +1,31 @@
+package com.proiect.SCD.CropHealthAdvisor.dto;
+
+import java.util.Locale;
+
+/**
+ * Input of an AI interpretation: the report metrics and the language of the answer.
+ * The prompt text is only rendered from it when a model is actually called.
+ */
+public record InterpretationRequest(Metrics metrics, Locale locale) {
+
+    /**
+     * Metric values stored with a report.
+     */
+    public record Metrics(double ndvi, double evi, double ndwi,
+                          double temperature,        // LST (°C)
+                          double soilMoisture,       // %
+                          double precipitation,      // Estimated (mm)
+                          double evapotranspiration, // mm/day
+                          double cloudCover) {       // %
+
+        public static Metrics of(SatelliteMetricsDTO metrics) {
+            return new Metrics(metrics.getNdvi(), metrics.getEvi(), metrics.getNdwi(),
+                    metrics.getTemperature(), metrics.getSoilMoisture(), metrics.getPrecipitation(),
+                    metrics.getEvapotranspiration(), metrics.getCloudCover());
+        }
+    }
+
+    public static InterpretationRequest of(SatelliteMetricsDTO metrics, Locale locale) {
+        return new InterpretationRequest(Metrics.of(metrics), locale);
+    }
+}
@@ -0,0 +1,28 @@
+package com.proiect.SCD.CropHealthAdvisor.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Snapshot of an asynchronous report generation job.
+ */
+@Data
+public class ReportJobStatusDTO {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private String jobId;
+    private Long locationId;
+    private Status status;
+    private ReportStage stage; // Last completed stage
+    private List<ReportStage> completedStages;
+    private Long reportId;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,12 @@
+package com.proiect.SCD.CropHealthAdvisor.dto;
+
+/**
+ * Stages of report generation, reported to job subscribers as each one completes.
+ */
+public enum ReportStage {
+    SATELLITE,  // Sentinel-2 statistics (NDVI, EVI, NDWI)
+    LST,        // MODIS land surface temperature
+    WEATHER,    // Weather data / derived metrics
+    AI,         // AI interpretation queued (filled in after the report is saved)
+    PERSISTED   // Report saved to the database with its metrics
+}
@@ -10,7 +10,7 @@ public class SatelliteMetricsDTO {
     private double temperature; // Land Surface Temperature (LST) - soil temperature in °C
     private double precipitation; // Estimated precipitation (mm) - derived from satellite indices
     private double soilMoisture; // Soil moisture (index derived from NDWI and other indices)
-    private double cloudCover; // Cloud cover (%) - estimated from Sentinel-2 metadata
+    private double cloudCover; // Cloud cover (%) - from the SCL cloud mask of the selected scene
     private double evapotranspiration; // Estimated evapotranspiration (mm/day) - derived from NDVI and LST
     
     // Raw spectral data (optional, for advanced analysis)
@@ -18,9 +18,36 @@ public class SatelliteMetricsDTO {
     private Double nirReflectance;
     private Double swirReflectance;
     
+    // Selected Sentinel-2 scene and its share of cloud-free pixels (null when unknown)
+    private String sceneDate;
+    private Double validPixelFraction;
+    
+    // True when values come from the random fallback instead of real satellite data
+    private boolean mock;
+    
     public SatelliteMetricsDTO() {
     }
     
+    /**
+     * Copy constructor (used by the metrics cache so callers never share instances).
+     */
+    public SatelliteMetricsDTO(SatelliteMetricsDTO other) {
+        this.ndvi = other.ndvi;
+        this.evi = other.evi;
+        this.ndwi = other.ndwi;
+        this.temperature = other.temperature;
+        this.precipitation = other.precipitation;
+        this.soilMoisture = other.soilMoisture;
+        this.cloudCover = other.cloudCover;
+        this.evapotranspiration = other.evapotranspiration;
+        this.redReflectance = other.redReflectance;
+        this.nirReflectance = other.nirReflectance;
+        this.swirReflectance = other.swirReflectance;
+        this.sceneDate = other.sceneDate;
+        this.validPixelFraction = other.validPixelFraction;
+        this.mock = other.mock;
+    }
+    
     public SatelliteMetricsDTO(double ndvi, double evi, double ndwi, double temperature, double precipitation) {
         this.ndvi = ndvi;
         this.evi = evi;
@@ -117,5 +144,28 @@ public class SatelliteMetricsDTO {
     public void setEvapotranspiration(double evapotranspiration) {
         this.evapotranspiration = evapotranspiration;
     }
+    
+    public boolean isMock() {
+        return mock;
+    }
+    
+    public void setMock(boolean mock) {
+        this.mock = mock;
+    }
+    
+    public String getSceneDate() {
+        return sceneDate;
+    }
+    
+    public void setSceneDate(String sceneDate) {
+        this.sceneDate = sceneDate;
+    }
+    
+    public Double getValidPixelFraction() {
+        return validPixelFraction;
+    }
+    
+    public void setValidPixelFraction(Double validPixelFraction) {
+        this.validPixelFraction = validPixelFraction;
+    }
 }
-
@@ -2,9 +2,11 @@ package com.proiect.SCD.CropHealthAdvisor.jwt;
 
 import com.proiect.SCD.CropHealthAdvisor.jwt.JwtAuthenticationEntryPoint;
 import com.proiect.SCD.CropHealthAdvisor.jwt.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -77,9 +79,13 @@ public class SecurityConfig {
             .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and() 
             
             .authorizeHttpRequests(authorize -> authorize
+                // Async re-dispatch of an already authorized request (Mono/SSE controller results)
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/auth/**").permitAll() 
                 .requestMatchers("/api/users/register").permitAll()
                 .requestMatchers("/api/health").permitAll()
+                // Clearing shared caches affects every user
+                .requestMatchers(HttpMethod.DELETE, "/api/metrics/**").hasRole("ADMIN")
                 
                 .anyRequest().authenticated() 
             );
@@ -0,0 +1,10 @@
+package com.proiect.SCD.CropHealthAdvisor.models;
+
+/**
+ * AI interpretation state of a report: metrics are saved first, the interpretation is filled in later.
+ */
+public enum InterpretationStatus {
+    PENDING,    // Queued, aiInterpretation not written yet
+    COMPLETED,
+    FAILED      // Metrics are kept, no interpretation
+}
@@ -0,0 +1,27 @@
+package com.proiect.SCD.CropHealthAdvisor.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Per-location satellite bookkeeping: the latest Sentinel-2 acquisition processed by the
+ * background refresh, and the last day already stored in the daily time series.
+ * Columns are written with targeted updates (see LocationSatelliteStateRepository),
+ * so the refresh pipeline and metrics requests never overwrite each other's values.
+ */
+@Data
+@Entity
+@Table(name = "location_satellite_state")
+public class LocationSatelliteState {
+    @Id
+    @Column(name = "location_id")
+    private Long locationId;
+
+    private LocalDate lastAcquisitionDate;
+
+    private LocalDateTime lastRefreshedAt;
+
+    private LocalDate seriesFetchedThrough;
+}
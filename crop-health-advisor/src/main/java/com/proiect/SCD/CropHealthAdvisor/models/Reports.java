@@ -4,12 +4,16 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.Data;
 import java.time.LocalDateTime;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 @Data
 @Entity
-@Table(name = "reports")
+@Table(name = "reports", indexes = {
+    @Index(name = "idx_reports_location_date", columnList = "location_id, report_date"),
+    @Index(name = "idx_reports_interpretation_status", columnList = "interpretation_status")
+})
 public class Reports {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -29,6 +33,16 @@ public class Reports {
     @Column(columnDefinition = "TEXT")
     private String aiInterpretation;
 
+    // Generated reports are saved PENDING and completed by ReportInterpretationQueue
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private InterpretationStatus interpretationStatus = InterpretationStatus.COMPLETED;
+
+    // Attempts made by the queue; FAILED reports are retried a limited number of times
+    @JsonIgnore
+    @Column(nullable = false)
+    private int interpretationAttempts;
+
     @NotNull(message = "Report date is required")
     private LocalDateTime reportDate;
 
@@ -37,25 +51,19 @@ public class Reports {
     @JsonIgnoreProperties({"reports"}) // Prevents circular reference
     private Location location;
     
-    // Additional metrics not stored in DB but included in JSON response
-    // These are set programmatically before serialization
-    @Transient
+    // Additional satellite metrics, stored with the report when it is generated
     @JsonProperty("eviValue")
     private Double eviValue;
     
-    @Transient
     @JsonProperty("ndwiValue")
     private Double ndwiValue;
     
-    @Transient
     @JsonProperty("soilMoisture")
     private Double soilMoisture;
     
-    @Transient
     @JsonProperty("cloudCover")
     private Double cloudCover;
     
-    @Transient
     @JsonProperty("evapotranspiration")
     private Double evapotranspiration;
 }
\ No newline at end of file
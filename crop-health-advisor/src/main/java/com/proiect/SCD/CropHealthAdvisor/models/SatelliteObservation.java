@@ -0,0 +1,46 @@
+package com.proiect.SCD.CropHealthAdvisor.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDate;
+
+/**
+ * Daily NDVI/EVI/NDWI statistics of a location, one row per Statistical API interval.
+ */
+@Data
+@Entity
+@Table(name = "satellite_observations", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_satellite_observations_location_date", columnNames = {"location_id", "observation_date"})
+})
+public class SatelliteObservation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "location_id", nullable = false)
+    private Long locationId;
+
+    @Column(nullable = false)
+    private LocalDate observationDate;
+
+    private Double ndviMin;
+    private Double ndviMax;
+    private Double ndviMean;
+    private Double ndviStdev;
+    private Integer ndviSampleCount;
+
+    private Double eviMin;
+    private Double eviMax;
+    private Double eviMean;
+    private Double eviStdev;
+    private Integer eviSampleCount;
+
+    private Double ndwiMin;
+    private Double ndwiMax;
+    private Double ndwiMean;
+    private Double ndwiStdev;
+    private Integer ndwiSampleCount;
+
+    // Share of cloud-free pixels (SCL mask); null for rows stored before the mask existed
+    private Double validFraction;
+}
@@ -5,6 +5,7 @@ import com.proiect.SCD.CropHealthAdvisor.models.Location;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -13,4 +14,10 @@ public interface LocationRepository extends JpaRepository<Location, Long>{
     List<Location> findByUserId(Long userId);
     Location findByLatitudeAndLongitude(Double latitude, Double longitude);
 
+    @Query("SELECT l.id FROM Location l")
+    List<Long> findAllIds();
+
+    @Query("SELECT l.id FROM Location l WHERE l.user.id = :userId")
+    List<Long> findIdsByUserId(Long userId);
+
 }
@@ -0,0 +1,34 @@
+package com.proiect.SCD.CropHealthAdvisor.repositories;
+
+import com.proiect.SCD.CropHealthAdvisor.models.LocationSatelliteState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Repository
+public interface LocationSatelliteStateRepository extends JpaRepository<LocationSatelliteState, Long> {
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO location_satellite_state (location_id, last_acquisition_date, last_refreshed_at) " +
+            "VALUES (:locationId, :acquisitionDate, :refreshedAt) ON DUPLICATE KEY UPDATE " +
+            "last_acquisition_date = VALUES(last_acquisition_date), last_refreshed_at = VALUES(last_refreshed_at)",
+            nativeQuery = true)
+    void markRefreshed(Long locationId, LocalDate acquisitionDate, LocalDateTime refreshedAt);
+
+    /**
+     * Never moves the fetched-through date backwards.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO location_satellite_state (location_id, series_fetched_through) " +
+            "VALUES (:locationId, :fetchedThrough) ON DUPLICATE KEY UPDATE series_fetched_through = " +
+            "GREATEST(COALESCE(series_fetched_through, VALUES(series_fetched_through)), VALUES(series_fetched_through))",
+            nativeQuery = true)
+    void markSeriesFetchedThrough(Long locationId, LocalDate fetchedThrough);
+}
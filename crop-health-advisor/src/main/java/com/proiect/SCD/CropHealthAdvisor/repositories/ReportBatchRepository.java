@@ -0,0 +1,89 @@
+package com.proiect.SCD.CropHealthAdvisor.repositories;
+
+import com.proiect.SCD.CropHealthAdvisor.models.Reports;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC batch inserts for reports.
+ * Hibernate cannot batch inserts with IDENTITY ids, so bulk report generation writes
+ * through JdbcTemplate instead (add rewriteBatchedStatements=true to the MySQL URL
+ * to send each batch as one multi-row INSERT).
+ */
+@Repository
+public class ReportBatchRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO reports (ndvi_value, temperature_value, precipitation_value, evi_value, ndwi_value, " +
+            "soil_moisture, cloud_cover, evapotranspiration, ai_interpretation, interpretation_status, report_date, location_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts all reports in one JDBC batch and sets their generated IDs.
+     */
+    @Transactional
+    public void insertAll(List<Reports> reports) {
+        if (reports.isEmpty()) {
+            return;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Reports report = reports.get(i);
+                        setDouble(ps, 1, report.getNdviValue());
+                        setDouble(ps, 2, report.getTemperatureValue());
+                        setDouble(ps, 3, report.getPrecipitationValue());
+                        setDouble(ps, 4, report.getEviValue());
+                        setDouble(ps, 5, report.getNdwiValue());
+                        setDouble(ps, 6, report.getSoilMoisture());
+                        setDouble(ps, 7, report.getCloudCover());
+                        setDouble(ps, 8, report.getEvapotranspiration());
+                        ps.setString(9, report.getAiInterpretation());
+                        ps.setString(10, report.getInterpretationStatus().name());
+                        ps.setTimestamp(11, Timestamp.valueOf(report.getReportDate()));
+                        ps.setLong(12, report.getLocation().getId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return reports.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < reports.size() && i < keys.size(); i++) {
+            Object id = keys.get(i).values().stream().findFirst().orElse(null);
+            if (id instanceof Number number) {
+                reports.get(i).setId(number.longValue());
+            }
+        }
+    }
+
+    private static void setDouble(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.DOUBLE);
+        } else {
+            ps.setDouble(index, value);
+        }
+    }
+}
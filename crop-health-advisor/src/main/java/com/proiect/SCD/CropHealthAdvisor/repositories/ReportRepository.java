@@ -1,11 +1,49 @@
 package com.proiect.SCD.CropHealthAdvisor.repositories;
 
+import com.proiect.SCD.CropHealthAdvisor.models.InterpretationStatus;
 import com.proiect.SCD.CropHealthAdvisor.models.Reports;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
 @Repository
 public interface ReportRepository extends JpaRepository<Reports, Long> {
     List<Reports> findByLocationId(Long locationId);
+    
+    // Reports created before satellite metrics were stored with each row
+    List<Reports> findByEviValueIsNull();
+    
+    // Oldest first, for the interpretation recovery sweep
+    List<Reports> findByInterpretationStatusOrderByIdAsc(InterpretationStatus status, Pageable pageable);
+    
+    // Failed interpretations that may still be retried
+    List<Reports> findByInterpretationStatusAndInterpretationAttemptsLessThanOrderByIdAsc(
+            InterpretationStatus status, int attempts, Pageable pageable);
+    
+    /**
+     * Writes the AI interpretation of a PENDING report without touching its metrics,
+     * counting the attempt. Reports no longer pending (e.g. edited by the user meanwhile)
+     * are left as they are.
+     * @return 1 if the report was updated, 0 otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Reports r SET r.aiInterpretation = :aiInterpretation, r.interpretationStatus = :status, " +
+            "r.interpretationAttempts = r.interpretationAttempts + 1 " +
+            "WHERE r.id = :id AND r.interpretationStatus = com.proiect.SCD.CropHealthAdvisor.models.InterpretationStatus.PENDING")
+    int updateInterpretation(Long id, String aiInterpretation, InterpretationStatus status);
+    
+    /**
+     * Puts a FAILED report back to PENDING before it is queued again.
+     * @return 1 if the report was still FAILED, 0 otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Reports r SET r.interpretationStatus = com.proiect.SCD.CropHealthAdvisor.models.InterpretationStatus.PENDING " +
+            "WHERE r.id = :id AND r.interpretationStatus = com.proiect.SCD.CropHealthAdvisor.models.InterpretationStatus.FAILED")
+    int retryFailedInterpretation(Long id);
 }
\ No newline at end of file
@@ -0,0 +1,101 @@
+package com.proiect.SCD.CropHealthAdvisor.repositories;
+
+import com.proiect.SCD.CropHealthAdvisor.models.SatelliteObservation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * JDBC batch upserts for daily satellite observations.
+ * A day fetched again (e.g. overlapping windows) replaces the stored row instead of duplicating it.
+ */
+@Repository
+public class SatelliteObservationBatchRepository {
+
+    private static final String[] STAT_COLUMNS = {
+            "ndvi_min", "ndvi_max", "ndvi_mean", "ndvi_stdev", "ndvi_sample_count",
+            "evi_min", "evi_max", "evi_mean", "evi_stdev", "evi_sample_count",
+            "ndwi_min", "ndwi_max", "ndwi_mean", "ndwi_stdev", "ndwi_sample_count",
+            "valid_fraction"
+    };
+
+    private static final String UPSERT_SQL = buildUpsertSql();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static String buildUpsertSql() {
+        StringBuilder sql = new StringBuilder("INSERT INTO satellite_observations (location_id, observation_date");
+        StringBuilder values = new StringBuilder("VALUES (?, ?");
+        StringBuilder update = new StringBuilder(" ON DUPLICATE KEY UPDATE ");
+        for (int i = 0; i < STAT_COLUMNS.length; i++) {
+            sql.append(", ").append(STAT_COLUMNS[i]);
+            values.append(", ?");
+            update.append(i == 0 ? "" : ", ").append(STAT_COLUMNS[i]).append(" = VALUES(").append(STAT_COLUMNS[i]).append(")");
+        }
+        return sql.append(") ").append(values).append(")").append(update).toString();
+    }
+
+    /**
+     * Inserts or replaces the observations (unique per location and date) in one JDBC batch.
+     */
+    @Transactional
+    public void upsertAll(List<SatelliteObservation> observations) {
+        if (observations.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                SatelliteObservation o = observations.get(i);
+                ps.setLong(1, o.getLocationId());
+                ps.setDate(2, Date.valueOf(o.getObservationDate()));
+                setDouble(ps, 3, o.getNdviMin());
+                setDouble(ps, 4, o.getNdviMax());
+                setDouble(ps, 5, o.getNdviMean());
+                setDouble(ps, 6, o.getNdviStdev());
+                setInteger(ps, 7, o.getNdviSampleCount());
+                setDouble(ps, 8, o.getEviMin());
+                setDouble(ps, 9, o.getEviMax());
+                setDouble(ps, 10, o.getEviMean());
+                setDouble(ps, 11, o.getEviStdev());
+                setInteger(ps, 12, o.getEviSampleCount());
+                setDouble(ps, 13, o.getNdwiMin());
+                setDouble(ps, 14, o.getNdwiMax());
+                setDouble(ps, 15, o.getNdwiMean());
+                setDouble(ps, 16, o.getNdwiStdev());
+                setInteger(ps, 17, o.getNdwiSampleCount());
+                setDouble(ps, 18, o.getValidFraction());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return observations.size();
+            }
+        });
+    }
+
+    private static void setDouble(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.DOUBLE);
+        } else {
+            ps.setDouble(index, value);
+        }
+    }
+
+    private static void setInteger(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.proiect.SCD.CropHealthAdvisor.repositories;
+
+import com.proiect.SCD.CropHealthAdvisor.models.SatelliteObservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface SatelliteObservationRepository extends JpaRepository<SatelliteObservation, Long> {
+
+    List<SatelliteObservation> findByLocationIdAndObservationDateBetweenOrderByObservationDate(
+            Long locationId, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,164 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.nio.FloatBuffer;
+import java.util.stream.IntStream;
+
+/**
+ * NDVI/EVI/NDWI computed server-side from a {@link BandRaster}: index statistics over a window
+ * around the field (clear pixels only, same formulas and clamping as
+ * {@link SentinelHubRequests#INDICES_EVALSCRIPT}) and the colored NDVI image of the whole raster
+ * at any size (same classes as {@link SentinelHubRequests#NDVI_COLOR_EVALSCRIPT}, nearest-neighbor
+ * resampling like the Process API).
+ * Works on the samples in place (heap or memory-mapped); large windows and images are processed
+ * row-parallel, each worker accumulating its own sums which are merged at the end.
+ */
+public final class BandIndexKernel {
+
+    /**
+     * Window statistics per index: {@code sampleCount} = window pixels, {@code noDataCount} =
+     * masked or undefined ones.
+     */
+    public record IndexStats(StatisticsResponseParser.Stats ndvi, StatisticsResponseParser.Stats evi,
+                             StatisticsResponseParser.Stats ndwi) {
+
+        /**
+         * Share of the window with a clear NDVI value; NaN for an empty window.
+         */
+        public double validFraction() {
+            return ndvi.validFraction();
+        }
+    }
+
+    private static final int NDVI = 0, EVI = 1, NDWI = 2, INDICES = 3;
+    private static final int PARALLEL_MIN_PIXELS = 256 * 256;
+
+    private BandIndexKernel() {
+    }
+
+    /**
+     * Statistics over ±buffer degrees around the point.
+     */
+    public static IndexStats stats(BandRaster raster, double lat, double lon, double buffer) {
+        int width = raster.width();
+        FloatBuffer samples = raster.samples();
+        int[] window = raster.window(lat, lon, buffer);
+        int x0 = window[0], x1 = window[1];
+        long windowPixels = (long) (x1 - x0 + 1) * (window[3] - window[2] + 1);
+
+        IntStream rows = IntStream.rangeClosed(window[2], window[3]);
+        if (windowPixels >= PARALLEL_MIN_PIXELS) {
+            rows = rows.parallel();
+        }
+        Sums sums = rows.collect(Sums::new, (rowSums, y) -> {
+            for (int x = x0, i = (y * width + x) * BandRaster.BANDS; x <= x1; x++, i += BandRaster.BANDS) {
+                if (samples.get(i + BandRaster.MASK) == 0) {
+                    continue; // No data or cloud
+                }
+                double blue = samples.get(i + BandRaster.BLUE);
+                double green = samples.get(i + BandRaster.GREEN);
+                double red = samples.get(i + BandRaster.RED);
+                double nir = samples.get(i + BandRaster.NIR);
+                rowSums.add(NDVI, (nir - red) / (nir + red));
+                rowSums.add(EVI, 2.5 * ((nir - red) / (nir + 6 * red - 7.5 * blue + 1)));
+                rowSums.add(NDWI, (green - nir) / (green + nir));
+            }
+        }, Sums::add);
+
+        return new IndexStats(sums.stats(NDVI, windowPixels), sums.stats(EVI, windowPixels),
+                sums.stats(NDWI, windowPixels));
+    }
+
+    /**
+     * Colored NDVI PNG of the whole raster at the given size.
+     */
+    public static byte[] render(BandRaster raster, int width, int height) {
+        int sourceWidth = raster.width();
+        int sourceHeight = raster.height();
+        FloatBuffer samples = raster.samples();
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        // Source column of each output column (pixel centers)
+        int[] sourceOffsets = new int[width];
+        for (int x = 0; x < width; x++) {
+            sourceOffsets[x] = Math.min(sourceWidth - 1, (int) ((x + 0.5) * sourceWidth / width)) * BandRaster.BANDS;
+        }
+
+        IntStream rows = IntStream.range(0, height);
+        if ((long) width * height >= PARALLEL_MIN_PIXELS) {
+            rows = rows.parallel();
+        }
+        rows.forEach(y -> {
+            int sourceY = Math.min(sourceHeight - 1, (int) ((y + 0.5) * sourceHeight / height));
+            int sourceRow = sourceY * sourceWidth * BandRaster.BANDS;
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                int i = sourceRow + sourceOffsets[x];
+                double red = samples.get(i + BandRaster.RED);
+                double nir = samples.get(i + BandRaster.NIR);
+                pixels[offset + x] = color((nir - red) / (nir + red));
+            }
+        });
+        return MockNdviRenderer.encode(image);
+    }
+
+    // Same thresholds as the evalscript; undefined NDVI (no data) falls through to the last class like there
+    private static int color(double ndvi) {
+        if (ndvi < 0) {
+            return MockNdviRenderer.PALETTE[0];
+        } else if (ndvi < 0.2) {
+            return MockNdviRenderer.PALETTE[1];
+        } else if (ndvi < 0.5) {
+            return MockNdviRenderer.PALETTE[2];
+        }
+        return MockNdviRenderer.PALETTE[3];
+    }
+
+    /**
+     * Per-index count, sum, sum of squares, min and max of one worker.
+     */
+    private static final class Sums {
+        private final long[] count = new long[INDICES];
+        private final double[] sum = new double[INDICES];
+        private final double[] sumSquares = new double[INDICES];
+        private final double[] min = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+        private final double[] max = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+
+        void add(int index, double value) {
+            if (Double.isNaN(value)) {
+                return; // Undefined ratio, counted as no data
+            }
+            double clamped = Math.max(-1, Math.min(1, value));
+            count[index]++;
+            sum[index] += clamped;
+            sumSquares[index] += clamped * clamped;
+            min[index] = Math.min(min[index], clamped);
+            max[index] = Math.max(max[index], clamped);
+        }
+
+        void add(Sums other) {
+            for (int index = 0; index < INDICES; index++) {
+                count[index] += other.count[index];
+                sum[index] += other.sum[index];
+                sumSquares[index] += other.sumSquares[index];
+                min[index] = Math.min(min[index], other.min[index]);
+                max[index] = Math.max(max[index], other.max[index]);
+            }
+        }
+
+        StatisticsResponseParser.Stats stats(int index, long windowPixels) {
+            long n = count[index];
+            if (n == 0) {
+                return new StatisticsResponseParser.Stats(Double.NaN, Double.NaN, Double.NaN, Double.NaN,
+                        windowPixels, windowPixels);
+            }
+            double mean = sum[index] / n;
+            double variance = Math.max(0, sumSquares[index] / n - mean * mean);
+            return new StatisticsResponseParser.Stats(min[index], max[index], mean, Math.sqrt(variance),
+                    windowPixels, windowPixels - n);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.DataBufferFloat;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.util.Iterator;
+
+/**
+ * Sentinel-2 reflectances over a bbox (EPSG:4326), decoded from the FLOAT32 TIFF produced by
+ * {@link SentinelHubRequests#RAW_BANDS_EVALSCRIPT}.
+ * Samples are pixel-interleaved ({@code samples.get((y * width + x) * BANDS + band)}, row 0 is the
+ * northern edge) and read in place by {@link BandIndexKernel}: the decoder's own {@code float[]} for a
+ * downloaded raster, a memory-mapped file for one loaded from the {@link BandRasterStore}.
+ */
+public final class BandRaster {
+
+    public static final int BLUE = 0, GREEN = 1, RED = 2, NIR = 3, MASK = 4;
+    public static final int BANDS = 5;
+
+    private final FloatBuffer samples;
+    private final int width;
+    private final int height;
+    private final double minLon;
+    private final double minLat;
+    private final double maxLon;
+    private final double maxLat;
+
+    private BandRaster(FloatBuffer samples, int width, int height,
+                       double minLon, double minLat, double maxLon, double maxLat) {
+        this.samples = samples;
+        this.width = width;
+        this.height = height;
+        this.minLon = minLon;
+        this.minLat = minLat;
+        this.maxLon = maxLon;
+        this.maxLat = maxLat;
+    }
+
+    /**
+     * Wraps pixel-interleaved samples (used by tests and benchmarks).
+     */
+    public static BandRaster of(float[] samples, int width, int height,
+                                double minLon, double minLat, double maxLon, double maxLat) {
+        return of(FloatBuffer.wrap(samples), width, height, minLon, minLat, maxLon, maxLat);
+    }
+
+    /**
+     * Wraps pixel-interleaved samples from position 0 of the buffer (heap or mapped).
+     */
+    public static BandRaster of(FloatBuffer samples, int width, int height,
+                                double minLon, double minLat, double maxLon, double maxLat) {
+        if (samples.limit() != width * height * BANDS) {
+            throw new IllegalArgumentException("Expected " + width * height * BANDS + " samples, got " + samples.limit());
+        }
+        return new BandRaster(samples, width, height, minLon, minLat, maxLon, maxLat);
+    }
+
+    /**
+     * Decodes the TIFF returned by the Process API for the given bbox.
+     */
+    public static BandRaster decode(byte[] tiff, double minLon, double minLat, double maxLon, double maxLat)
+            throws IOException {
+        Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName("tiff");
+        if (!readers.hasNext()) {
+            throw new IOException("No TIFF reader available");
+        }
+        ImageReader reader = readers.next();
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(tiff))) {
+            reader.setInput(input);
+            Raster raster = reader.read(0).getRaster();
+            if (raster.getNumBands() != BANDS || !(raster.getDataBuffer() instanceof DataBufferFloat buffer)) {
+                throw new IOException("Unexpected band raster format");
+            }
+            int width = raster.getWidth();
+            int height = raster.getHeight();
+            // The decoder's own array when it is already laid out as expected, a copy otherwise
+            float[] samples = isInterleaved(raster) ? buffer.getData()
+                    : raster.getPixels(0, 0, width, height, new float[width * height * BANDS]);
+            return new BandRaster(FloatBuffer.wrap(samples), width, height, minLon, minLat, maxLon, maxLat);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    private static boolean isInterleaved(Raster raster) {
+        if (!(raster.getSampleModel() instanceof PixelInterleavedSampleModel model)
+                || raster.getDataBuffer().getNumBanks() != 1 || raster.getDataBuffer().getOffset() != 0
+                || model.getPixelStride() != BANDS || model.getScanlineStride() != raster.getWidth() * BANDS) {
+            return false;
+        }
+        int[] offsets = model.getBandOffsets();
+        for (int band = 0; band < BANDS; band++) {
+            if (offsets[band] != band) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    FloatBuffer samples() {
+        return samples;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public double minLon() {
+        return minLon;
+    }
+
+    public double minLat() {
+        return minLat;
+    }
+
+    public double maxLon() {
+        return maxLon;
+    }
+
+    public double maxLat() {
+        return maxLat;
+    }
+
+    /**
+     * First column, last column, first row and last row covering ±buffer degrees around the point.
+     */
+    int[] window(double lat, double lon, double buffer) {
+        int x0 = clamp((int) Math.floor((lon - buffer - minLon) / (maxLon - minLon) * width), width);
+        int x1 = clamp((int) Math.ceil((lon + buffer - minLon) / (maxLon - minLon) * width) - 1, width);
+        int y0 = clamp((int) Math.floor((maxLat - (lat + buffer)) / (maxLat - minLat) * height), height);
+        int y1 = clamp((int) Math.ceil((maxLat - (lat - buffer)) / (maxLat - minLat) * height) - 1, height);
+        return new int[]{x0, x1, y0, y1};
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+}
@@ -0,0 +1,249 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Raw band rasters on disk, one file per field bbox and Sentinel-2 acquisition
+ * ({@code <minLon>_<minLat>_<maxLon>_<maxLat>_<date>.bands}, micro-degrees): a 64-byte header
+ * (magic, size, bbox) followed by the pixel-interleaved samples as little-endian FLOAT32.
+ * Rasters are read through a read-only memory mapping, so rendering an image at another size or
+ * recomputing statistics costs no network request and no heap copy of the samples.
+ * Files survive restarts; the least recently used are deleted once they exceed the byte budget.
+ */
+@Component
+public class BandRasterStore {
+
+    /**
+     * Field bbox in micro-degrees and the acquisition the raster shows.
+     */
+    public record Key(long minLon, long minLat, long maxLon, long maxLat, LocalDate acquisitionDate) {
+
+        public static Key of(double minLon, double minLat, double maxLon, double maxLat, LocalDate acquisitionDate) {
+            return new Key(Math.round(minLon * 1e6), Math.round(minLat * 1e6),
+                    Math.round(maxLon * 1e6), Math.round(maxLat * 1e6), acquisitionDate);
+        }
+
+        String fileName() {
+            return minLon + "_" + minLat + "_" + maxLon + "_" + maxLat + "_" + acquisitionDate + SUFFIX;
+        }
+
+        static Key parse(String fileName) {
+            String[] parts = fileName.substring(0, fileName.length() - SUFFIX.length()).split("_");
+            return new Key(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]),
+                    Long.parseLong(parts[3]), LocalDate.parse(parts[4]));
+        }
+    }
+
+    private static final String SUFFIX = ".bands";
+    private static final int MAGIC = 0x42414E44; // "BAND"
+    // magic, width, height, bands, bbox (4 doubles), padding
+    private static final int HEADER_BYTES = 64;
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+
+    private final Path directory;
+    private final long maxBytes;
+
+    // Access-ordered file sizes: the first entry is the least recently used raster
+    private final LinkedHashMap<Key, Long> files = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public BandRasterStore(
+            @Value("${satellite.raw-bands.dir:${java.io.tmpdir}/crop-health-advisor/band-rasters}") String directory,
+            @Value("${satellite.raw-bands.max-bytes:268435456}") long maxBytes) {
+        this.directory = Path.of(directory);
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(this.directory);
+            try (DirectoryStream<Path> temps = Files.newDirectoryStream(this.directory, "*.tmp")) {
+                for (Path temp : temps) {
+                    Files.deleteIfExists(temp);
+                }
+            }
+            // Rasters of a previous run, oldest first so they are evicted first
+            List<Path> stored = new ArrayList<>();
+            try (DirectoryStream<Path> rasters = Files.newDirectoryStream(this.directory, "*" + SUFFIX)) {
+                rasters.forEach(stored::add);
+            }
+            stored.sort(Comparator.comparingLong(BandRasterStore::lastModified));
+            for (Path file : stored) {
+                try {
+                    long size = Files.size(file);
+                    files.put(Key.parse(file.getFileName().toString()), size);
+                    totalBytes += size;
+                } catch (RuntimeException e) {
+                    System.err.println("Ignoring unexpected file in band raster store: " + file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot prepare band raster store " + directory, e);
+        }
+        synchronized (files) {
+            evictOverBudget(null);
+        }
+    }
+
+    /**
+     * Memory-mapped raster for the key, or null if it is not stored.
+     */
+    public BandRaster get(Key key) {
+        synchronized (files) {
+            if (!files.containsKey(key)) {
+                misses.incrementAndGet();
+                return null;
+            }
+        }
+        try {
+            BandRaster raster = map(directory.resolve(key.fileName()));
+            hits.incrementAndGet();
+            return raster;
+        } catch (IOException e) {
+            System.err.println("Error reading band raster " + key.fileName() + ": " + e.getMessage());
+            synchronized (files) {
+                Long size = files.remove(key);
+                if (size != null) {
+                    totalBytes -= size;
+                }
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Writes the raster (blocking I/O) and returns its memory-mapped copy.
+     * Old rasters are deleted if the store goes over budget.
+     */
+    public BandRaster put(Key key, BandRaster raster) throws IOException {
+        Path file = directory.resolve(key.fileName());
+        Path temp = Files.createTempFile(directory, "raster-", ".tmp");
+        try {
+            write(temp, raster);
+            // The rename makes the file visible only once complete
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        stores.incrementAndGet();
+        long size = Files.size(file);
+        synchronized (files) {
+            Long previous = files.put(key, size);
+            totalBytes += size - (previous != null ? previous : 0);
+            evictOverBudget(key);
+        }
+        return map(file);
+    }
+
+    private static void write(Path file, BandRaster raster) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(raster.width()).putInt(raster.height()).putInt(BandRaster.BANDS)
+                    .putDouble(raster.minLon()).putDouble(raster.minLat())
+                    .putDouble(raster.maxLon()).putDouble(raster.maxLat());
+            buffer.position(HEADER_BYTES);
+            FloatBuffer samples = raster.samples();
+            for (int i = 0, n = samples.limit(); i < n; i++) {
+                if (buffer.remaining() < Float.BYTES) {
+                    flush(channel, buffer);
+                }
+                buffer.putFloat(samples.get(i));
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static BandRaster map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed (and after the file is deleted)
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (mapped.capacity() < HEADER_BYTES || mapped.getInt(0) != MAGIC || mapped.getInt(12) != BandRaster.BANDS) {
+                throw new IOException("Not a band raster file");
+            }
+            int width = mapped.getInt(4);
+            int height = mapped.getInt(8);
+            FloatBuffer samples = mapped.slice(HEADER_BYTES, mapped.capacity() - HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asFloatBuffer();
+            return BandRaster.of(samples, width, height,
+                    mapped.getDouble(16), mapped.getDouble(24), mapped.getDouble(32), mapped.getDouble(40));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Truncated band raster file", e);
+        }
+    }
+
+    // Callers hold the files lock
+    private void evictOverBudget(Key keep) {
+        Iterator<Map.Entry<Key, Long>> iterator = files.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<Key, Long> eldest = iterator.next();
+            if (eldest.getKey().equals(keep)) {
+                continue; // Never evict the raster just stored
+            }
+            iterator.remove();
+            totalBytes -= eldest.getValue();
+            evictions.incrementAndGet();
+            try {
+                Files.deleteIfExists(directory.resolve(eldest.getKey().fileName()));
+            } catch (IOException e) {
+                System.err.println("Error deleting band raster " + eldest.getKey().fileName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (files) {
+            stats.put("rasters", files.size());
+            stats.put("bytes", totalBytes);
+        }
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("stores", stores.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+}
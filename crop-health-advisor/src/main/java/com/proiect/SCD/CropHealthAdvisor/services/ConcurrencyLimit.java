@@ -0,0 +1,102 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Semaphore bounding the number of concurrent upstream calls.
+ * Callers over the limit wait in FIFO order without blocking a thread; a permit is released
+ * when the call completes or fails (before the subscriber is signalled) or is cancelled, and
+ * handed directly to the next waiter.
+ */
+public class ConcurrencyLimit {
+
+    private final int maxConcurrent;
+    private final ArrayDeque<Permit> waiting = new ArrayDeque<>();
+    private int active;
+    private long queuedCalls;
+    private long maxWaiting;
+
+    public ConcurrencyLimit(int maxConcurrent) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+    }
+
+    /**
+     * Subscribes to {@code call} once a permit is available.
+     */
+    public <T> Flux<T> run(Supplier<Flux<T>> call) {
+        return Flux.defer(() -> {
+            Permit permit = new Permit();
+            return acquire(permit)
+                    .thenMany(Flux.defer(call))
+                    // Released before the terminal signal goes downstream, so a finished call never holds a permit
+                    .doOnTerminate(() -> release(permit))
+                    .doOnCancel(() -> release(permit));
+        });
+    }
+
+    private Mono<Void> acquire(Permit permit) {
+        synchronized (this) {
+            if (active < maxConcurrent) {
+                active++;
+                permit.state = Permit.HELD;
+                return Mono.empty();
+            }
+            permit.state = Permit.WAITING;
+            waiting.add(permit);
+            queuedCalls++;
+            maxWaiting = Math.max(maxWaiting, waiting.size());
+        }
+        return permit.granted.asMono();
+    }
+
+    private void release(Permit permit) {
+        Permit next;
+        synchronized (this) {
+            if (permit.state == Permit.WAITING) {
+                // Cancelled while waiting
+                waiting.remove(permit);
+                permit.state = Permit.RELEASED;
+                return;
+            }
+            if (permit.state != Permit.HELD) {
+                return;
+            }
+            permit.state = Permit.RELEASED;
+            next = waiting.poll();
+            if (next == null) {
+                active--;
+                return;
+            }
+            next.state = Permit.HELD;
+        }
+        next.granted.tryEmitEmpty();
+    }
+
+    /**
+     * Returns the limit, active and waiting calls, and how many calls had to wait.
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("active", active);
+        stats.put("waiting", waiting.size());
+        stats.put("maxWaiting", maxWaiting);
+        stats.put("queuedCalls", queuedCalls);
+        return stats;
+    }
+
+    // State is guarded by the limit's lock
+    private static final class Permit {
+        static final int NEW = 0, WAITING = 1, HELD = 2, RELEASED = 3;
+
+        final Sinks.Empty<Void> granted = Sinks.empty();
+        int state = NEW;
+    }
+}
@@ -0,0 +1,122 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * NDVI/EVI/NDWI raster covering a group of nearby fields, decoded from a 16-bit PNG
+ * produced by {@link #EVALSCRIPT}. Lets one Process API request serve many locations:
+ * each location's indices are averaged over its own sub-window of the raster.
+ * <p>
+ * Encoding: band value 0 = no data, otherwise {@code 1 + round((index + 1) / 2 * 65534)}.
+ */
+public class EncodedIndexRaster {
+
+    /**
+     * Evalscript emitting NDVI, EVI and NDWI as encoded UINT16 bands plus a data mask band.
+     * Cloudy pixels (SCL cloud, shadow, cirrus, snow) are encoded as no data.
+     */
+    public static final String EVALSCRIPT =
+        "//VERSION=3\n" +
+        "function setup() {\n" +
+        "  return {\n" +
+        "    input: [{ bands: [\"B02\", \"B03\", \"B04\", \"B08\", \"SCL\", \"dataMask\"] }],\n" +
+        "    output: { bands: 4, sampleType: \"UINT16\" }\n" +
+        "  };\n" +
+        "}\n" +
+        "function encode(v) {\n" +
+        "  return 1 + Math.round((Math.max(-1, Math.min(1, v)) + 1) / 2 * 65534);\n" +
+        "}\n" +
+        "function evaluatePixel(samples) {\n" +
+        "  if (samples.dataMask == 0 || [0, 1, 3, 8, 9, 10, 11].indexOf(samples.SCL) >= 0) {\n" +
+        "    return [0, 0, 0, 0];\n" +
+        "  }\n" +
+        "  var blue = samples.B02, green = samples.B03, red = samples.B04, nir = samples.B08;\n" +
+        "  var ndvi = (nir - red) / (nir + red);\n" +
+        "  var evi = 2.5 * ((nir - red) / (nir + 6 * red - 7.5 * blue + 1));\n" +
+        "  var ndwi = (green - nir) / (green + nir);\n" +
+        "  return [encode(ndvi), encode(evi), encode(ndwi), 65535];\n" +
+        "}";
+
+    private static final int BANDS = 3;
+
+    private final Raster raster;
+    private final int width;
+    private final int height;
+    private final double minLon;
+    private final double minLat;
+    private final double maxLon;
+    private final double maxLat;
+
+    private EncodedIndexRaster(Raster raster, double minLon, double minLat, double maxLon, double maxLat) {
+        this.raster = raster;
+        this.width = raster.getWidth();
+        this.height = raster.getHeight();
+        this.minLon = minLon;
+        this.minLat = minLat;
+        this.maxLon = maxLon;
+        this.maxLat = maxLat;
+    }
+
+    /**
+     * Decodes the PNG returned by the Process API for the given bbox (EPSG:4326).
+     */
+    public static EncodedIndexRaster decode(byte[] png, double minLon, double minLat, double maxLon, double maxLat)
+            throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        if (image == null || image.getRaster().getNumBands() < BANDS) {
+            throw new IOException("Unexpected index raster format");
+        }
+        return new EncodedIndexRaster(image.getRaster(), minLon, minLat, maxLon, maxLat);
+    }
+
+    /**
+     * Encodes an index value the same way as the evalscript (used by tests and stubs).
+     */
+    public static int encode(double value) {
+        return 1 + (int) Math.round((Math.max(-1, Math.min(1, value)) + 1) / 2 * 65534);
+    }
+
+    private static double decodeSample(int sample) {
+        return (sample - 1) / 65534.0 * 2.0 - 1.0;
+    }
+
+    /**
+     * Mean NDVI, EVI and NDWI over the pixels within ±buffer degrees of the point.
+     * @return {ndvi, evi, ndwi, validPixels}, or null if no valid pixel covers the window
+     */
+    public double[] meanAround(double lat, double lon, double buffer) {
+        int x0 = clamp((int) Math.floor((lon - buffer - minLon) / (maxLon - minLon) * width), width);
+        int x1 = clamp((int) Math.ceil((lon + buffer - minLon) / (maxLon - minLon) * width) - 1, width);
+        // Row 0 is the northern edge
+        int y0 = clamp((int) Math.floor((maxLat - (lat + buffer)) / (maxLat - minLat) * height), height);
+        int y1 = clamp((int) Math.ceil((maxLat - (lat - buffer)) / (maxLat - minLat) * height) - 1, height);
+
+        double[] sums = new double[BANDS];
+        int count = 0;
+        int[] pixel = new int[raster.getNumBands()];
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+                raster.getPixel(x, y, pixel);
+                if (pixel[0] == 0) {
+                    continue; // No data
+                }
+                for (int b = 0; b < BANDS; b++) {
+                    sums[b] += decodeSample(pixel[b]);
+                }
+                count++;
+            }
+        }
+        if (count == 0) {
+            return null;
+        }
+        return new double[]{sums[0] / count, sums[1] / count, sums[2] / count, count};
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+}
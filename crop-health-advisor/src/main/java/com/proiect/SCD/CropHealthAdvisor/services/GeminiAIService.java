@@ -1,266 +1,386 @@
 // src/main/java/com/proiect/SCD/CropHealthAdvisor/services/GeminiAIService.java
 package com.proiect.SCD.CropHealthAdvisor.services;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.proiect.SCD.CropHealthAdvisor.dto.InterpretationRequest;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * AI interpretation of report metrics.
+ * Without {@code gemini.api.key} the interpretation is generated locally (mock); with a key it is
+ * streamed from Gemini ({@code streamGenerateContent}) over a shared connection pool, with at most
+ * {@code gemini.max-concurrent} calls in flight, a timeout on each chunk, an overall deadline per
+ * attempt and jittered retries until the first chunk arrives. Failed calls fall back to the mock
+ * interpretation.
+ */
 @Service
 public class GeminiAIService {
 
-    @Value("${gemini.api.key}")
-    private String geminiApiKey;
+    static final String MOCK_MODEL = "mock";
+
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE =
+            new ParameterizedTypeReference<>() {
+            };
+
+    @Value("${gemini.api.key:}")
+    private String geminiApiKey = "";
+
+    @Value("${gemini.model:gemini-2.0-flash}")
+    private String geminiModel = "gemini-2.0-flash";
+
+    @Value("${gemini.retry.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    @Value("${gemini.retry.backoff-ms:500}")
+    private long retryBackoffMs = 500;
+
+    // Whole answer, however steadily the chunks arrive
+    @Value("${gemini.attempt-deadline-seconds:120}")
+    private long attemptDeadlineSeconds = 120;
+
+    @Autowired
+    private InterpretationCache interpretationCache;
+
+    private final WebClient webClient;
+    private final ConnectionProvider connectionProvider;
+    private final ObjectMapper objectMapper;
+    private final ConcurrencyLimit concurrencyLimit;
+    private final Duration timeout;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong chunks = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private final AtomicLong totalMs = new AtomicLong();
+
+    @Autowired
+    public GeminiAIService(ObjectMapper objectMapper,
+                           @Value("${gemini.base-url:https://generativelanguage.googleapis.com}") String baseUrl,
+                           @Value("${gemini.max-concurrent:4}") int maxConcurrent,
+                           @Value("${gemini.timeout-seconds:30}") long timeoutSeconds) {
+        this.objectMapper = objectMapper != null ? objectMapper : new ObjectMapper();
+        this.concurrencyLimit = new ConcurrencyLimit(maxConcurrent);
+        this.timeout = Duration.ofSeconds(timeoutSeconds);
+        // Callers wait for a permit before taking a connection, so the pool never queues
+        this.connectionProvider = ConnectionProvider.builder("gemini")
+                .maxConnections(Math.max(1, maxConcurrent))
+                .maxIdleTime(Duration.ofSeconds(30))
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 10_000);
+        this.webClient = WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    // Numbers in the prompt always use a decimal point, like the ranges in the text
+    private static final String PROMPT_TEMPLATE =
+            "Ești un expert în agricultură și monitorizare a culturilor prin date satelitare. " +
+            "Analizează în detaliu următoarele date satelitare pentru o locație agricolă și oferă o analiză comprehensivă:\n\n" +
+            "📊 DATE SATELITARE:\n\n" +
+            "INDICI DE VEGETAȚIE:\n" +
+            "- NDVI (Normalized Difference Vegetation Index): %.3f\n" +
+            "  Interval: -1.0 (vegetație mortă/sol gol) → 1.0 (vegetație foarte sănătoasă)\n" +
+            "- EVI (Enhanced Vegetation Index): %.3f\n" +
+            "  Indică vegetație mai robust, mai puțin sensibil la influența solului\n" +
+            "- NDWI (Normalized Difference Water Index): %.3f\n" +
+            "  Indică disponibilitatea apei în vegetație și sol (-1.0 uscat → 1.0 umed)\n\n" +
+            "CONDIȚII DE MEDIU:\n" +
+            "- Temperatura solului (LST - Land Surface Temperature): %.1f°C\n" +
+            "  NOTĂ IMPORTANTĂ: Aceasta este temperatura suprafeței solului, NU temperatura aerului\n" +
+            "  Interval normal pentru sol: 5°C - 50°C (variază după sezon și tipul culturii)\n" +
+            "- Umiditate solului: %.1f%%\n" +
+            "  Derivă din NDWI: valori ridicate = sol mai umed\n" +
+            "- Precipitații estimate: %.1fmm\n" +
+            "  Estimare bazată pe indici satelitari (NDWI și alți indici)\n" +
+            "- Evapotranspirație: %.2f mm/zi\n" +
+            "  Estimare bazată pe NDVI și temperatura solului\n" +
+            "- Acoperire nori: %.1f%%\n" +
+            "  Din clasificarea scenei Sentinel-2 (SCL): ponderea pixelilor cu nori, umbre de nori, ciruși sau zăpadă\n\n" +
+            "📝 CERINȚE PENTRU RĂSPUNSUL TĂU:\n" +
+            "Fă o ANALIZĂ DETALIATĂ și COMPREHENSIVĂ (minimum 10-15 rânduri) care include:\n" +
+            "1. Evaluare generală a stării culturii bazată pe TOATE indicile (NDVI, EVI, NDWI)\n" +
+            "2. Analiza impactului temperaturii solului asupra dezvoltării culturilor\n" +
+            "3. Evaluarea umidității solului și disponibilității apei\n" +
+            "4. Analiza balanței dintre evapotranspirație și precipitații\n" +
+            "5. Impactul acoperirii norilor asupra calității datelor\n" +
+            "6. Identificarea problemelor potențiale și riscurilor\n" +
+            "7. Recomandări SPECIFICE și PRIORITIZATE pentru acțiuni (ex: irigație, fertilizare, tratamente, monitorizare)\n" +
+            "8. Plan de acțiune pe termen scurt și mediu\n" +
+            "9. Sfaturi practice pentru îmbunătățirea condițiilor culturilor\n\n" +
+            "Fii detaliat, precis și oferă sfaturi practice bazate pe toate datele disponibile. " +
+            "Nu repeta valorile numerice de mai sus: ele sunt afișate separat, deasupra analizei; " +
+            "descrie-le calitativ (ex: NDVI moderat, sol uscat, temperatură ridicată). " +
+            "Răspunde în %s, într-un stil profesional dar accesibil, fără prefixe sau formate JSON.";
+
+    private static final Locale PROMPT_LOCALE = Locale.forLanguageTag("ro");
+
+    // Measured values, shown above a model interpretation (the cached text is shared by similar fields)
+    private static final String VALUES_TEMPLATE =
+            "📊 VALORI MĂSURATE: NDVI %.3f · EVI %.3f · NDWI %.3f · Temperatura solului %.1f°C · " +
+            "Umiditate sol %.1f%% · Precipitații %.1fmm · Evapotranspirație %.2f mm/zi · Acoperire nori %.1f%%\n\n";
 
     /**
-     * Generates AI interpretation for crop health analysis.
-     * Currently uses mock response for testing. In production, use real Gemini API.
+     * Generates AI interpretation for crop health analysis, as the JSON stored with the report
+     * ({@code mockAI}, {@code interpretation}, {@code timestamp}).
+     * Model interpretations of metrics in the same bands and conditions are served from the
+     * {@link InterpretationCache}, below the request's own values; mock ones are rendered every time.
      */
-    public Mono<String> getInterpretation(String prompt) {
-        // Extract metrics from prompt for more realistic response
-        double ndvi = extractNDVI(prompt);
-        double temp = extractTemperature(prompt);
-        double precip = extractPrecipitation(prompt);
-        
-        String interpretation = generateMockInterpretation(ndvi, temp, precip);
-        
-        String mockResponse = String.format(
-            "{\"mockAI\": true, \"interpretation\": \"%s\", \"timestamp\": \"%s\"}",
-            interpretation,
-            java.time.Instant.now().toString()
-        );
-        
-        return Mono.just(mockResponse);
-    }
-    
-    private double extractNDVI(String prompt) {
-        try {
-            int ndviIdx = prompt.indexOf("NDVI");
-            if (ndviIdx != -1) {
-                String substr = prompt.substring(ndviIdx);
-                int colonIdx = substr.indexOf(":");
-                int parenIdx = substr.indexOf("(");
-                if (colonIdx != -1 && parenIdx != -1) {
-                    String valueStr = substr.substring(colonIdx + 1, parenIdx).trim();
-                    return Double.parseDouble(valueStr);
-                }
-            }
-        } catch (Exception e) {
-            // Fallback to random if extraction fails
+    public Mono<String> getInterpretation(InterpretationRequest request) {
+        String model = model();
+        if (MOCK_MODEL.equals(model)) {
+            return Mono.just(response(mockInterpretation(request), model));
         }
-        return Math.random() * 2.0 - 1.0;
+        InterpretationCache.Key key = interpretationCache.keyFor(request, model);
+        String cached = interpretationCache.get(key);
+        if (cached != null) {
+            return Mono.just(response(renderValues(request) + cached, model));
+        }
+        return generate(request)
+                .collect(Collectors.joining())
+                .filter(interpretation -> !interpretation.isBlank())
+                .switchIfEmpty(Mono.error(new IllegalStateException("Empty Gemini response")))
+                .doOnNext(interpretation -> interpretationCache.put(key, interpretation))
+                .map(interpretation -> response(renderValues(request) + interpretation, model))
+                .onErrorResume(error -> {
+                    fallbacks.incrementAndGet();
+                    System.err.println("Gemini interpretation failed, using mock: " + error.getMessage());
+                    return Mono.just(response(mockInterpretation(request), MOCK_MODEL));
+                });
     }
-    
-    private double extractTemperature(String prompt) {
-        try {
-            int tempIdx = prompt.indexOf("Temperatură:");
-            if (tempIdx != -1) {
-                String substr = prompt.substring(tempIdx);
-                int colonIdx = substr.indexOf(":");
-                int degreeIdx = substr.indexOf("°C");
-                if (colonIdx != -1 && degreeIdx != -1) {
-                    String valueStr = substr.substring(colonIdx + 1, degreeIdx).trim();
-                    return Double.parseDouble(valueStr);
-                }
+
+    /**
+     * Interpretation text as it is generated: the model's chunks as they arrive (the first one
+     * preceded by the measured values), or the whole text at once when cached or generated locally.
+     * A call failing before its first chunk falls back to the mock interpretation; one failing
+     * later ends the stream with the error.
+     */
+    public Flux<String> streamInterpretation(InterpretationRequest request) {
+        return Flux.defer(() -> {
+            String model = model();
+            if (MOCK_MODEL.equals(model)) {
+                return Flux.just(mockInterpretation(request));
             }
-        } catch (Exception e) {
-            // Fallback to random if extraction fails
-        }
-        return Math.random() * 50.0 - 10.0;
+            InterpretationCache.Key key = interpretationCache.keyFor(request, model);
+            String cached = interpretationCache.get(key);
+            if (cached != null) {
+                return Flux.just(renderValues(request) + cached);
+            }
+            StringBuilder text = new StringBuilder();
+            return generate(request)
+                    .map(chunk -> {
+                        boolean first = text.isEmpty();
+                        text.append(chunk);
+                        return first ? renderValues(request) + chunk : chunk;
+                    })
+                    .doOnComplete(() -> {
+                        if (!text.toString().isBlank()) {
+                            interpretationCache.put(key, text.toString());
+                        }
+                    })
+                    .onErrorResume(error -> {
+                        if (!text.isEmpty()) {
+                            return Flux.error(error);
+                        }
+                        fallbacks.incrementAndGet();
+                        System.err.println("Gemini interpretation failed, using mock: " + error.getMessage());
+                        return Flux.just(mockInterpretation(request));
+                    });
+        });
+    }
+
+    private String model() {
+        return geminiApiKey == null || geminiApiKey.isBlank() ? MOCK_MODEL : geminiModel;
+    }
+
+    private String mockInterpretation(InterpretationRequest request) {
+        InterpretationRequest.Metrics metrics = request.metrics();
+        return MockInterpretationTemplate.render(metrics.ndvi(), metrics.temperature(), metrics.precipitation());
+    }
+
+    private String response(String interpretation, String model) {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("mockAI", MOCK_MODEL.equals(model));
+        response.put("interpretation", interpretation);
+        response.put("timestamp", Instant.now().toString());
+        return response.toString();
+    }
+
+    /**
+     * Text chunks streamed by Gemini for the request's prompt.
+     * Each attempt waits for a concurrency permit and times out when no chunk arrives in time or
+     * when the whole answer takes longer than the attempt deadline, which frees the permit;
+     * failed attempts are retried with jittered backoff as long as nothing was emitted yet.
+     */
+    private Flux<String> generate(InterpretationRequest request) {
+        Map<String, Object> body = Map.of("contents", List.of(
+                Map.of("role", "user", "parts", List.of(Map.of("text", renderPrompt(request))))));
+        return Flux.defer(() -> {
+            AtomicBoolean emitted = new AtomicBoolean();
+            long start = System.currentTimeMillis();
+            return concurrencyLimit.run(() -> {
+                        calls.incrementAndGet();
+                        Duration deadline = Duration.ofSeconds(attemptDeadlineSeconds);
+                        return webClient.post()
+                                .uri("/v1beta/models/{model}:streamGenerateContent?alt=sse", geminiModel)
+                                .header("x-goog-api-key", geminiApiKey)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.TEXT_EVENT_STREAM)
+                                .bodyValue(body)
+                                .retrieve()
+                                .bodyToFlux(SSE_TYPE)
+                                .timeout(timeout)
+                                .takeUntilOther(Mono.delay(deadline).then(Mono.error(() ->
+                                        new TimeoutException("Gemini answer not complete within " + deadline.toSeconds() + "s"))))
+                                .doOnError(TimeoutException.class, error -> timeouts.incrementAndGet())
+                                .concatMapIterable(event -> parseChunk(event.data()));
+                    })
+                    .doOnNext(chunk -> {
+                        emitted.set(true);
+                        chunks.incrementAndGet();
+                    })
+                    .retryWhen(Retry.backoff(Math.max(0, maxAttempts - 1), Duration.ofMillis(retryBackoffMs))
+                            .jitter(0.5)
+                            .filter(error -> !emitted.get() && isRetryable(error))
+                            .doBeforeRetry(signal -> retries.incrementAndGet())
+                            .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                    .doFinally(signal -> totalMs.addAndGet(System.currentTimeMillis() - start));
+        });
     }
-    
-    private double extractPrecipitation(String prompt) {
+
+    /**
+     * Text parts of one {@code GenerateContentResponse} event.
+     */
+    private List<String> parseChunk(String data) {
+        List<String> texts = new ArrayList<>();
+        if (data == null || data.isBlank()) {
+            return texts;
+        }
         try {
-            int precipIdx = prompt.indexOf("Precipitații:");
-            if (precipIdx != -1) {
-                String substr = prompt.substring(precipIdx);
-                int colonIdx = substr.indexOf(":");
-                int mmIdx = substr.indexOf("mm");
-                if (colonIdx != -1 && mmIdx != -1) {
-                    String valueStr = substr.substring(colonIdx + 1, mmIdx).trim();
-                    return Double.parseDouble(valueStr);
+            JsonNode root = objectMapper.readTree(data);
+            if (root.has("error")) {
+                throw new IllegalStateException("Gemini error: " + root.path("error").path("message").asText());
+            }
+            for (JsonNode part : root.path("candidates").path(0).path("content").path("parts")) {
+                String text = part.path("text").asText("");
+                if (!text.isEmpty()) {
+                    texts.add(text);
                 }
             }
-        } catch (Exception e) {
-            // Fallback to random if extraction fails
+            return texts;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable Gemini response chunk", e);
         }
-        return Math.random() * 100.0;
     }
-    
-    private String generateMockInterpretation(double ndvi, double temp, double precip) {
-        StringBuilder sb = new StringBuilder();
-        
-        // ANALIZĂ DETALIATĂ ȘI COMPREHENSIVĂ (minimum 10-15 rânduri)
-        sb.append("📊 EVALUARE GENERALĂ A STĂRII CULTURILOR:\n\n");
-        
-        // Analiza NDVI detaliată
-        sb.append("INDICI DE VEGETAȚIE - Analiză NDVI și EVI:\n");
-        if (ndvi < -0.3) {
-            sb.append("Vegetația prezintă valori extrem de scăzute (NDVI: ").append(String.format("%.3f", ndvi)).append("), indicând fie un sol complet gol, fie vegetație foarte degradată. ");
-            sb.append("Această situație necesită intervenție urgentă și investigare imediată a cauzelor. ");
-            sb.append("Este posibil să fie vorba despre compactarea excesivă a solului, lipsă de nutrienți, sau probleme de drenaj. ");
-            sb.append("Recomandăm un test de sol complet pentru a identifica problemele specifice.\n\n");
-        } else if (ndvi < 0.0) {
-            sb.append("NDVI-ul indică (").append(String.format("%.3f", ndvi)).append(") semne clare de stres vegetal sever. ");
-            sb.append("Vegetația prezintă semne de degradare sau poate fi în faza incipientă de dezvoltare. ");
-            sb.append("Este esențial să se identifice rapid cauzele: poate fi lipsă de apă, deficiențe nutriționale, sau boli. ");
-            sb.append("Monitorizarea zilnică este recomandată până la îmbunătățirea situației.\n\n");
-        } else if (ndvi < 0.3) {
-            sb.append("Valorile NDVI (").append(String.format("%.3f", ndvi)).append(") indică o vegetație în dezvoltare moderată. ");
-            sb.append("Cultura este prezentă, dar există potențial semnificativ de îmbunătățire. ");
-            sb.append("Această fază necesită atenție sporită la nutriție și condiții de mediu pentru a optimiza creșterea. ");
-            sb.append("Fertilizarea corectă și irigația controlată pot îmbunătăți semnificativ indicatorii în următoarele 2-3 săptămâni.\n\n");
-        } else if (ndvi < 0.6) {
-            sb.append("NDVI excelent (").append(String.format("%.3f", ndvi)).append(") - cultura prezintă o vegetație sănătoasă și viguroasă. ");
-            sb.append("Cultura se dezvoltă bine și se află într-o fază optimă de creștere. ");
-            sb.append("Condițiile actuale sunt favorabile, dar continuarea monitorizării și menținerea acestor condiții sunt esențiale. ");
-            sb.append("Aplicarea unui program de fertilizare echilibrat și irigație optimă va menține acest nivel de sănătate.\n\n");
-        } else {
-            sb.append("NDVI exceptional (").append(String.format("%.3f", ndvi)).append(") - cultura prezintă o creștere foarte viguroasă și vegetație excelentă. ");
-            sb.append("Aceasta indică condiții optime și potențial maxim de producție. ");
-            sb.append("Este important să menții aceste condiții prin monitorizare constantă și acțiuni preventive. ");
-            sb.append("Poți considera îmbunătățiri suplimentare doar pentru optimizare maximă, dar situația actuală este deja excelentă.\n\n");
-        }
-        
-        // Analiza temperaturii solului detaliată
-        sb.append("🌡️ ANALIZA TEMPERATURII SOLULUI (LST):\n");
-        if (temp < 5) {
-            sb.append(String.format("Temperatura solului de %.1f°C este foarte scăzută și prezintă risc semnificativ pentru culturi sensibile. ", temp));
-            sb.append("Aceste condiții pot cauza înghețarea rădăcinilor și oprirea dezvoltării. ");
-            sb.append("Recomandări urgente: aplicarea acoperirilor de protecție termică, foliere, sau utilizarea mulching-ului pentru izolare. ");
-            sb.append("Monitorizați intensiv culturile sensibile și pregătiți măsuri de protecție pentru perioadele de îngheț.\n\n");
-        } else if (temp < 10) {
-            sb.append(String.format("Temperatura solului de %.1f°C este sub nivelul optim pentru majoritatea culturilor de câmp. ", temp));
-            sb.append("Dezvoltarea va fi mai lentă, iar rădăcinile vor absorbi nutrienții mai puțin eficient. ");
-            sb.append("Este important să ajustați programele de fertilizare și irigație în conformitate cu aceste condiții. ");
-            sb.append("Monitorizați dezvoltarea culturilor și anticipați întârzierile posibile în ciclul de creștere.\n\n");
-        } else if (temp <= 30) {
-            sb.append(String.format("Temperatura solului de %.1f°C se încadrează în intervalul optim pentru dezvoltarea culturilor. ", temp));
-            sb.append("Aceste condiții favorizează activitatea rădăcinilor, absorbția nutrienților și creșterea vegetală. ");
-            sb.append("Cultura ar trebui să se dezvolte normal, iar procesele fiziologice sunt active. ");
-            sb.append("Mențineți aceste condiții prin gestionarea corectă a irigației și nutriției.\n\n");
-        } else if (temp <= 35) {
-            sb.append(String.format("Temperatura solului de %.1f°C este ridicată, aproape de limita superioară de confort pentru multe culturi. ", temp));
-            sb.append("La aceste temperaturi, culturile pot prezenta semne de stres termic: închiderea stomatelor, scăderea fotosintezei. ");
-            sb.append("Recomandări: intensificarea irigației pentru răcire, utilizarea acoperirilor de umbrire, și monitorizarea zilnică a stării culturilor. ");
-            sb.append("Culturile pot necesita protecție suplimentară în perioadele de vârf termic.\n\n");
-        } else {
-            sb.append(String.format("Temperatura solului de %.1f°C este extrem de ridicată și poate provoca daune severe culturilor. ", temp));
-            sb.append("La aceste niveluri, riscul de stres termic sever este foarte mare, iar productivitatea poate scădea dramatic. ");
-            sb.append("Măsuri urgente necesare: irigație frecventă pentru răcire, acoperiri de protecție, și posibil întreruperea temporară a anumitor operațiuni agricole. ");
-            sb.append("Consultarea unui agronom pentru strategii specifice de protecție este recomandată.\n\n");
-        }
-        
-        // Analiza precipitațiilor și umidității detaliată
-        sb.append("💧 ANALIZA APEI ȘI UMIDITĂȚII:\n");
-        if (precip < 10) {
-            sb.append(String.format("Precipitațiile estimate de %.1fmm sunt clar insuficiente pentru nevoile culturilor. ", precip));
-            sb.append("Aceste condiții conduc inevitabil la stres hidric, cu impact negativ asupra dezvoltării și productivității. ");
-            sb.append("Irigația suplimentară este esențială și trebuie implementată urgent. ");
-            sb.append("Planificați un program de irigație regulat, monitorizați umiditatea solului zilnic, și ajustați dozele în funcție de evapotranspirație. ");
-            sb.append("În perioade de secetă severă, este crucial să menții umiditatea solului la niveluri optime pentru a preveni pierderi de producție.\n\n");
-        } else if (precip < 30) {
-            sb.append(String.format("Precipitațiile de %.1fmm sunt sub optimul necesar pentru cultura actuală. ", precip));
-            sb.append("Monitorizarea atentă a umidității solului este necesară pentru a anticipa nevoile de irigație. ");
-            sb.append("Este recomandat să pregătiți un plan de irigație de rezervă și să monitorizați indicatorii de stres hidric. ");
-            sb.append("Ajustarea programului de irigație în funcție de condițiile meteorologice și nevoile culturii este esențială.\n\n");
-        } else if (precip <= 80) {
-            sb.append(String.format("Precipitațiile de %.1fmm sunt în intervalul normal și oferă condiții bune pentru culturi. ", precip));
-            sb.append("Balanța apei pare echilibrată, ceea ce este favorabil pentru dezvoltarea sănătoasă a culturilor. ");
-            sb.append("Continuați monitorizarea regulată și ajustați irigația doar când este necesar. ");
-            sb.append("Menținerea acestui nivel optim de umiditate va susține o creștere constantă și productivitate ridicată.\n\n");
-        } else if (precip <= 100) {
-            sb.append(String.format("Precipitațiile de %.1fmm sunt ridicate și necesită atenție la drenaj. ", precip));
-            sb.append("Excesul de apă poate duce la saturarea solului, limitarea oxigenării rădăcinilor și apariția problemelor de pudră. ");
-            sb.append("Verificați sistemul de drenaj, monitorizați nivelul apei în sol, și luați măsuri pentru prevenirea compactării. ");
-            sb.append("În cazuri extreme, poate fi necesară îmbunătățirea drenajului sau chiar evacuarea apei excesive.\n\n");
-        } else {
-            sb.append(String.format("Precipitațiile de %.1fmm sunt foarte ridicate și pot cauza probleme serioase. ", precip));
-            sb.append("Risc de inundații locale, saturare completă a solului și posibile pierderi de producție. ");
-            sb.append("Măsuri urgente: verificare imediată a drenajului, evaluarea stării culturilor, și protecție împotriva compactării solului. ");
-            sb.append("Este posibil să fie necesară intervenție urgentă pentru salvarea culturilor.\n\n");
-        }
-        
-        // Recomandări detaliate și prioritizate
-        sb.append("✅ PLAN DE ACȚIUNE - RECOMANDĂRI PRIORITIZATE:\n\n");
-        
-        if (ndvi < 0.3) {
-            sb.append("PRIORITATE RIDICATĂ:\n");
-            sb.append("1. Aplicarea urgentă de fertilizanți echilibrați (NPK) pentru îmbunătățirea NDVI\n");
-            sb.append("2. Verificarea completă a sănătății rădăcinilor și a structurii solului\n");
-            sb.append("3. Testare sol pentru identificarea deficiențelor nutriționale specifice\n");
-            sb.append("4. Implementarea unui program de irigație optim pentru susținerea creșterii\n\n");
-        }
-        
-        if (precip < 30 && temp > 15) {
-            sb.append("GESTIUNEA APEI:\n");
-            sb.append("1. Programare imediată a irigației suplimentare pentru a compensa lipsa precipitațiilor\n");
-            sb.append("2. Instalarea de senzori de umiditate pentru monitorizare precisă\n");
-            sb.append("3. Optimizarea programului de irigație pe baza evapotranspirației reale\n");
-            sb.append("4. Considerarea tehnologiilor de conservare a apei (mulching, irigație cu picuri)\n\n");
-        }
-        
-        if (temp > 30) {
-            sb.append("PROTECȚIA TERMICĂ:\n");
-            sb.append("1. Monitorizare intensă zilnică pentru identificarea rapidă a stresului termic\n");
-            sb.append("2. Considerarea acoperirilor de umbrire sau foliilor de protecție\n");
-            sb.append("3. Ajustarea programului de irigație pentru răcire (irigație dimineața devreme)\n");
-            sb.append("4. Evaluarea necesității de întrerupere temporară a anumitor operațiuni în vârfurile termice\n\n");
-        }
-        
-        if (ndvi >= 0.3 && temp >= 10 && temp <= 30 && precip >= 30) {
-            sb.append("MENȚINEREA CONDIȚIILOR OPTIME:\n");
-            sb.append("1. Continuarea programului de monitorizare regulată a culturilor\n");
-            sb.append("2. Aplicarea programului standard de fertilizare și tratamente preventive\n");
-            sb.append("3. Optimizarea continuă a programului de irigație pe baza nevoilor reale\n");
-            sb.append("4. Pregătirea strategiilor de răspuns pentru eventuale schimbări de condiții\n\n");
+
+    // Rate limiting, server errors, timeouts and connection failures; not bad requests or keys
+    private static boolean isRetryable(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            int status = response.getStatusCode().value();
+            return status == 429 || status >= 500;
         }
-        
-        // Asigură că există întotdeauna o secțiune de recomandări, chiar dacă nu se potrivesc condițiile de mai sus
-        boolean hasRecommendations = ndvi < 0.3 || (precip < 30 && temp > 15) || temp > 30 || (ndvi >= 0.3 && temp >= 10 && temp <= 30 && precip >= 30);
-        if (!hasRecommendations) {
-            sb.append("ACȚIUNI RECOMANDATE:\n");
-            sb.append("1. Continuarea monitorizării regulate pentru detectarea timpurie a problemelor\n");
-            sb.append("2. Pregătirea unui plan de acțiune pentru eventuale schimbări de condiții meteorologice\n");
-            sb.append("3. Menținerea unui program optim de irigație și fertilizare\n");
-            sb.append("4. Documentarea continuă a observațiilor pentru analiză comparativă\n\n");
+        return error instanceof TimeoutException || error instanceof WebClientRequestException;
+    }
+
+    @PreDestroy
+    public void close() {
+        connectionProvider.dispose();
+    }
+
+    /**
+     * Longest a call can take before it falls back to the mock interpretation, not counting
+     * the wait for a concurrency permit: every attempt running into its deadline, plus the
+     * retry backoffs (with the full +50% jitter).
+     */
+    public Duration maxCallDuration() {
+        int attempts = Math.max(1, maxAttempts);
+        long backoffMs = 0;
+        for (int retry = 0; retry < attempts - 1; retry++) {
+            backoffMs += (long) (retryBackoffMs * Math.pow(2, retry) * 1.5);
         }
-        
-        // Sfaturi practice
-        sb.append("💡 SFATURI PRACTICE PENTRU ÎMBUNĂTĂȚIRE:\n");
-        sb.append("• Monitorizați zilnic indicatorii și ajustați strategiile în funcție de tendințe\n");
-        sb.append("• Mențineți un jurnal detaliat cu observații și acțiuni întreprinse\n");
-        sb.append("• Consultați periodic un agronom pentru validarea deciziilor bazate pe date satelitare\n");
-        sb.append("• Implementați practici de agricultură de precizie pentru optimizare continuă\n");
-        sb.append("• Anticipați nevoile culturilor pe baza tendințelor identificate în date\n\n");
-        
-        sb.append("📋 CONCLUZIE: Aceste recomandări sunt bazate pe analiza comprehensivă a tuturor metricilor satelitare disponibile. ");
-        sb.append("Pentru implementare optimă, consultați un agronom local care poate adapta aceste recomandări la condițiile specifice ale locației dvs. ");
-        sb.append("Monitorizarea continuă și ajustarea strategiilor sunt esențiale pentru succesul pe termen lung.");
-        
-        return sb.toString();
-        
-        // Codul original pentru API-ul real Gemini (comentat pentru testare):
-        /*
-        WebClient client = WebClient.builder()
-                .baseUrl("https://generativelanguage.googleapis.com/v1beta/models/gemini-pro:generateContent")
-                .build();
+        return Duration.ofSeconds(attemptDeadlineSeconds).multipliedBy(attempts).plusMillis(backoffMs);
+    }
 
-        String requestBody = "{" +
-            "\"contents\": [{\"parts\":[{\"text\":\"" + prompt + "\"}]}]" +
-        "}";
+    /**
+     * Returns model calls, streamed chunks, retries, timeouts, fallbacks and the concurrency limit.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("model", model());
+        stats.put("calls", calls.get());
+        stats.put("chunks", chunks.get());
+        stats.put("retries", retries.get());
+        stats.put("timeouts", timeouts.get());
+        stats.put("fallbacks", fallbacks.get());
+        stats.put("totalMs", totalMs.get());
+        stats.put("concurrency", concurrencyLimit.getStats());
+        return stats;
+    }
 
-        return client.post()
-                .uri(uriBuilder -> uriBuilder.queryParam("key", geminiApiKey).build())
-                .header("Content-Type", "application/json")
-                .bodyValue(requestBody)
-                .retrieve()
-                .bodyToMono(String.class)
-                .map(response -> {
-                    // Proceseaza raspunsul pentru a extrage textul generat de AI
-                    // Exemplu simplu, va trebui adaptat la structura reala a raspunsului
-                    return response;
-                });
-        */
+    /**
+     * Exact values of the request, shown above a model interpretation.
+     */
+    static String renderValues(InterpretationRequest request) {
+        InterpretationRequest.Metrics metrics = request.metrics();
+        return String.format(Locale.ROOT, VALUES_TEMPLATE,
+                metrics.ndvi(),
+                metrics.evi(),
+                metrics.ndwi(),
+                metrics.temperature(),
+                metrics.soilMoisture(),
+                metrics.precipitation(),
+                metrics.evapotranspiration(),
+                metrics.cloudCover());
+    }
+
+    /**
+     * Prompt sent to the model; the answer is requested in the language of the request locale.
+     */
+    static String renderPrompt(InterpretationRequest request) {
+        InterpretationRequest.Metrics metrics = request.metrics();
+        return String.format(Locale.ROOT, PROMPT_TEMPLATE,
+                metrics.ndvi(),
+                metrics.evi(),
+                metrics.ndwi(),
+                metrics.temperature(),
+                metrics.soilMoisture(),
+                metrics.precipitation(),
+                metrics.evapotranspiration(),
+                metrics.cloudCover(),
+                request.locale().getDisplayLanguage(PROMPT_LOCALE));
     }
-}
\ No newline at end of file
+}
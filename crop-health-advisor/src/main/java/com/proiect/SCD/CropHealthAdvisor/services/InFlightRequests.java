@@ -0,0 +1,93 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent upstream requests: callers asking for a key that is
+ * already being fetched join the in-flight request instead of issuing their own.
+ * Entries are removed as soon as the request completes or fails, so nothing is cached.
+ * A shared request that hangs fails after the timeout, so its key is freed for later callers.
+ */
+public class InFlightRequests<K, V> {
+
+    // Longer than any healthy Sentinel Hub call, including the image and tile renders
+    static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(60);
+
+    private final Duration timeout;
+    private final ConcurrentHashMap<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong upstreamCalls = new AtomicLong();
+    private final AtomicLong coalescedCalls = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    public InFlightRequests() {
+        this(DEFAULT_TIMEOUT);
+    }
+
+    public InFlightRequests(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Returns the in-flight request for the key, or starts one with {@code upstream}.
+     * The upstream request runs to completion even if the callers that joined it cancel.
+     */
+    public Mono<V> execute(K key, Supplier<Mono<V>> upstream) {
+        return Mono.defer(() -> {
+            Sinks.One<V> sink = Sinks.one();
+            Mono<V> shared = sink.asMono();
+            Mono<V> existing = inFlight.putIfAbsent(key, shared);
+            if (existing != null) {
+                coalescedCalls.incrementAndGet();
+                return existing;
+            }
+            upstreamCalls.incrementAndGet();
+            Mono<V> request;
+            try {
+                request = upstream.get();
+            } catch (RuntimeException e) {
+                request = Mono.error(e);
+            }
+            request.timeout(timeout)
+                    .doOnError(TimeoutException.class, e -> timeouts.incrementAndGet())
+                    .subscribe(
+                            value -> {
+                                inFlight.remove(key, shared);
+                                sink.tryEmitValue(value);
+                            },
+                            error -> {
+                                inFlight.remove(key, shared);
+                                sink.tryEmitError(error);
+                            },
+                            () -> {
+                                inFlight.remove(key, shared);
+                                sink.tryEmitEmpty(); // No-op after a value
+                            });
+            return shared;
+        });
+    }
+
+    public int size() {
+        return inFlight.size();
+    }
+
+    /**
+     * Upstream requests issued vs. requests served by joining an in-flight one.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("upstreamCalls", upstreamCalls.get());
+        stats.put("upstreamCallsSaved", coalescedCalls.get());
+        stats.put("inFlight", inFlight.size());
+        stats.put("timeouts", timeouts.get());
+        return stats;
+    }
+}
@@ -0,0 +1,207 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proiect.SCD.CropHealthAdvisor.dto.InterpretationRequest;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of AI interpretation texts.
+ * Entries are keyed on the NDVI, temperature and precipitation bands and the recommendation
+ * conditions of {@link MockInterpretationTemplate}, on bands of the other metrics the prompt asks
+ * the model to discuss (never on rounded values, which could fall on either side of a threshold),
+ * on the language and on the model. Cached texts do not contain the measured values; those are
+ * added for each request.
+ * Least recently used entries are evicted when the cache is full. When a file is configured,
+ * the entries are saved on shutdown and loaded again at startup.
+ */
+@Component
+public class InterpretationCache {
+
+    /**
+     * Cache key: metric bands and condition bits plus the language tag and the model that wrote the text.
+     */
+    public record Key(int ndviBand, int temperatureBand, int precipitationBand, int eviBand, int ndwiBand,
+                      int soilMoistureBand, int evapotranspirationBand, int cloudCoverBand, int conditions,
+                      String locale, String model) {
+    }
+
+    // Persisted form, least recently used first
+    private record Stored(Key key, String interpretation) {
+    }
+
+    // Files written with fewer key fields are ignored rather than loaded with missing bands as 0
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .enable(DeserializationFeature.FAIL_ON_MISSING_CREATOR_PROPERTIES);
+
+    private final int maxEntries;
+    private final Path file;
+
+    private final LinkedHashMap<Key, String> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public InterpretationCache(
+            @Value("${gemini.interpretation-cache.max-entries:5000}") int maxEntries,
+            @Value("${gemini.interpretation-cache.file:}") String file) {
+        this.maxEntries = maxEntries;
+        this.file = file.isBlank() ? null : Path.of(file);
+        load();
+    }
+
+    /**
+     * Builds the cache key for a request answered by the given model.
+     */
+    public Key keyFor(InterpretationRequest request, String model) {
+        InterpretationRequest.Metrics metrics = request.metrics();
+        return new Key(MockInterpretationTemplate.ndviBand(metrics.ndvi()),
+                MockInterpretationTemplate.temperatureBand(metrics.temperature()),
+                MockInterpretationTemplate.precipitationBand(metrics.precipitation()),
+                band(metrics.evi(), 0.0, 0.2, 0.4, 0.6),
+                band(metrics.ndwi(), -0.3, 0.0, 0.3),
+                band(metrics.soilMoisture(), 20, 40, 60),
+                band(metrics.evapotranspiration(), 2, 4, 6),
+                band(metrics.cloudCover(), 10, 30, 60),
+                MockInterpretationTemplate.conditions(metrics.ndvi(), metrics.temperature(), metrics.precipitation()),
+                request.locale().toLanguageTag(),
+                model);
+    }
+
+    /**
+     * Index of the first threshold above the value (thresholds ascending), -1 when not measured.
+     */
+    static int band(double value, double... thresholds) {
+        if (Double.isNaN(value)) {
+            return -1;
+        }
+        int band = 0;
+        while (band < thresholds.length && value >= thresholds[band]) {
+            band++;
+        }
+        return band;
+    }
+
+    /**
+     * Returns the cached interpretation, or null if missing.
+     */
+    public String get(Key key) {
+        synchronized (entries) {
+            String interpretation = entries.get(key);
+            if (interpretation == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return interpretation;
+        }
+    }
+
+    public void put(Key key, String interpretation) {
+        if (interpretation == null || maxEntries <= 0) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, interpretation);
+            evictIfNeeded();
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<Key, String>> it = entries.entrySet().iterator();
+        while (it.hasNext() && entries.size() > maxEntries) {
+            it.next();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void load() {
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        try {
+            List<Stored> stored = MAPPER.readValue(file.toFile(), new TypeReference<List<Stored>>() {
+            });
+            synchronized (entries) {
+                for (Stored entry : stored) {
+                    entries.put(entry.key(), entry.interpretation());
+                }
+                evictIfNeeded();
+            }
+            System.out.println("Loaded " + stored.size() + " cached interpretations from " + file);
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable interpretation cache " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the entries to the configured file (no-op without one).
+     */
+    @PreDestroy
+    public void save() {
+        if (file == null) {
+            return;
+        }
+        List<Stored> stored = new ArrayList<>();
+        synchronized (entries) {
+            entries.forEach((key, interpretation) -> stored.add(new Stored(key, interpretation)));
+        }
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "interpretations-", ".tmp");
+            try {
+                MAPPER.writeValue(temp.toFile(), stored);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving interpretation cache " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns hit/miss/eviction counters and current size.
+     */
+    public Map<String, Object> getStats() {
+        long h = hits.get();
+        long m = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("size", entries.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("persistent", file != null);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRate", h + m == 0 ? 0.0 : (double) h / (h + m));
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+}
@@ -0,0 +1,279 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Locale;
+
+/**
+ * Mock crop health interpretation, compiled once: the text of every NDVI, temperature and
+ * precipitation band is split around its single value slot, and the recommendations plus closing
+ * advice are prebuilt for each combination of the four conditions that select them.
+ * Rendering appends eight prebuilt sections and three numbers into a per-thread buffer, so the
+ * only allocation is the returned string. Numbers are formatted like {@code %.3f}/{@code %.1f}
+ * (half-up) with a decimal point.
+ */
+public final class MockInterpretationTemplate {
+
+    private static final String HEADER =
+            "📊 EVALUARE GENERALĂ A STĂRII CULTURILOR:\n\n" +
+            "INDICI DE VEGETAȚIE - Analiză NDVI și EVI:\n";
+
+    // Per band: text before and after the value
+    private static final String[][] NDVI_SECTIONS = {
+            {"Vegetația prezintă valori extrem de scăzute (NDVI: ",
+                    "), indicând fie un sol complet gol, fie vegetație foarte degradată. " +
+                    "Această situație necesită intervenție urgentă și investigare imediată a cauzelor. " +
+                    "Este posibil să fie vorba despre compactarea excesivă a solului, lipsă de nutrienți, sau probleme de drenaj. " +
+                    "Recomandăm un test de sol complet pentru a identifica problemele specifice.\n\n"},
+            {"NDVI-ul indică (",
+                    ") semne clare de stres vegetal sever. " +
+                    "Vegetația prezintă semne de degradare sau poate fi în faza incipientă de dezvoltare. " +
+                    "Este esențial să se identifice rapid cauzele: poate fi lipsă de apă, deficiențe nutriționale, sau boli. " +
+                    "Monitorizarea zilnică este recomandată până la îmbunătățirea situației.\n\n"},
+            {"Valorile NDVI (",
+                    ") indică o vegetație în dezvoltare moderată. " +
+                    "Cultura este prezentă, dar există potențial semnificativ de îmbunătățire. " +
+                    "Această fază necesită atenție sporită la nutriție și condiții de mediu pentru a optimiza creșterea. " +
+                    "Fertilizarea corectă și irigația controlată pot îmbunătăți semnificativ indicatorii în următoarele 2-3 săptămâni.\n\n"},
+            {"NDVI excelent (",
+                    ") - cultura prezintă o vegetație sănătoasă și viguroasă. " +
+                    "Cultura se dezvoltă bine și se află într-o fază optimă de creștere. " +
+                    "Condițiile actuale sunt favorabile, dar continuarea monitorizării și menținerea acestor condiții sunt esențiale. " +
+                    "Aplicarea unui program de fertilizare echilibrat și irigație optimă va menține acest nivel de sănătate.\n\n"},
+            {"NDVI exceptional (",
+                    ") - cultura prezintă o creștere foarte viguroasă și vegetație excelentă. " +
+                    "Aceasta indică condiții optime și potențial maxim de producție. " +
+                    "Este important să menții aceste condiții prin monitorizare constantă și acțiuni preventive. " +
+                    "Poți considera îmbunătățiri suplimentare doar pentru optimizare maximă, dar situația actuală este deja excelentă.\n\n"}
+    };
+
+    private static final String TEMPERATURE_HEADER = "🌡️ ANALIZA TEMPERATURII SOLULUI (LST):\n";
+
+    private static final String[][] TEMPERATURE_SECTIONS = {
+            {"Temperatura solului de ",
+                    "°C este foarte scăzută și prezintă risc semnificativ pentru culturi sensibile. " +
+                    "Aceste condiții pot cauza înghețarea rădăcinilor și oprirea dezvoltării. " +
+                    "Recomandări urgente: aplicarea acoperirilor de protecție termică, foliere, sau utilizarea mulching-ului pentru izolare. " +
+                    "Monitorizați intensiv culturile sensibile și pregătiți măsuri de protecție pentru perioadele de îngheț.\n\n"},
+            {"Temperatura solului de ",
+                    "°C este sub nivelul optim pentru majoritatea culturilor de câmp. " +
+                    "Dezvoltarea va fi mai lentă, iar rădăcinile vor absorbi nutrienții mai puțin eficient. " +
+                    "Este important să ajustați programele de fertilizare și irigație în conformitate cu aceste condiții. " +
+                    "Monitorizați dezvoltarea culturilor și anticipați întârzierile posibile în ciclul de creștere.\n\n"},
+            {"Temperatura solului de ",
+                    "°C se încadrează în intervalul optim pentru dezvoltarea culturilor. " +
+                    "Aceste condiții favorizează activitatea rădăcinilor, absorbția nutrienților și creșterea vegetală. " +
+                    "Cultura ar trebui să se dezvolte normal, iar procesele fiziologice sunt active. " +
+                    "Mențineți aceste condiții prin gestionarea corectă a irigației și nutriției.\n\n"},
+            {"Temperatura solului de ",
+                    "°C este ridicată, aproape de limita superioară de confort pentru multe culturi. " +
+                    "La aceste temperaturi, culturile pot prezenta semne de stres termic: închiderea stomatelor, scăderea fotosintezei. " +
+                    "Recomandări: intensificarea irigației pentru răcire, utilizarea acoperirilor de umbrire, și monitorizarea zilnică a stării culturilor. " +
+                    "Culturile pot necesita protecție suplimentară în perioadele de vârf termic.\n\n"},
+            {"Temperatura solului de ",
+                    "°C este extrem de ridicată și poate provoca daune severe culturilor. " +
+                    "La aceste niveluri, riscul de stres termic sever este foarte mare, iar productivitatea poate scădea dramatic. " +
+                    "Măsuri urgente necesare: irigație frecventă pentru răcire, acoperiri de protecție, și posibil întreruperea temporară a anumitor operațiuni agricole. " +
+                    "Consultarea unui agronom pentru strategii specifice de protecție este recomandată.\n\n"}
+    };
+
+    private static final String PRECIPITATION_HEADER = "💧 ANALIZA APEI ȘI UMIDITĂȚII:\n";
+
+    private static final String[][] PRECIPITATION_SECTIONS = {
+            {"Precipitațiile estimate de ",
+                    "mm sunt clar insuficiente pentru nevoile culturilor. " +
+                    "Aceste condiții conduc inevitabil la stres hidric, cu impact negativ asupra dezvoltării și productivității. " +
+                    "Irigația suplimentară este esențială și trebuie implementată urgent. " +
+                    "Planificați un program de irigație regulat, monitorizați umiditatea solului zilnic, și ajustați dozele în funcție de evapotranspirație. " +
+                    "În perioade de secetă severă, este crucial să menții umiditatea solului la niveluri optime pentru a preveni pierderi de producție.\n\n"},
+            {"Precipitațiile de ",
+                    "mm sunt sub optimul necesar pentru cultura actuală. " +
+                    "Monitorizarea atentă a umidității solului este necesară pentru a anticipa nevoile de irigație. " +
+                    "Este recomandat să pregătiți un plan de irigație de rezervă și să monitorizați indicatorii de stres hidric. " +
+                    "Ajustarea programului de irigație în funcție de condițiile meteorologice și nevoile culturii este esențială.\n\n"},
+            {"Precipitațiile de ",
+                    "mm sunt în intervalul normal și oferă condiții bune pentru culturi. " +
+                    "Balanța apei pare echilibrată, ceea ce este favorabil pentru dezvoltarea sănătoasă a culturilor. " +
+                    "Continuați monitorizarea regulată și ajustați irigația doar când este necesar. " +
+                    "Menținerea acestui nivel optim de umiditate va susține o creștere constantă și productivitate ridicată.\n\n"},
+            {"Precipitațiile de ",
+                    "mm sunt ridicate și necesită atenție la drenaj. " +
+                    "Excesul de apă poate duce la saturarea solului, limitarea oxigenării rădăcinilor și apariția problemelor de pudră. " +
+                    "Verificați sistemul de drenaj, monitorizați nivelul apei în sol, și luați măsuri pentru prevenirea compactării. " +
+                    "În cazuri extreme, poate fi necesară îmbunătățirea drenajului sau chiar evacuarea apei excesive.\n\n"},
+            {"Precipitațiile de ",
+                    "mm sunt foarte ridicate și pot cauza probleme serioase. " +
+                    "Risc de inundații locale, saturare completă a solului și posibile pierderi de producție. " +
+                    "Măsuri urgente: verificare imediată a drenajului, evaluarea stării culturilor, și protecție împotriva compactării solului. " +
+                    "Este posibil să fie necesară intervenție urgentă pentru salvarea culturilor.\n\n"}
+    };
+
+    private static final String PLAN_HEADER = "✅ PLAN DE ACȚIUNE - RECOMANDĂRI PRIORITIZATE:\n\n";
+
+    private static final String LOW_NDVI =
+            "PRIORITATE RIDICATĂ:\n" +
+            "1. Aplicarea urgentă de fertilizanți echilibrați (NPK) pentru îmbunătățirea NDVI\n" +
+            "2. Verificarea completă a sănătății rădăcinilor și a structurii solului\n" +
+            "3. Testare sol pentru identificarea deficiențelor nutriționale specifice\n" +
+            "4. Implementarea unui program de irigație optim pentru susținerea creșterii\n\n";
+
+    private static final String WATER =
+            "GESTIUNEA APEI:\n" +
+            "1. Programare imediată a irigației suplimentare pentru a compensa lipsa precipitațiilor\n" +
+            "2. Instalarea de senzori de umiditate pentru monitorizare precisă\n" +
+            "3. Optimizarea programului de irigație pe baza evapotranspirației reale\n" +
+            "4. Considerarea tehnologiilor de conservare a apei (mulching, irigație cu picuri)\n\n";
+
+    private static final String HEAT =
+            "PROTECȚIA TERMICĂ:\n" +
+            "1. Monitorizare intensă zilnică pentru identificarea rapidă a stresului termic\n" +
+            "2. Considerarea acoperirilor de umbrire sau foliilor de protecție\n" +
+            "3. Ajustarea programului de irigație pentru răcire (irigație dimineața devreme)\n" +
+            "4. Evaluarea necesității de întrerupere temporară a anumitor operațiuni în vârfurile termice\n\n";
+
+    private static final String OPTIMAL =
+            "MENȚINEREA CONDIȚIILOR OPTIME:\n" +
+            "1. Continuarea programului de monitorizare regulată a culturilor\n" +
+            "2. Aplicarea programului standard de fertilizare și tratamente preventive\n" +
+            "3. Optimizarea continuă a programului de irigație pe baza nevoilor reale\n" +
+            "4. Pregătirea strategiilor de răspuns pentru eventuale schimbări de condiții\n\n";
+
+    // When none of the conditions above holds
+    private static final String DEFAULT_ACTIONS =
+            "ACȚIUNI RECOMANDATE:\n" +
+            "1. Continuarea monitorizării regulate pentru detectarea timpurie a problemelor\n" +
+            "2. Pregătirea unui plan de acțiune pentru eventuale schimbări de condiții meteorologice\n" +
+            "3. Menținerea unui program optim de irigație și fertilizare\n" +
+            "4. Documentarea continuă a observațiilor pentru analiză comparativă\n\n";
+
+    private static final String CLOSING =
+            "💡 SFATURI PRACTICE PENTRU ÎMBUNĂTĂȚIRE:\n" +
+            "• Monitorizați zilnic indicatorii și ajustați strategiile în funcție de tendințe\n" +
+            "• Mențineți un jurnal detaliat cu observații și acțiuni întreprinse\n" +
+            "• Consultați periodic un agronom pentru validarea deciziilor bazate pe date satelitare\n" +
+            "• Implementați practici de agricultură de precizie pentru optimizare continuă\n" +
+            "• Anticipați nevoile culturilor pe baza tendințelor identificate în date\n\n" +
+            "📋 CONCLUZIE: Aceste recomandări sunt bazate pe analiza comprehensivă a tuturor metricilor satelitare disponibile. " +
+            "Pentru implementare optimă, consultați un agronom local care poate adapta aceste recomandări la condițiile specifice ale locației dvs. " +
+            "Monitorizarea continuă și ajustarea strategiilor sunt esențiale pentru succesul pe termen lung.";
+
+    private static final int LOW_NDVI_BIT = 1, WATER_BIT = 2, HEAT_BIT = 4, OPTIMAL_BIT = 8;
+
+    // Plan header, recommendations and closing advice per combination of condition bits
+    private static final String[] TAILS = new String[16];
+
+    static {
+        for (int bits = 0; bits < TAILS.length; bits++) {
+            StringBuilder tail = new StringBuilder(PLAN_HEADER);
+            if ((bits & LOW_NDVI_BIT) != 0) {
+                tail.append(LOW_NDVI);
+            }
+            if ((bits & WATER_BIT) != 0) {
+                tail.append(WATER);
+            }
+            if ((bits & HEAT_BIT) != 0) {
+                tail.append(HEAT);
+            }
+            if ((bits & OPTIMAL_BIT) != 0) {
+                tail.append(OPTIMAL);
+            }
+            if (bits == 0) {
+                tail.append(DEFAULT_ACTIONS);
+            }
+            TAILS[bits] = tail.append(CLOSING).toString();
+        }
+    }
+
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1000};
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(8192));
+
+    private MockInterpretationTemplate() {
+    }
+
+    public static String render(double ndvi, double temperature, double precipitation) {
+        String[] ndviSection = NDVI_SECTIONS[ndviBand(ndvi)];
+        String[] temperatureSection = TEMPERATURE_SECTIONS[temperatureBand(temperature)];
+        String[] precipitationSection = PRECIPITATION_SECTIONS[precipitationBand(precipitation)];
+
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        sb.append(HEADER).append(ndviSection[0]);
+        appendFixed(sb, ndvi, 3);
+        sb.append(ndviSection[1]).append(TEMPERATURE_HEADER).append(temperatureSection[0]);
+        appendFixed(sb, temperature, 1);
+        sb.append(temperatureSection[1]).append(PRECIPITATION_HEADER).append(precipitationSection[0]);
+        appendFixed(sb, precipitation, 1);
+        sb.append(precipitationSection[1]).append(TAILS[conditions(ndvi, temperature, precipitation)]);
+        return sb.toString();
+    }
+
+    // Comparisons are written like the band thresholds of the text, so NaN falls into the last band.
+    // Also the AI interpretation cache key: requests in the same bands and conditions get the same advice.
+    static int ndviBand(double ndvi) {
+        return ndvi < -0.3 ? 0 : ndvi < 0.0 ? 1 : ndvi < 0.3 ? 2 : ndvi < 0.6 ? 3 : 4;
+    }
+
+    static int temperatureBand(double temp) {
+        return temp < 5 ? 0 : temp < 10 ? 1 : temp <= 30 ? 2 : temp <= 35 ? 3 : 4;
+    }
+
+    static int precipitationBand(double precip) {
+        return precip < 10 ? 0 : precip < 30 ? 1 : precip <= 80 ? 2 : precip <= 100 ? 3 : 4;
+    }
+
+    static int conditions(double ndvi, double temp, double precip) {
+        int bits = 0;
+        if (ndvi < 0.3) {
+            bits |= LOW_NDVI_BIT;
+        }
+        if (precip < 30 && temp > 15) {
+            bits |= WATER_BIT;
+        }
+        if (temp > 30) {
+            bits |= HEAT_BIT;
+        }
+        if (ndvi >= 0.3 && temp >= 10 && temp <= 30 && precip >= 30) {
+            bits |= OPTIMAL_BIT;
+        }
+        return bits;
+    }
+
+    /**
+     * Appends the value with the given number of decimals (at most 3), rounded half-up on its
+     * shortest decimal representation like {@link java.util.Formatter}.
+     */
+    static void appendFixed(StringBuilder sb, double value, int decimals) {
+        if (!Double.isFinite(value)) {
+            sb.append(value); // NaN, Infinity, -Infinity
+            return;
+        }
+        long scale = POWERS_OF_TEN[decimals];
+        double scaled = Math.abs(value) * scale;
+        if (scaled >= 1e15) {
+            sb.append(String.format(Locale.ROOT, "%." + decimals + "f", value));
+            return;
+        }
+        long units;
+        double fraction = scaled - Math.floor(scaled);
+        if (Math.abs(fraction - 0.5) < 1e-6) {
+            // Close to a tie: decide on the decimal digits, as the multiplication may have rounded
+            units = new BigDecimal(Double.toString(Math.abs(value)))
+                    .setScale(decimals, RoundingMode.HALF_UP).unscaledValue().longValue();
+        } else {
+            units = (long) Math.floor(scaled + 0.5);
+        }
+        if (Double.doubleToRawLongBits(value) < 0) {
+            sb.append('-'); // Negative values rounding to zero keep their sign, like %f
+        }
+        sb.append(units / scale);
+        if (decimals > 0) {
+            sb.append('.');
+            long fractionDigits = units % scale;
+            for (long pad = scale / 10; pad > 1 && fractionDigits < pad; pad /= 10) {
+                sb.append('0');
+            }
+            sb.append(fractionDigits);
+        }
+    }
+}
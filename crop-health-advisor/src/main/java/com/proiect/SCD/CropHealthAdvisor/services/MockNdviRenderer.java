@@ -0,0 +1,115 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Demo NDVI image used when Sentinel Hub is unavailable: a radial gradient, greener in the
+ * center, in the four classes of the real NDVI evalscript.
+ * Pixels are written straight into the raster's {@code int[]}; classes are picked by comparing
+ * squared distances with precomputed thresholds (no sqrt, no per-pixel objects), and large
+ * images are rendered row-parallel. The image depends only on its size, so encoded PNGs are cached.
+ */
+public final class MockNdviRenderer {
+
+    // Red (water/bare soil), orange (weak), yellow (moderate), green (healthy vegetation)
+    static final int[] PALETTE = {0xFF0000, 0xFFA500, 0xFFFF00, 0x00FF00};
+
+    // Simulated NDVI = 0.8 - 1.3 * distance / maxDistance crosses 0.5, 0.2 and 0 at these fractions
+    private static final double GREEN_LIMIT = 0.3 / 1.3;
+    private static final double YELLOW_LIMIT = 0.6 / 1.3;
+    private static final double ORANGE_LIMIT = 0.8 / 1.3;
+
+    private static final int PARALLEL_MIN_PIXELS = 256 * 256;
+    private static final int MAX_CACHED_SIZES = 16;
+
+    private static final Map<Long, byte[]> PNG_CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+            return size() > MAX_CACHED_SIZES;
+        }
+    };
+
+    private MockNdviRenderer() {
+    }
+
+    /**
+     * Encoded PNG for the size; the returned array is shared and must not be modified.
+     */
+    public static byte[] png(int width, int height) {
+        Long key = ((long) width << 32) | (height & 0xFFFFFFFFL);
+        synchronized (PNG_CACHE) {
+            byte[] cached = PNG_CACHE.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        byte[] png = encode(render(width, height));
+        synchronized (PNG_CACHE) {
+            PNG_CACHE.put(key, png);
+        }
+        return png;
+    }
+
+    public static BufferedImage render(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        double centerX = width / 2.0;
+        double centerY = height / 2.0;
+        double maxDistanceSq = centerX * centerX + centerY * centerY;
+        double greenSq = square(GREEN_LIMIT) * maxDistanceSq;
+        double yellowSq = square(YELLOW_LIMIT) * maxDistanceSq;
+        double orangeSq = square(ORANGE_LIMIT) * maxDistanceSq;
+
+        double[] dxSq = new double[width];
+        for (int x = 0; x < width; x++) {
+            dxSq[x] = square(x - centerX);
+        }
+
+        IntStream rows = IntStream.range(0, height);
+        if ((long) width * height >= PARALLEL_MIN_PIXELS) {
+            rows = rows.parallel();
+        }
+        rows.forEach(y -> {
+            double dySq = square(y - centerY);
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                double distanceSq = dxSq[x] + dySq;
+                int color;
+                if (distanceSq > orangeSq) {
+                    color = PALETTE[0];
+                } else if (distanceSq > yellowSq) {
+                    color = PALETTE[1];
+                } else if (distanceSq > greenSq) {
+                    color = PALETTE[2];
+                } else {
+                    color = PALETTE[3];
+                }
+                pixels[offset + x] = color;
+            }
+        });
+        return image;
+    }
+
+    static byte[] encode(BufferedImage image) {
+        try {
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", png);
+            return png.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+}
@@ -0,0 +1,301 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Disk-backed, content-addressed cache of NDVI PNGs.
+ * Images are stored once per content hash ({@code <sha256>.png}); the index maps each request
+ * (bbox, size, acquisition date) to a hash, which doubles as the HTTP ETag.
+ * Least recently used requests are evicted once the stored files exceed the byte budget.
+ * Images are streamed from the upstream buffers into the file (hashing on the way), so the
+ * heap used per image does not grow with its size.
+ * The index lives in memory, so files left by a previous run are removed at startup; only the
+ * cache's own files are touched, inside a subdirectory of the configured directory.
+ */
+@Component
+public class NdviImageCache {
+
+    /**
+     * Request key: bbox in micro-degrees, output size and the acquisition the image shows.
+     */
+    public record Key(long minLon, long minLat, long maxLon, long maxLat, int width, int height,
+                      LocalDate acquisitionDate) {
+
+        public static Key of(double minLon, double minLat, double maxLon, double maxLat, int width, int height,
+                             LocalDate acquisitionDate) {
+            return new Key(Math.round(minLon * 1e6), Math.round(minLat * 1e6),
+                    Math.round(maxLon * 1e6), Math.round(maxLat * 1e6), width, height, acquisitionDate);
+        }
+    }
+
+    /**
+     * A cached image: content hash and file size.
+     */
+    public record Entry(String hash, long size) {
+
+        public String etag() {
+            return "\"" + hash + "\"";
+        }
+    }
+
+    // Subdirectory of the configured directory that holds the cache files
+    static final String FILES_SUBDIRECTORY = "ndvi-image-cache";
+
+    // <sha256>.png images and the temporary files created by put and writeTemporary
+    private static final Pattern OWN_FILE = Pattern.compile("[0-9a-f]{64}\\.png|(image|uncached)-[0-9]+\\.tmp");
+
+    // Far longer than writing any response
+    static final long TEMPORARY_MAX_AGE_MILLIS = 10 * 60_000L;
+
+    private final Path directory;
+    private final long maxBytes;
+
+    // Uncached images handed out by writeTemporary, with their creation time
+    private final Map<Path, Long> temporaries = new ConcurrentHashMap<>();
+
+    // Access-ordered: the first entry is the least recently used request
+    private final LinkedHashMap<Key, Entry> index = new LinkedHashMap<>(16, 0.75f, true);
+    // Requests sharing a file; the file is deleted with its last request
+    private final Map<String, Integer> fileRefs = new HashMap<>();
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public NdviImageCache(
+            @Value("${satellite.image-cache.dir:${java.io.tmpdir}/crop-health-advisor/ndvi-images}") String directory,
+            @Value("${satellite.image-cache.max-bytes:268435456}") long maxBytes) {
+        this.directory = Path.of(directory).resolve(FILES_SUBDIRECTORY);
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(this.directory);
+            try (DirectoryStream<Path> stale = Files.newDirectoryStream(this.directory,
+                    file -> Files.isRegularFile(file) && OWN_FILE.matcher(file.getFileName().toString()).matches())) {
+                for (Path file : stale) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot prepare NDVI image cache directory " + directory, e);
+        }
+    }
+
+    /**
+     * Cached entry for the request, or null.
+     */
+    public Entry get(Key key) {
+        synchronized (index) {
+            Entry entry = index.get(key);
+            if (entry == null) {
+                misses.incrementAndGet();
+            } else {
+                hits.incrementAndGet();
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * Stored image file of an entry.
+     */
+    public Path path(Entry entry) {
+        return directory.resolve(entry.hash() + ".png");
+    }
+
+    /**
+     * Streams an image into the cache for the request; the buffers are released.
+     * Old requests are evicted if the cache goes over budget.
+     */
+    public Mono<Entry> put(Key key, Flux<DataBuffer> png) {
+        return Mono.using(
+                () -> new HashingWrite(Files.createTempFile(directory, "image-", ".tmp")),
+                write -> write.to(png).then(Mono.fromCallable(() -> commit(key, write))),
+                write -> deleteQuietly(write.temp))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Streams an image that cannot be cached into a temporary file of the cache directory.
+     * The caller releases it once served ({@link #releaseTemporary(Path)}); it is deleted right away if the write fails or is cancelled, and by {@link #purgeTemporaries()}
+     * if the response is never written.
+     */
+    public Mono<Path> writeTemporary(Flux<DataBuffer> png) {
+        return Mono.fromCallable(() -> {
+                    Path temp = Files.createTempFile(directory, "uncached-", ".tmp");
+                    temporaries.put(temp, System.currentTimeMillis());
+                    return temp;
+                })
+                .flatMap(temp -> DataBufferUtils.write(png, temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
+                        .doOnError(error -> releaseTemporary(temp))
+                        .doOnCancel(() -> releaseTemporary(temp))
+                        .thenReturn(temp))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Deletes temporary images older than {@link #TEMPORARY_MAX_AGE_MILLIS}: responses that were
+     * discarded (e.g. client gone) before their body was read. Already deleted files are just forgotten.
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void purgeTemporaries() {
+        long cutoff = System.currentTimeMillis() - TEMPORARY_MAX_AGE_MILLIS;
+        temporaries.forEach((temp, createdAt) -> {
+            if (createdAt < cutoff) {
+                releaseTemporary(temp);
+            }
+        });
+    }
+
+    /**
+     * Deletes a temporary image of {@link #writeTemporary(Flux)}.
+     */
+    public void releaseTemporary(Path temp) {
+        temporaries.remove(temp);
+        deleteQuietly(temp);
+    }
+
+    private Entry commit(Key key, HashingWrite write) throws IOException {
+        Entry entry = new Entry(HexFormat.of().formatHex(write.digest.digest()), write.size);
+        synchronized (index) {
+            if (fileRefs.containsKey(entry.hash())) {
+                link(key, entry);
+                return entry;
+            }
+        }
+        // The rename makes the file visible only once complete
+        Files.move(write.temp, path(entry), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        stores.incrementAndGet();
+        synchronized (index) {
+            if (!fileRefs.containsKey(entry.hash())) {
+                totalBytes += entry.size();
+            }
+            link(key, entry);
+            evictOverBudget(key);
+        }
+        return entry;
+    }
+
+    /**
+     * Upstream buffers written to a temporary file while their SHA-256 and size are computed.
+     */
+    private static final class HashingWrite {
+        private final Path temp;
+        private final MessageDigest digest;
+        private long size;
+
+        HashingWrite(Path temp) {
+            this.temp = temp;
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        Mono<Void> to(Flux<DataBuffer> png) {
+            return DataBufferUtils.write(png.doOnNext(buffer -> {
+                // Views over the readable bytes; the buffer's own read position is untouched
+                try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+                    while (iterator.hasNext()) {
+                        ByteBuffer bytes = iterator.next();
+                        size += bytes.remaining();
+                        digest.update(bytes);
+                    }
+                }
+            }), temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Error deleting " + file + ": " + e.getMessage());
+        }
+    }
+
+    // Callers hold the index lock
+    private void link(Key key, Entry entry) {
+        fileRefs.merge(entry.hash(), 1, Integer::sum);
+        Entry previous = index.put(key, entry);
+        if (previous != null) {
+            unlink(previous);
+        }
+    }
+
+    private void unlink(Entry entry) {
+        Integer refs = fileRefs.get(entry.hash());
+        if (refs == null) {
+            return;
+        }
+        if (refs > 1) {
+            fileRefs.put(entry.hash(), refs - 1);
+            return;
+        }
+        fileRefs.remove(entry.hash());
+        totalBytes -= entry.size();
+        try {
+            Files.deleteIfExists(path(entry));
+        } catch (IOException e) {
+            System.err.println("Error deleting cached NDVI image " + entry.hash() + ": " + e.getMessage());
+        }
+    }
+
+    private void evictOverBudget(Key keep) {
+        Iterator<Map.Entry<Key, Entry>> iterator = index.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<Key, Entry> eldest = iterator.next();
+            if (eldest.getKey().equals(keep)) {
+                continue; // Never evict the image just stored
+            }
+            iterator.remove();
+            unlink(eldest.getValue());
+            evictions.incrementAndGet();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (index) {
+            stats.put("entries", index.size());
+            stats.put("files", fileRefs.size());
+            stats.put("bytes", totalBytes);
+        }
+        stats.put("temporaryFiles", temporaries.size());
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("stores", stores.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+}
@@ -0,0 +1,204 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.FilterInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * NDVI images served through the {@link NdviImageCache}.
+ * An image is identified by its bbox, size and the latest Sentinel-2 acquisition over the bbox;
+ * the acquisition date is looked up once (Catalog API) and remembered, so repeated requests and
+ * conditional requests ({@code If-None-Match}) are answered without calling Sentinel Hub.
+ * Mock images (upstream failure) and images of an unknown acquisition are never cached.
+ * Upstream PNGs are piped buffer by buffer into files, never materialized as arrays.
+ */
+@Service
+public class NdviImageService {
+
+    /**
+     * PNG body (null when not modified), its ETag (null if not cacheable) and whether it is a mock.
+     * Real images are files, so they are streamed to the client instead of held in memory.
+     */
+    public record NdviImage(Resource body, String etag, boolean mock) {
+
+        public boolean notModified() {
+            return body == null;
+        }
+    }
+
+    private record Bbox(long minLon, long minLat, long maxLon, long maxLat) {
+    }
+
+    private record AcquisitionLookup(LocalDate date, long expiresAt) {
+    }
+
+    private static final int MAX_ACQUISITION_LOOKUPS = 10_000;
+
+    @Autowired
+    private SatelliteDataService satelliteDataService;
+
+    @Autowired
+    private NdviImageCache imageCache;
+
+    @Value("${satellite.image-cache.lookback-days:30}")
+    private int lookbackDays = 30;
+
+    @Value("${satellite.image-cache.acquisition-ttl-minutes:360}")
+    private long acquisitionTtlMinutes = 360;
+
+    // Latest acquisition per bbox, bounded LRU
+    private final LinkedHashMap<Bbox, AcquisitionLookup> acquisitions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Bbox, AcquisitionLookup> eldest) {
+            return size() > MAX_ACQUISITION_LOOKUPS;
+        }
+    };
+
+    private final InFlightRequests<NdviImageCache.Key, NdviImage> imageRequests = new InFlightRequests<>();
+
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong acquisitionLookups = new AtomicLong();
+    private final AtomicLong uncacheable = new AtomicLong();
+
+    /**
+     * NDVI image around a point; completes with a not-modified image when {@code ifNoneMatch}
+     * matches the cached one.
+     */
+    public Mono<NdviImage> getImage(double lat, double lon, int width, int height, String ifNoneMatch) {
+        double buffer = SatelliteDataService.NDVI_IMAGE_BUFFER;
+        return getImage(lon - buffer, lat - buffer, lon + buffer, lat + buffer, width, height, ifNoneMatch);
+    }
+
+    public Mono<NdviImage> getImage(double minLon, double minLat, double maxLon, double maxLat,
+                                    int width, int height, String ifNoneMatch) {
+        double lat = (minLat + maxLat) / 2;
+        double lon = (minLon + maxLon) / 2;
+        return latestAcquisition(minLon, minLat, maxLon, maxLat, lat, lon)
+                .map(date -> NdviImageCache.Key.of(minLon, minLat, maxLon, maxLat, width, height, date))
+                .flatMap(key -> {
+                    NdviImageCache.Entry cached = imageCache.get(key);
+                    if (cached != null && matches(ifNoneMatch, cached.etag())) {
+                        notModified.incrementAndGet();
+                        return Mono.just(new NdviImage(null, cached.etag(), false));
+                    }
+                    // The file may have been evicted since the index lookup
+                    Mono<NdviImage> load = cached != null && Files.isReadable(imageCache.path(cached))
+                            ? Mono.just(new NdviImage(new FileSystemResource(imageCache.path(cached)), cached.etag(), false))
+                            : fetchAndStore(key);
+                    return load.map(image -> image.etag() != null && matches(ifNoneMatch, image.etag())
+                            ? new NdviImage(null, image.etag(), false)
+                            : image);
+                })
+                // Unknown acquisition: plain upstream request, not cached
+                .switchIfEmpty(Mono.defer(() -> {
+                    uncacheable.incrementAndGet();
+                    return imageCache.writeTemporary(
+                                    satelliteDataService.fetchNdviImage(minLon, minLat, maxLon, maxLat, width, height, null, 0))
+                            .map(file -> new NdviImage(new TemporaryFileResource(file, imageCache), null, false))
+                            .onErrorResume(error -> mockImage(error, width, height));
+                }));
+    }
+
+    private Mono<LocalDate> latestAcquisition(double minLon, double minLat, double maxLon, double maxLat,
+                                              double lat, double lon) {
+        Bbox bbox = new Bbox(Math.round(minLon * 1e6), Math.round(minLat * 1e6),
+                Math.round(maxLon * 1e6), Math.round(maxLat * 1e6));
+        synchronized (acquisitions) {
+            AcquisitionLookup lookup = acquisitions.get(bbox);
+            if (lookup != null && lookup.expiresAt() > System.currentTimeMillis()) {
+                return Mono.just(lookup.date());
+            }
+        }
+        acquisitionLookups.incrementAndGet();
+        return satelliteDataService.getLatestAcquisitionDate(lat, lon, lookbackDays)
+                .doOnNext(date -> {
+                    synchronized (acquisitions) {
+                        acquisitions.put(bbox, new AcquisitionLookup(date,
+                                System.currentTimeMillis() + acquisitionTtlMinutes * 60_000L));
+                    }
+                });
+    }
+
+    private Mono<NdviImage> fetchAndStore(NdviImageCache.Key key) {
+        return imageRequests.execute(key, () -> imageCache.put(key, satelliteDataService.fetchNdviImage(
+                                key.minLon() / 1e6, key.minLat() / 1e6, key.maxLon() / 1e6, key.maxLat() / 1e6,
+                                key.width(), key.height(), key.acquisitionDate(), lookbackDays))
+                        .map(entry -> new NdviImage(new FileSystemResource(imageCache.path(entry)), entry.etag(), false))
+                        .onErrorResume(error -> mockImage(error, key.width(), key.height())));
+    }
+
+    /**
+     * A file served once and deleted when the response has been written
+     * (the cache purges it if the response is discarded before that).
+     */
+    private static final class TemporaryFileResource extends FileSystemResource {
+
+        private final NdviImageCache cache;
+
+        TemporaryFileResource(Path file, NdviImageCache cache) {
+            super(file);
+            this.cache = cache;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            Path file = getFile().toPath();
+            return new FilterInputStream(Files.newInputStream(file)) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        cache.releaseTemporary(file);
+                    }
+                }
+            };
+        }
+    }
+
+    private Mono<NdviImage> mockImage(Throwable error, int width, int height) {
+        System.err.println("Error generating NDVI image: " + error.getMessage());
+        System.err.println("NOTE: Sentinel Hub API returned error. Generating mock NDVI image.");
+        return Mono.just(new NdviImage(
+                new ByteArrayResource(satelliteDataService.generateMockNDVIImage(width, height)), null, true));
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(imageCache.getStats());
+        stats.put("notModified", notModified.get());
+        stats.put("acquisitionLookups", acquisitionLookups.get());
+        stats.put("uncacheable", uncacheable.get());
+        stats.put("coalescing", imageRequests.getStats());
+        return stats;
+    }
+}
@@ -0,0 +1,111 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * NDVI map tiles in the XYZ scheme (Web Mercator, 256px), rendered by the Process API
+ * and kept in the {@link NdviTileStore} pyramid until they are older than the TTL.
+ * Concurrent requests for the same missing tile share one upstream call.
+ */
+@Service
+public class NdviTileService {
+
+    public static final int TILE_SIZE = 256;
+
+    // Half the Web Mercator world width in meters
+    private static final double ORIGIN_SHIFT = 20037508.342789244;
+
+    /**
+     * Tile coordinates.
+     */
+    public record TileId(int z, int x, int y) {
+    }
+
+    @Autowired
+    private SatelliteDataService satelliteDataService;
+
+    @Autowired
+    private NdviTileStore tileStore;
+
+    // Below ~zoom 8 a tile exceeds the Sentinel-2 resolution limit of the Process API
+    @Value("${satellite.tiles.min-zoom:8}")
+    private int minZoom = 8;
+
+    @Value("${satellite.tiles.max-zoom:18}")
+    private int maxZoom = 18;
+
+    @Value("${satellite.tiles.ttl-hours:24}")
+    private long ttlHours = 24;
+
+    @Value("${satellite.tiles.lookback-days:30}")
+    private int lookbackDays = 30;
+
+    private final InFlightRequests<TileId, byte[]> tileRequests = new InFlightRequests<>();
+
+    /**
+     * True if the tile exists in the XYZ scheme and its zoom is served.
+     */
+    public boolean isServed(int z, int x, int y) {
+        return z >= minZoom && z <= Math.min(maxZoom, NdviTileStore.MAX_ZOOM)
+                && x >= 0 && y >= 0 && x < (1 << z) && y < (1 << z);
+    }
+
+    public long getTtlSeconds() {
+        return ttlHours * 3600;
+    }
+
+    /**
+     * PNG of the tile, from the pyramid when fresh; errors when Sentinel Hub fails.
+     */
+    public Mono<byte[]> getTile(int z, int x, int y) {
+        if (!isServed(z, x, y)) {
+            return Mono.error(new IllegalArgumentException("Tile " + z + "/" + x + "/" + y + " is not served"));
+        }
+        NdviTileStore.Tile stored = tileStore.get(z, x, y);
+        if (stored != null && stored.fetchedAt() + ttlHours * 3_600_000L > System.currentTimeMillis()) {
+            return Mono.fromCallable(() -> tileStore.read(z, x, y))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .onErrorResume(IOException.class, error -> fetchAndStore(new TileId(z, x, y)));
+        }
+        return fetchAndStore(new TileId(z, x, y));
+    }
+
+    private Mono<byte[]> fetchAndStore(TileId tile) {
+        return tileRequests.execute(tile, () -> {
+            double[] bbox = bbox(tile.z(), tile.x(), tile.y());
+            return satelliteDataService.fetchNdviTile(bbox[0], bbox[1], bbox[2], bbox[3], TILE_SIZE, lookbackDays)
+                    .publishOn(Schedulers.boundedElastic())
+                    .doOnNext(png -> {
+                        try {
+                            tileStore.put(tile.z(), tile.x(), tile.y(), png);
+                        } catch (IOException e) {
+                            System.err.println("Error storing NDVI tile " + tile + ": " + e.getMessage());
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Tile bounds in EPSG:3857 meters: {minX, minY, maxX, maxY}; y grows southwards in XYZ.
+     */
+    static double[] bbox(int z, int x, int y) {
+        double size = 2 * ORIGIN_SHIFT / (1 << z);
+        double minX = -ORIGIN_SHIFT + x * size;
+        double maxY = ORIGIN_SHIFT - y * size;
+        return new double[]{minX, maxY - size, minX + size, maxY};
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(tileStore.getStats());
+        stats.put("coalescing", tileRequests.getStats());
+        return stats;
+    }
+}
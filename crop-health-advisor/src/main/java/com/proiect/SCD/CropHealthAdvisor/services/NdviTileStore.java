@@ -0,0 +1,217 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * On-disk pyramid of NDVI map tiles ({@code <dir>/<z>/<x>/<y>.png}).
+ * Which tiles exist, and when they were fetched, is kept in a fixed-size open-addressing
+ * hash table in a memory-mapped file ({@code tiles.idx}), so lookups never touch the
+ * filesystem and the pyramid survives restarts. When the probe window of a tile is full,
+ * the oldest tile in it is evicted along with its file.
+ */
+@Component
+public class NdviTileStore {
+
+    /**
+     * Index entry of a stored tile.
+     */
+    public record Tile(long fetchedAt, int length) {
+    }
+
+    private static final int MAGIC = 0x4E445654; // "NDVT"
+    private static final int HEADER_BYTES = 16;
+    // key (z/x/y + 1, 0 = empty), fetchedAt millis, PNG length, padding
+    private static final int SLOT_BYTES = 24;
+    private static final int PROBES = 16;
+    public static final int MAX_ZOOM = 22;
+
+    private final Path directory;
+    private final int slots;
+    private final FileChannel channel;
+    private final MappedByteBuffer index;
+    private int entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public NdviTileStore(
+            @Value("${satellite.tiles.dir:${java.io.tmpdir}/crop-health-advisor/ndvi-tiles}") String directory,
+            @Value("${satellite.tiles.index-slots:65536}") int indexSlots) {
+        this.directory = Path.of(directory);
+        this.slots = Integer.highestOneBit(Math.max(PROBES, indexSlots - 1)) << 1; // Power of two
+        try {
+            Files.createDirectories(this.directory);
+            this.channel = FileChannel.open(this.directory.resolve("tiles.idx"),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.index = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) slots * SLOT_BYTES);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open NDVI tile index in " + directory, e);
+        }
+        if (index.getInt(0) != MAGIC || index.getInt(4) != slots) {
+            // New file or different size: start with an empty index
+            for (int i = 0; i < HEADER_BYTES + slots * SLOT_BYTES; i += 8) {
+                index.putLong(i, 0L);
+            }
+            index.putInt(0, MAGIC);
+            index.putInt(4, slots);
+        }
+        for (int slot = 0; slot < slots; slot++) {
+            if (index.getLong(offset(slot)) != 0) {
+                entries++;
+            }
+        }
+    }
+
+    /**
+     * Index entry of the tile, or null if it is not stored.
+     */
+    public synchronized Tile get(int z, int x, int y) {
+        int slot = find(key(z, x, y));
+        if (slot < 0) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        int offset = offset(slot);
+        return new Tile(index.getLong(offset + 8), index.getInt(offset + 16));
+    }
+
+    public Path path(int z, int x, int y) {
+        return directory.resolve(Integer.toString(z)).resolve(Integer.toString(x)).resolve(y + ".png");
+    }
+
+    /**
+     * Tile bytes; throws if the tile was evicted in the meantime.
+     */
+    public byte[] read(int z, int x, int y) throws IOException {
+        return Files.readAllBytes(path(z, x, y));
+    }
+
+    /**
+     * Writes the tile file (blocking I/O) and records it in the index.
+     */
+    public void put(int z, int x, int y, byte[] png) throws IOException {
+        Path file = path(z, x, y);
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), y + "-", ".tmp");
+        try {
+            Files.write(temp, png);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        stores.incrementAndGet();
+        long key = key(z, x, y);
+        synchronized (this) {
+            int slot = find(key);
+            if (slot < 0) {
+                slot = freeOrOldestSlot(key);
+                long evicted = index.getLong(offset(slot));
+                if (evicted != 0) {
+                    deleteTile(evicted);
+                    evictions.incrementAndGet();
+                } else {
+                    entries++;
+                }
+            }
+            int offset = offset(slot);
+            index.putLong(offset, key);
+            index.putLong(offset + 8, System.currentTimeMillis());
+            index.putInt(offset + 16, png.length);
+        }
+    }
+
+    private int find(long key) {
+        int start = home(key);
+        for (int i = 0; i < PROBES; i++) {
+            int slot = (start + i) & (slots - 1);
+            long stored = index.getLong(offset(slot));
+            if (stored == key) {
+                return slot;
+            }
+            if (stored == 0) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private int freeOrOldestSlot(long key) {
+        int start = home(key);
+        int oldest = start;
+        long oldestFetchedAt = Long.MAX_VALUE;
+        for (int i = 0; i < PROBES; i++) {
+            int slot = (start + i) & (slots - 1);
+            int offset = offset(slot);
+            if (index.getLong(offset) == 0) {
+                return slot;
+            }
+            long fetchedAt = index.getLong(offset + 8);
+            if (fetchedAt < oldestFetchedAt) {
+                oldestFetchedAt = fetchedAt;
+                oldest = slot;
+            }
+        }
+        return oldest;
+    }
+
+    private void deleteTile(long key) {
+        long packed = key - 1;
+        int z = (int) (packed >>> 58);
+        int x = (int) ((packed >>> 29) & 0x1FFFFFFF);
+        int y = (int) (packed & 0x1FFFFFFF);
+        try {
+            Files.deleteIfExists(path(z, x, y));
+        } catch (IOException e) {
+            System.err.println("Error deleting NDVI tile " + z + "/" + x + "/" + y + ": " + e.getMessage());
+        }
+    }
+
+    private static long key(int z, int x, int y) {
+        return (((long) z << 58) | ((long) x << 29) | y) + 1;
+    }
+
+    private int home(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (slots - 1);
+    }
+
+    private static int offset(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        index.force();
+        channel.close();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("tiles", entries);
+        }
+        stats.put("indexSlots", slots);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("stores", stores.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+}
@@ -0,0 +1,265 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.proiect.SCD.CropHealthAdvisor.dto.InterpretationRequest;
+import com.proiect.SCD.CropHealthAdvisor.models.InterpretationStatus;
+import com.proiect.SCD.CropHealthAdvisor.models.Reports;
+import com.proiect.SCD.CropHealthAdvisor.repositories.ReportRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Second phase of report generation: fills in the AI interpretation of reports that were
+ * saved with their metrics only (status PENDING).
+ * Reports are queued on a bounded executor; when the queue is full they stay PENDING and
+ * are picked up by the periodic recovery sweep, which also resumes reports left pending
+ * by a restart and retries FAILED reports a limited number of times.
+ */
+@Service
+public class ReportInterpretationQueue {
+
+    @Autowired
+    private GeminiAIService geminiAIService;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    // Language of the AI interpretation
+    @Value("${gemini.locale:ro}")
+    private Locale interpretationLocale;
+
+    @Value("${reports.ai-queue.recovery-batch-size:100}")
+    private int recoveryBatchSize;
+
+    // Attempts per report, including the first one
+    @Value("${reports.ai-queue.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    // Added to the longest Gemini call when the timeout is derived, for the wait on a free slot
+    private static final Duration PERMIT_WAIT_MARGIN = Duration.ofSeconds(30);
+
+    private final ThreadPoolExecutor executor;
+    private final Duration configuredTimeout; // null: derived from the Gemini retry settings
+
+    // Reports queued or running, so the recovery sweep never queues one twice
+    private final Set<Long> queuedIds = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong superseded = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong recovered = new AtomicLong();
+    private final AtomicLong retriedFailed = new AtomicLong();
+    private final AtomicLong totalQueueWaitMillis = new AtomicLong();
+    private final AtomicLong maxQueueWaitMillis = new AtomicLong();
+    private final AtomicLong totalLagMillis = new AtomicLong();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+
+    public ReportInterpretationQueue(
+            @Value("${reports.ai-queue.workers:2}") int workers,
+            @Value("${reports.ai-queue.capacity:500}") int capacity,
+            @Value("${reports.ai-queue.timeout-seconds:0}") long timeoutSeconds) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(capacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-ai-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.configuredTimeout = timeoutSeconds > 0 ? Duration.ofSeconds(timeoutSeconds) : null;
+    }
+
+    /**
+     * Time a worker waits for one interpretation. Unless configured, long enough for every
+     * Gemini attempt and retry, so a slow but valid answer is never cut off here.
+     */
+    Duration timeout() {
+        return configuredTimeout != null ? configuredTimeout
+                : geminiAIService.maxCallDuration().plus(PERMIT_WAIT_MARGIN);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Queued reports stay PENDING and are resumed after the restart
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues a saved report for interpretation.
+     * @return false if the report is already queued or the queue is full (it stays PENDING)
+     */
+    public boolean enqueue(Reports report) {
+        if (report.getId() == null || !queuedIds.add(report.getId())) {
+            return false;
+        }
+        try {
+            executor.execute(new InterpretationTask(report.getId(), requestFor(report), report.getReportDate()));
+        } catch (RejectedExecutionException e) {
+            queuedIds.remove(report.getId());
+            rejected.incrementAndGet();
+            return false;
+        }
+        submitted.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Re-queues PENDING reports that are not queued, oldest first
+     * (rejected while the queue was full, or left over from a previous run),
+     * then FAILED reports with attempts left.
+     */
+    @Scheduled(initialDelayString = "${reports.ai-queue.recovery-initial-delay-ms:10000}",
+            fixedDelayString = "${reports.ai-queue.recovery-interval-ms:60000}")
+    public void recoverPending() {
+        int free = executor.getQueue().remainingCapacity();
+        if (free == 0) {
+            return;
+        }
+        try {
+            List<Reports> pending = reportRepository.findByInterpretationStatusOrderByIdAsc(
+                    InterpretationStatus.PENDING, PageRequest.of(0, Math.max(1, recoveryBatchSize)));
+            for (Reports report : pending) {
+                if (queuedIds.contains(report.getId())) {
+                    continue;
+                }
+                if (!enqueue(report)) {
+                    return;
+                }
+                recovered.incrementAndGet();
+            }
+            List<Reports> failedReports = reportRepository.findByInterpretationStatusAndInterpretationAttemptsLessThanOrderByIdAsc(
+                    InterpretationStatus.FAILED, maxAttempts, PageRequest.of(0, Math.max(1, recoveryBatchSize)));
+            for (Reports report : failedReports) {
+                if (executor.getQueue().remainingCapacity() == 0) {
+                    return;
+                }
+                if (queuedIds.contains(report.getId()) || reportRepository.retryFailedInterpretation(report.getId()) == 0) {
+                    continue;
+                }
+                // PENDING again: if it cannot be queued now, the next sweep picks it up as pending
+                if (!enqueue(report)) {
+                    return;
+                }
+                retriedFailed.incrementAndGet();
+            }
+        } catch (Exception e) {
+            System.err.println("Error recovering pending report interpretations: " + e.getMessage());
+        }
+    }
+
+    private void run(InterpretationTask task) {
+        long queueWait = (System.nanoTime() - task.enqueuedAt) / 1_000_000;
+        totalQueueWaitMillis.addAndGet(queueWait);
+        maxQueueWaitMillis.accumulateAndGet(queueWait, Math::max);
+        try {
+            // Blocking here is intended: the worker pool is what caps concurrent interpretations
+            String interpretation = geminiAIService.getInterpretation(task.request).block(timeout());
+            if (interpretation == null) {
+                throw new IllegalStateException("AI interpretation returned no result");
+            }
+            if (reportRepository.updateInterpretation(task.reportId, interpretation, InterpretationStatus.COMPLETED) == 0) {
+                // Deleted, or its interpretation was written by the user meanwhile
+                superseded.incrementAndGet();
+            } else {
+                completed.incrementAndGet();
+            }
+        } catch (Exception e) {
+            System.err.println("AI interpretation failed for report " + task.reportId + ": " + e.getMessage());
+            try {
+                reportRepository.updateInterpretation(task.reportId, null, InterpretationStatus.FAILED);
+            } catch (Exception updateError) {
+                // Still PENDING, the recovery sweep retries it
+                System.err.println("Error marking report " + task.reportId + " as failed: " + updateError.getMessage());
+            }
+            failed.incrementAndGet();
+        } finally {
+            queuedIds.remove(task.reportId);
+            if (task.reportDate != null) {
+                long lag = Math.max(0, Duration.between(task.reportDate, LocalDateTime.now()).toMillis());
+                totalLagMillis.addAndGet(lag);
+                maxLagMillis.accumulateAndGet(lag, Math::max);
+            }
+        }
+    }
+
+    private InterpretationRequest requestFor(Reports report) {
+        return new InterpretationRequest(new InterpretationRequest.Metrics(
+                value(report.getNdviValue()), value(report.getEviValue()), value(report.getNdwiValue()),
+                value(report.getTemperatureValue()), value(report.getSoilMoisture()),
+                value(report.getPrecipitationValue()), value(report.getEvapotranspiration()),
+                value(report.getCloudCover())),
+                interpretationLocale);
+    }
+
+    private static double value(Double metric) {
+        return metric != null ? metric : Double.NaN;
+    }
+
+    /**
+     * Returns queue depth, worker and outcome counters, queue wait and lag
+     * (report saved to interpretation written).
+     */
+    public Map<String, Object> getStats() {
+        long finished = completed.get() + failed.get() + superseded.get();
+        long oldestQueuedAge = 0;
+        if (executor.getQueue().peek() instanceof InterpretationTask oldest) {
+            oldestQueuedAge = (System.nanoTime() - oldest.enqueuedAt) / 1_000_000;
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("workers", executor.getMaximumPoolSize());
+        stats.put("activeWorkers", executor.getActiveCount());
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("queueRemainingCapacity", executor.getQueue().remainingCapacity());
+        stats.put("oldestQueuedAgeMs", oldestQueuedAge);
+        stats.put("submitted", submitted.get());
+        stats.put("completed", completed.get());
+        stats.put("failed", failed.get());
+        stats.put("superseded", superseded.get());
+        stats.put("rejected", rejected.get());
+        stats.put("recovered", recovered.get());
+        stats.put("retriedFailed", retriedFailed.get());
+        stats.put("avgQueueWaitMs", finished == 0 ? 0 : totalQueueWaitMillis.get() / finished);
+        stats.put("maxQueueWaitMs", maxQueueWaitMillis.get());
+        stats.put("avgLagMs", finished == 0 ? 0 : totalLagMillis.get() / finished);
+        stats.put("maxLagMs", maxLagMillis.get());
+        return stats;
+    }
+
+    private final class InterpretationTask implements Runnable {
+        private final Long reportId;
+        private final InterpretationRequest request;
+        private final LocalDateTime reportDate;
+        private final long enqueuedAt = System.nanoTime();
+
+        InterpretationTask(Long reportId, InterpretationRequest request, LocalDateTime reportDate) {
+            this.reportId = reportId;
+            this.request = request;
+            this.reportDate = reportDate;
+        }
+
+        @Override
+        public void run() {
+            ReportInterpretationQueue.this.run(this);
+        }
+    }
+}
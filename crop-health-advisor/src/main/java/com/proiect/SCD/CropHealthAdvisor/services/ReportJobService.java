@@ -0,0 +1,284 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.proiect.SCD.CropHealthAdvisor.dto.ReportJobStatusDTO;
+import com.proiect.SCD.CropHealthAdvisor.dto.ReportStage;
+import com.proiect.SCD.CropHealthAdvisor.models.Reports;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs report generation as asynchronous jobs on a bounded executor.
+ * Clients create a job, then poll its status or subscribe to server-sent events
+ * that report each completed stage (satellite, LST, weather, persisted, AI queued).
+ */
+@Service
+public class ReportJobService {
+
+    @Autowired
+    private ReportService reportService;
+
+    private final ThreadPoolExecutor executor;
+    private final Duration jobTimeout;
+    private final long retentionMillis;
+    private final long sseTimeoutMillis;
+
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalRunMillis = new AtomicLong();
+    private final AtomicLong maxRunMillis = new AtomicLong();
+    private final AtomicLong totalQueueWaitMillis = new AtomicLong();
+
+    public ReportJobService(
+            @Value("${reports.jobs.workers:4}") int workers,
+            @Value("${reports.jobs.queue-capacity:100}") int queueCapacity,
+            @Value("${reports.jobs.timeout-seconds:120}") long timeoutSeconds,
+            @Value("${reports.jobs.retention-minutes:30}") long retentionMinutes) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.jobTimeout = Duration.ofSeconds(timeoutSeconds);
+        this.retentionMillis = retentionMinutes * 60_000L;
+        this.sseTimeoutMillis = (timeoutSeconds + 30) * 1000L;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Creates a report job for a location and queues it.
+     * @throws RejectedExecutionException if the job queue is full
+     */
+    public ReportJobStatusDTO submit(Long locationId) {
+        purgeFinishedJobs();
+
+        ReportJob job = new ReportJob(UUID.randomUUID().toString(), locationId);
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            rejected.incrementAndGet();
+            throw e;
+        }
+        submitted.incrementAndGet();
+        return job.snapshot();
+    }
+
+    /**
+     * Returns the current status of a job.
+     */
+    public Optional<ReportJobStatusDTO> getStatus(String jobId) {
+        ReportJob job = jobs.get(jobId);
+        return job == null ? Optional.empty() : Optional.of(job.snapshot());
+    }
+
+    /**
+     * Subscribes to job progress. The current status is sent right away,
+     * followed by one "stage" event per completed stage and a final
+     * "completed" or "failed" event, after which the stream is closed.
+     */
+    public Optional<SseEmitter> subscribe(String jobId) {
+        ReportJob job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+        SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+        job.addSubscriber(emitter);
+        return Optional.of(emitter);
+    }
+
+    private void run(ReportJob job) {
+        job.start();
+        long queueWait = Duration.between(job.createdAt, job.startedAt).toMillis();
+        totalQueueWaitMillis.addAndGet(queueWait);
+
+        long start = System.nanoTime();
+        try {
+            // Blocking here is intended: the worker pool is what caps concurrent generations
+            Reports report = reportService.generateAndSaveReport(job.locationId, job::onStage)
+                    .block(jobTimeout);
+            if (report == null) {
+                throw new IllegalStateException("Report generation returned no result");
+            }
+            job.complete(report.getId());
+            completed.incrementAndGet();
+        } catch (Exception e) {
+            System.err.println("Report job " + job.id + " failed for location " + job.locationId + ": " + e.getMessage());
+            job.fail(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            failed.incrementAndGet();
+        } finally {
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            totalRunMillis.addAndGet(elapsed);
+            maxRunMillis.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    private void purgeFinishedJobs() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        jobs.values().removeIf(job -> job.isFinishedBefore(cutoff));
+    }
+
+    /**
+     * Executor and job counters (queue depth, concurrency, durations).
+     */
+    public Map<String, Object> getStats() {
+        long finished = completed.get() + failed.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("workers", executor.getMaximumPoolSize());
+        stats.put("activeWorkers", executor.getActiveCount());
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("queueRemainingCapacity", executor.getQueue().remainingCapacity());
+        stats.put("trackedJobs", jobs.size());
+        stats.put("submitted", submitted.get());
+        stats.put("completed", completed.get());
+        stats.put("failed", failed.get());
+        stats.put("rejected", rejected.get());
+        stats.put("avgDurationMs", finished == 0 ? 0 : totalRunMillis.get() / finished);
+        stats.put("maxDurationMs", maxRunMillis.get());
+        stats.put("avgQueueWaitMs", finished == 0 ? 0 : totalQueueWaitMillis.get() / finished);
+        return stats;
+    }
+
+    /**
+     * Mutable job state; all access is synchronized on the job.
+     */
+    private static class ReportJob {
+        private final String id;
+        private final Long locationId;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final List<ReportStage> completedStages = new ArrayList<>();
+        private final List<SseEmitter> subscribers = new ArrayList<>();
+        private ReportJobStatusDTO.Status status = ReportJobStatusDTO.Status.QUEUED;
+        private LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+        private long finishedAtMillis;
+        private Long reportId;
+        private String error;
+
+        ReportJob(String id, Long locationId) {
+            this.id = id;
+            this.locationId = locationId;
+        }
+
+        synchronized void start() {
+            status = ReportJobStatusDTO.Status.RUNNING;
+            startedAt = LocalDateTime.now();
+            broadcast("status");
+        }
+
+        synchronized void onStage(ReportStage stage) {
+            if (completedStages.contains(stage)) {
+                return;
+            }
+            completedStages.add(stage);
+            broadcast("stage");
+        }
+
+        synchronized void complete(Long reportId) {
+            this.reportId = reportId;
+            finish(ReportJobStatusDTO.Status.COMPLETED, "completed");
+        }
+
+        synchronized void fail(String error) {
+            this.error = error;
+            finish(ReportJobStatusDTO.Status.FAILED, "failed");
+        }
+
+        synchronized boolean isFinishedBefore(long cutoffMillis) {
+            return finishedAt != null && finishedAtMillis < cutoffMillis;
+        }
+
+        synchronized void addSubscriber(SseEmitter emitter) {
+            if (!send(emitter, "status")) {
+                return;
+            }
+            if (finishedAt != null) {
+                emitter.complete();
+                return;
+            }
+            subscribers.add(emitter);
+            emitter.onCompletion(() -> removeSubscriber(emitter));
+            emitter.onTimeout(() -> removeSubscriber(emitter));
+            emitter.onError(error -> removeSubscriber(emitter));
+        }
+
+        private synchronized void removeSubscriber(SseEmitter emitter) {
+            subscribers.remove(emitter);
+        }
+
+        private void finish(ReportJobStatusDTO.Status finalStatus, String eventName) {
+            status = finalStatus;
+            finishedAt = LocalDateTime.now();
+            finishedAtMillis = System.currentTimeMillis();
+            broadcast(eventName);
+            List<SseEmitter> toComplete = new ArrayList<>(subscribers);
+            subscribers.clear();
+            toComplete.forEach(SseEmitter::complete);
+        }
+
+        private void broadcast(String eventName) {
+            for (SseEmitter emitter : new ArrayList<>(subscribers)) {
+                if (!send(emitter, eventName)) {
+                    subscribers.remove(emitter);
+                }
+            }
+        }
+
+        private boolean send(SseEmitter emitter, String eventName) {
+            try {
+                emitter.send(SseEmitter.event().name(eventName).data(snapshot()));
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                // Client went away
+                emitter.completeWithError(e);
+                return false;
+            }
+        }
+
+        synchronized ReportJobStatusDTO snapshot() {
+            ReportJobStatusDTO dto = new ReportJobStatusDTO();
+            dto.setJobId(id);
+            dto.setLocationId(locationId);
+            dto.setStatus(status);
+            dto.setStage(completedStages.isEmpty() ? null : completedStages.get(completedStages.size() - 1));
+            dto.setCompletedStages(List.copyOf(completedStages));
+            dto.setReportId(reportId);
+            dto.setError(error);
+            dto.setCreatedAt(createdAt);
+            dto.setStartedAt(startedAt);
+            dto.setFinishedAt(finishedAt);
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.proiect.SCD.CropHealthAdvisor.dto.SatelliteMetricsDTO;
+import com.proiect.SCD.CropHealthAdvisor.models.Reports;
+import com.proiect.SCD.CropHealthAdvisor.models.SatelliteObservation;
+import com.proiect.SCD.CropHealthAdvisor.repositories.ReportRepository;
+import com.proiect.SCD.CropHealthAdvisor.repositories.SatelliteObservationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * One-shot backfill for reports created before the additional satellite metrics
+ * (EVI, NDWI, soil moisture, cloud cover, evapotranspiration) were stored with each row.
+ * Each report gets the metrics of the scene its own acquisition window (the days up to the
+ * report date) selects from the location's stored daily observations, so no upstream request
+ * is made. Reports whose window has no stored scene are left null rather than stamped with
+ * other days' values.
+ * Disabled by default; run after applying db/migration/V2__report_metrics_columns.sql
+ * (and V4, which stores the observations).
+ */
+@Service
+public class ReportMetricsBackfillService implements ApplicationRunner {
+
+    @Value("${reports.metrics-backfill.enabled:false}")
+    private boolean enabled;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private SatelliteObservationRepository observationRepository;
+
+    @Autowired
+    private SatelliteDataService satelliteDataService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            backfill();
+        }
+    }
+
+    /**
+     * Backfills all reports with missing metrics.
+     * @return number of updated reports
+     */
+    public int backfill() {
+        List<Reports> pending = reportRepository.findByEviValueIsNull();
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        // Grouped by ID: Location's Lombok equals/hashCode would walk the reports collection
+        Map<Long, List<Reports>> byLocation = pending.stream()
+                .filter(report -> report.getLocation() != null && report.getReportDate() != null)
+                .collect(Collectors.groupingBy(report -> report.getLocation().getId(), LinkedHashMap::new, Collectors.toList()));
+
+        int updated = 0;
+        for (Map.Entry<Long, List<Reports>> entry : byLocation.entrySet()) {
+            Long locationId = entry.getKey();
+            try {
+                updated += backfillLocation(locationId, entry.getValue());
+            } catch (Exception e) {
+                System.err.println("Error backfilling metrics for location " + locationId + ": " + e.getMessage());
+            }
+        }
+
+        System.out.println("Report metrics backfill: updated " + updated + " of " + pending.size() + " reports");
+        return updated;
+    }
+
+    private int backfillLocation(Long locationId, List<Reports> reports) {
+        // One query covering the windows of all the location's reports
+        LocalDate first = reports.stream().map(report -> report.getReportDate().toLocalDate())
+                .min(LocalDate::compareTo).orElseThrow();
+        LocalDate last = reports.stream().map(report -> report.getReportDate().toLocalDate())
+                .max(LocalDate::compareTo).orElseThrow();
+        List<SatelliteObservation> series = observationRepository.findByLocationIdAndObservationDateBetweenOrderByObservationDate(
+                locationId, first.minusDays(SatelliteDataService.METRICS_WINDOW_DAYS), last);
+        if (series.isEmpty()) {
+            return 0;
+        }
+
+        List<Reports> filled = new ArrayList<>();
+        for (Reports report : reports) {
+            LocalDate to = report.getReportDate().toLocalDate();
+            LocalDate from = to.minusDays(SatelliteDataService.METRICS_WINDOW_DAYS);
+            List<SatelliteObservation> window = series.stream()
+                    .filter(observation -> !observation.getObservationDate().isBefore(from)
+                            && !observation.getObservationDate().isAfter(to))
+                    .toList();
+            SatelliteMetricsDTO metrics = satelliteDataService.metricsFromObservations(window, report.getTemperatureValue());
+            if (metrics == null) {
+                continue;
+            }
+            report.setEviValue(metrics.getEvi());
+            report.setNdwiValue(metrics.getNdwi());
+            report.setSoilMoisture(metrics.getSoilMoisture());
+            report.setCloudCover(metrics.getCloudCover());
+            if (report.getEvapotranspiration() == null) {
+                report.setEvapotranspiration(metrics.getEvapotranspiration());
+            }
+            filled.add(report);
+        }
+        reportRepository.saveAll(filled);
+        return filled.size();
+    }
+}
@@ -0,0 +1,14 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.proiect.SCD.CropHealthAdvisor.dto.ReportStage;
+
+/**
+ * Callback notified when a report generation stage completes.
+ */
+@FunctionalInterface
+public interface ReportProgressListener {
+
+    ReportProgressListener NONE = stage -> { };
+
+    void onStage(ReportStage stage);
+}
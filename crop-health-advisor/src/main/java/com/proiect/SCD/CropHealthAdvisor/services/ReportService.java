@@ -1,15 +1,33 @@
 package com.proiect.SCD.CropHealthAdvisor.services;
 
+import com.proiect.SCD.CropHealthAdvisor.dto.BatchReportRequest;
+import com.proiect.SCD.CropHealthAdvisor.dto.BatchReportResultDTO;
+import com.proiect.SCD.CropHealthAdvisor.dto.InterpretationRequest;
+import com.proiect.SCD.CropHealthAdvisor.dto.ReportStage;
+import com.proiect.SCD.CropHealthAdvisor.models.InterpretationStatus;
 import com.proiect.SCD.CropHealthAdvisor.models.Reports;
 import com.proiect.SCD.CropHealthAdvisor.models.Location;
+import com.proiect.SCD.CropHealthAdvisor.repositories.ReportBatchRepository;
 import com.proiect.SCD.CropHealthAdvisor.repositories.ReportRepository;
 import com.proiect.SCD.CropHealthAdvisor.services.SatelliteDataService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import com.proiect.SCD.CropHealthAdvisor.repositories.LocationRepository;
+import com.proiect.SCD.CropHealthAdvisor.repositories.UserRepository;
 
 @Service
 public class ReportService {
@@ -25,140 +43,254 @@ public class ReportService {
     
     @Autowired
     private ReportRepository reportRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private ReportBatchRepository reportBatchRepository;
+    
+    @Autowired
+    private ReportInterpretationQueue interpretationQueue;
+    
+    @Autowired
+    private Scheduler jpaScheduler; // Blocking JPA calls never run on request or reactor threads
+    
+    @Value("${reports.batch.parallelism:8}")
+    private int defaultBatchParallelism;
+    
+    @Value("${reports.batch.insert-size:50}")
+    private int batchInsertSize;
+    
+    // Language of the AI interpretation
+    @Value("${gemini.locale:ro}")
+    private Locale interpretationLocale;
+    
     /**
      * Generates a new crop health report for a location.
-     * Fetches satellite data from Sentinel Hub API, generates AI interpretation,
-     * and saves the report to the database.
+     * Fetches satellite data from Sentinel Hub API and saves the report with its metrics;
+     * the AI interpretation is queued and filled in asynchronously (status PENDING until then).
+     * Fully non-blocking: JPA calls are offloaded to the JPA scheduler.
      * 
      * @param locationId The ID of the location to generate report for
      * @return Mono containing the generated report
      */
     public Mono<Reports> generateAndSaveReport(Long locationId) {
+        return generateAndSaveReport(locationId, ReportProgressListener.NONE);
+    }
+    
+    /**
+     * Same as {@link #generateAndSaveReport(Long)}, reporting each completed stage
+     * (satellite, LST, weather, persisted, AI queued) to the listener.
+     */
+    public Mono<Reports> generateAndSaveReport(Long locationId, ReportProgressListener listener) {
         return Mono.fromCallable(() -> locationRepository.findById(locationId))
+            .subscribeOn(jpaScheduler)
             .flatMap(locationOpt -> {
                 if (locationOpt.isEmpty()) {
                     return Mono.error(new RuntimeException("Location with ID " + locationId + " not found."));
                 }
-                
-                Location location = locationOpt.get();
-                double lat = location.getLatitude();
-                double lon = location.getLongitude();
-                
-                // Fetch real-time satellite data from Sentinel Hub API
-                return satelliteDataService.getSatelliteMetrics(lat, lon)
-                    .flatMap(metrics -> {
-                        double ndviValue = metrics.getNdvi();
-                        double eviValue = metrics.getEvi();
-                        double ndwiValue = metrics.getNdwi();
-                        double temperatureValue = metrics.getTemperature(); // LST - Land Surface Temperature
-                        double precipitationValue = metrics.getPrecipitation(); // Estimated from satellite indices
-                        double soilMoistureValue = metrics.getSoilMoisture(); // Soil moisture (%)
-                        double cloudCoverValue = metrics.getCloudCover(); // Cloud cover (%)
-                        double evapotranspirationValue = metrics.getEvapotranspiration(); // Evapotranspiration (mm/day)
-                        
-                        // Create AI prompt for comprehensive crop analysis
-                        String prompt = String.format(
-                                "Ești un expert în agricultură și monitorizare a culturilor prin date satelitare. " +
-                                "Analizează în detaliu următoarele date satelitare pentru o locație agricolă și oferă o analiză comprehensivă:\n\n" +
-                                "📊 DATE SATELITARE:\n\n" +
-                                "INDICI DE VEGETAȚIE:\n" +
-                                "- NDVI (Normalized Difference Vegetation Index): %.3f\n" +
-                                "  Interval: -1.0 (vegetație mortă/sol gol) → 1.0 (vegetație foarte sănătoasă)\n" +
-                                "- EVI (Enhanced Vegetation Index): %.3f\n" +
-                                "  Indică vegetație mai robust, mai puțin sensibil la influența solului\n" +
-                                "- NDWI (Normalized Difference Water Index): %.3f\n" +
-                                "  Indică disponibilitatea apei în vegetație și sol (-1.0 uscat → 1.0 umed)\n\n" +
-                                "CONDIȚII DE MEDIU:\n" +
-                                "- Temperatura solului (LST - Land Surface Temperature): %.1f°C\n" +
-                                "  NOTĂ IMPORTANTĂ: Aceasta este temperatura suprafeței solului, NU temperatura aerului\n" +
-                                "  Interval normal pentru sol: 5°C - 50°C (variază după sezon și tipul culturii)\n" +
-                                "- Umiditate solului: %.1f%%\n" +
-                                "  Derivă din NDWI: valori ridicate = sol mai umed\n" +
-                                "- Precipitații estimate: %.1fmm\n" +
-                                "  Estimare bazată pe indici satelitari (NDWI și alți indici)\n" +
-                                "- Evapotranspirație: %.2f mm/zi\n" +
-                                "  Estimare bazată pe NDVI și temperatura solului\n" +
-                                "- Acoperire nori: %.1f%%\n" +
-                                "  Estimare din diferența NDVI-EVI\n\n" +
-                                "📝 CERINȚE PENTRU RĂSPUNSUL TĂU:\n" +
-                                "Fă o ANALIZĂ DETALIATĂ și COMPREHENSIVĂ (minimum 10-15 rânduri) care include:\n" +
-                                "1. Evaluare generală a stării culturii bazată pe TOATE indicile (NDVI, EVI, NDWI)\n" +
-                                "2. Analiza impactului temperaturii solului asupra dezvoltării culturilor\n" +
-                                "3. Evaluarea umidității solului și disponibilității apei\n" +
-                                "4. Analiza balanței dintre evapotranspirație și precipitații\n" +
-                                "5. Impactul acoperirii norilor asupra calității datelor\n" +
-                                "6. Identificarea problemelor potențiale și riscurilor\n" +
-                                "7. Recomandări SPECIFICE și PRIORITIZATE pentru acțiuni (ex: irigație, fertilizare, tratamente, monitorizare)\n" +
-                                "8. Plan de acțiune pe termen scurt și mediu\n" +
-                                "9. Sfaturi practice pentru îmbunătățirea condițiilor culturilor\n\n" +
-                                "Fii detaliat, precis și oferă sfaturi practice bazate pe toate datele disponibile. " +
-                                "Răspunde în română, într-un stil profesional dar accesibil, fără prefixe sau formate JSON.",
-                                ndviValue,
-                                eviValue,
-                                ndwiValue,
-                                temperatureValue,
-                                soilMoistureValue,
-                                precipitationValue,
-                                evapotranspirationValue,
-                                cloudCoverValue);
-
-                        return geminiAIService.getInterpretation(prompt)
-                            .map(aiInterpretation -> {
-                                Reports report = new Reports();
-                                report.setNdviValue(ndviValue);
-                                report.setTemperatureValue(temperatureValue);
-                                report.setPrecipitationValue(precipitationValue);
-                                
-                                // Additional metrics (@Transient - not saved in DB, but included in JSON response)
-                                report.setEviValue(eviValue);
-                                report.setNdwiValue(ndwiValue);
-                                report.setSoilMoisture(soilMoistureValue);
-                                report.setCloudCover(cloudCoverValue);
-                                report.setEvapotranspiration(evapotranspirationValue);
-                                
-                                report.setAiInterpretation(aiInterpretation);
-                                report.setReportDate(LocalDateTime.now());
-                                report.setLocation(location);
-                                
-                                return report;
-                            });
-                    });
+                return buildReport(locationOpt.get(), listener);
             })
-            .flatMap(report -> Mono.fromCallable(() -> reportRepository.save(report)));
-    }    
+            .flatMap(report -> Mono.fromCallable(() -> reportRepository.save(report))
+                .subscribeOn(jpaScheduler))
+            .doOnNext(saved -> {
+                listener.onStage(ReportStage.PERSISTED);
+                interpretationQueue.enqueue(saved); // When full, the recovery sweep queues it later
+                listener.onStage(ReportStage.AI);
+            });
+    }
+    
     /**
-     * Retrieves all reports for a specific location.
-     * Populates additional transient metrics (@Transient fields) with current data from Sentinel Hub API.
-     * These metrics are not stored in DB but included in JSON responses for better UI display.
+     * Generates reports for a set of locations with bounded parallelism.
+     * The access token is resolved once up front and shared by all requests, and
+     * satellite metrics of nearby fields are fetched with grouped requests;
+     * reports are written with JDBC batch inserts and their AI interpretations queued.
+     * Failures are reported per location
+     * and never abort the batch.
+     * 
+     * @param locationIds Locations to generate reports for
+     * @param parallelism Max concurrent generations (null or <= 0 for the configured default)
+     * @return Per-location outcomes and throughput
      */
-    public List<Reports> getReportsByLocationId(Long locationId) {
-        List<Reports> reports = reportRepository.findByLocationId(locationId);
+    public Mono<BatchReportResultDTO> generateReports(Collection<Long> locationIds, Integer parallelism) {
+        int workers = parallelism != null && parallelism > 0 ? parallelism : defaultBatchParallelism;
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(locationIds));
+        long start = System.currentTimeMillis();
         
-        if (!reports.isEmpty() && reports.get(0).getLocation() != null) {
-            Location location = reports.get(0).getLocation();
-            
-            try {
-                var metrics = satelliteDataService.getSatelliteMetrics(
-                    location.getLatitude(),
-                    location.getLongitude()
-                ).block(java.time.Duration.ofSeconds(30));
-                
-                if (metrics != null) {
-                    reports.forEach(report -> {
-                        report.setEviValue(metrics.getEvi());
-                        report.setNdwiValue(metrics.getNdwi());
-                        report.setSoilMoisture(metrics.getSoilMoisture());
-                        report.setCloudCover(metrics.getCloudCover());
-                        report.setEvapotranspiration(metrics.getEvapotranspiration());
-                    });
+        return Mono.fromCallable(() -> locationRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Location::getId, Function.identity())))
+            .subscribeOn(jpaScheduler)
+            .flatMap(locations -> satelliteDataService.prefetchAccessToken()
+                // Grouped multi-location requests warm the metrics cache for nearby fields
+                .then(satelliteDataService.prefetchSatelliteMetrics(locations.values()))
+                .thenMany(Flux.fromIterable(ids)
+                    .flatMap(id -> buildOutcome(id, locations), workers)
+                    .buffer(Math.max(1, batchInsertSize))
+                    .concatMap(chunk -> Mono.fromCallable(() -> persistChunk(chunk)).subscribeOn(jpaScheduler)))
+                .flatMapIterable(chunk -> chunk.stream().map(PendingOutcome::outcome).toList())
+                .collectList())
+            .map(outcomes -> {
+                BatchReportResultDTO result = new BatchReportResultDTO();
+                long elapsed = Math.max(1, System.currentTimeMillis() - start);
+                int succeeded = (int) outcomes.stream().filter(BatchReportResultDTO.LocationOutcome::isSuccess).count();
+                result.setRequested(ids.size());
+                result.setSucceeded(succeeded);
+                result.setFailed(outcomes.size() - succeeded);
+                result.setParallelism(workers);
+                result.setElapsedMs(elapsed);
+                result.setReportsPerMinute(succeeded * 60_000.0 / elapsed);
+                result.setResults(outcomes);
+                System.out.println(String.format("Batch report generation: %d/%d succeeded in %d ms (%.1f reports/min, parallelism %d)",
+                        succeeded, ids.size(), elapsed, result.getReportsPerMinute(), workers));
+                return result;
+            });
+    }
+    
+    /**
+     * Generates reports for all locations of a user.
+     */
+    public Mono<BatchReportResultDTO> generateReportsForUser(Long userId, Integer parallelism) {
+        return Mono.fromCallable(() -> locationRepository.findIdsByUserId(userId))
+            .subscribeOn(jpaScheduler)
+            .flatMap(ids -> generateReports(ids, parallelism));
+    }
+    
+    /**
+     * Whether a non-admin user may run the batch: their own user ID or locations only,
+     * never every location.
+     */
+    public boolean isOwnBatch(String email, BatchReportRequest request) {
+        if (request.isAll()) {
+            return false;
+        }
+        java.util.Optional<Long> userId = userRepository.findByEmail(email).map(user -> user.getId());
+        if (userId.isEmpty()) {
+            return false;
+        }
+        if (request.getUserId() != null) {
+            return request.getUserId().equals(userId.get());
+        }
+        return request.getLocationIds() == null
+                || new HashSet<>(locationRepository.findIdsByUserId(userId.get())).containsAll(request.getLocationIds());
+    }
+    
+    /**
+     * Generates reports for every location.
+     */
+    public Mono<BatchReportResultDTO> generateReportsForAllLocations(Integer parallelism) {
+        return Mono.fromCallable(() -> locationRepository.findAllIds())
+            .subscribeOn(jpaScheduler)
+            .flatMap(ids -> generateReports(ids, parallelism));
+    }
+    
+    /**
+     * A location outcome, with the built report when generation succeeded (not yet saved).
+     */
+    private record PendingOutcome(BatchReportResultDTO.LocationOutcome outcome, Reports report) {
+    }
+    
+    private Mono<PendingOutcome> buildOutcome(Long locationId, Map<Long, Location> locations) {
+        long start = System.currentTimeMillis();
+        BatchReportResultDTO.LocationOutcome outcome = new BatchReportResultDTO.LocationOutcome();
+        outcome.setLocationId(locationId);
+        
+        Location location = locations.get(locationId);
+        if (location == null) {
+            outcome.setError("Location with ID " + locationId + " not found.");
+            return Mono.just(new PendingOutcome(outcome, null));
+        }
+        
+        return buildReport(location, ReportProgressListener.NONE)
+            .map(report -> new PendingOutcome(outcome, report))
+            .onErrorResume(error -> {
+                outcome.setError(error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName());
+                return Mono.just(new PendingOutcome(outcome, null));
+            })
+            .doOnNext(pending -> outcome.setDurationMs(System.currentTimeMillis() - start));
+    }
+    
+    /**
+     * Inserts the built reports of a chunk in one JDBC batch and completes their outcomes.
+     */
+    private List<PendingOutcome> persistChunk(List<PendingOutcome> chunk) {
+        List<Reports> reports = chunk.stream()
+            .map(PendingOutcome::report)
+            .filter(report -> report != null)
+            .toList();
+        try {
+            reportBatchRepository.insertAll(reports);
+            reports.forEach(interpretationQueue::enqueue);
+            for (PendingOutcome pending : chunk) {
+                if (pending.report() != null) {
+                    pending.outcome().setSuccess(true);
+                    pending.outcome().setReportId(pending.report().getId());
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Error saving report batch: " + e.getMessage());
+            for (PendingOutcome pending : chunk) {
+                if (pending.report() != null) {
+                    pending.outcome().setError("Error saving report: " + e.getMessage());
                 }
-            } catch (Exception e) {
-                System.err.println("Error populating additional metrics for location " + locationId + ": " + e.getMessage());
-                e.printStackTrace();
             }
         }
-        
-        return reports;
+        return chunk;
+    }
+    
+    /**
+     * Builds (but does not save) a report for a location with its satellite metrics.
+     * The AI interpretation is left PENDING for {@link ReportInterpretationQueue}.
+     */
+    private Mono<Reports> buildReport(Location location, ReportProgressListener listener) {
+        // Fetch real-time satellite data from Sentinel Hub API
+        return satelliteDataService.getSatelliteMetrics(location, listener)
+            .map(satelliteMetrics -> {
+                InterpretationRequest.Metrics metrics = InterpretationRequest.Metrics.of(satelliteMetrics);
+                
+                Reports report = new Reports();
+                report.setNdviValue(metrics.ndvi());
+                report.setTemperatureValue(metrics.temperature()); // LST - Land Surface Temperature
+                report.setPrecipitationValue(metrics.precipitation()); // Estimated from satellite indices
+                
+                // Additional metrics, stored with the report
+                report.setEviValue(metrics.evi());
+                report.setNdwiValue(metrics.ndwi());
+                report.setSoilMoisture(metrics.soilMoisture());
+                report.setCloudCover(metrics.cloudCover());
+                report.setEvapotranspiration(metrics.evapotranspiration());
+                
+                report.setInterpretationStatus(InterpretationStatus.PENDING);
+                report.setReportDate(LocalDateTime.now());
+                report.setLocation(location);
+                
+                return report;
+            });
+    }
+    
+    /**
+     * Streams the AI interpretation of a location's current metrics as it is generated
+     * (nothing is saved).
+     */
+    public Flux<String> streamInterpretation(Long locationId) {
+        return Mono.fromCallable(() -> locationRepository.findById(locationId))
+            .subscribeOn(jpaScheduler)
+            .flatMap(locationOpt -> {
+                if (locationOpt.isEmpty()) {
+                    return Mono.error(new RuntimeException("Location with ID " + locationId + " not found."));
+                }
+                return satelliteDataService.getSatelliteMetrics(locationOpt.get(), ReportProgressListener.NONE);
+            })
+            .flatMapMany(metrics -> geminiAIService.streamInterpretation(
+                InterpretationRequest.of(metrics, interpretationLocale)));
+    }
+    
+    /**
+     * Retrieves all reports for a specific location.
+     * Pure DB read: all metrics are stored with each report when it is generated.
+     */
+    public List<Reports> getReportsByLocationId(Long locationId) {
+        return reportRepository.findByLocationId(locationId);
     }
     
     /**
@@ -193,7 +325,28 @@ public class ReportService {
             existingReport.setNdviValue(report.getNdviValue());
             existingReport.setTemperatureValue(report.getTemperatureValue());
             existingReport.setPrecipitationValue(report.getPrecipitationValue());
-            existingReport.setAiInterpretation(report.getAiInterpretation());
+            // Clients that do not know the additional metrics (e.g. the desktop app) must not clear them
+            if (report.getEviValue() != null) {
+                existingReport.setEviValue(report.getEviValue());
+            }
+            if (report.getNdwiValue() != null) {
+                existingReport.setNdwiValue(report.getNdwiValue());
+            }
+            if (report.getSoilMoisture() != null) {
+                existingReport.setSoilMoisture(report.getSoilMoisture());
+            }
+            if (report.getCloudCover() != null) {
+                existingReport.setCloudCover(report.getCloudCover());
+            }
+            if (report.getEvapotranspiration() != null) {
+                existingReport.setEvapotranspiration(report.getEvapotranspiration());
+            }
+            // An interpretation written by the user replaces a pending one; the queue no longer touches it.
+            // The desktop app always sends the field, blank for reports still being interpreted.
+            if (report.getAiInterpretation() != null && !report.getAiInterpretation().isBlank()) {
+                existingReport.setAiInterpretation(report.getAiInterpretation());
+                existingReport.setInterpretationStatus(InterpretationStatus.COMPLETED);
+            }
             existingReport.setReportDate(report.getReportDate());
             
             if (report.getLocation() != null && report.getLocation().getId() != null) {
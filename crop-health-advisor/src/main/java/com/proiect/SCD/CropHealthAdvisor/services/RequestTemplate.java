@@ -0,0 +1,97 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JSON request body compiled once into literal segments and parameter slots.
+ * Rendering only appends the bbox, time range and output size between the
+ * pre-serialized segments, so no object tree is built or serialized per request.
+ * <p>
+ * Placeholders are quoted string values in the source JSON: numeric slots
+ * ({@code "{{minLon}}"}, {@code "{{width}}"}, ...) are replaced including the quotes,
+ * string slots ({@code "{{from}}"}, {@code "{{to}}"}) keep them.
+ */
+public final class RequestTemplate {
+
+    /**
+     * Values substituted into a template; unused slots are ignored.
+     */
+    public record Params(double minLon, double minLat, double maxLon, double maxLat,
+                         String timeFrom, String timeTo, int width, int height) {
+
+        public static Params of(double minLon, double minLat, double maxLon, double maxLat,
+                                String timeFrom, String timeTo) {
+            return new Params(minLon, minLat, maxLon, maxLat, timeFrom, timeTo, 1, 1);
+        }
+    }
+
+    private enum Slot {
+        MIN_LON("minLon"), MIN_LAT("minLat"), MAX_LON("maxLon"), MAX_LAT("maxLat"),
+        FROM("from"), TO("to"), WIDTH("width"), HEIGHT("height");
+
+        private final String placeholder;
+
+        Slot(String name) {
+            this.placeholder = "\"{{" + name + "}}\"";
+        }
+    }
+
+    private final String[] literals;
+    private final Slot[] slots;
+    private final int estimatedLength;
+
+    private RequestTemplate(String[] literals, Slot[] slots, int estimatedLength) {
+        this.literals = literals;
+        this.slots = slots;
+        this.estimatedLength = estimatedLength;
+    }
+
+    /**
+     * Splits the JSON at its placeholders.
+     */
+    public static RequestTemplate compile(String json) {
+        List<String> literals = new ArrayList<>();
+        List<Slot> slots = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int next = -1;
+            Slot nextSlot = null;
+            for (Slot slot : Slot.values()) {
+                int index = json.indexOf(slot.placeholder, position);
+                if (index >= 0 && (next < 0 || index < next)) {
+                    next = index;
+                    nextSlot = slot;
+                }
+            }
+            if (nextSlot == null) {
+                literals.add(json.substring(position));
+                break;
+            }
+            literals.add(json.substring(position, next));
+            slots.add(nextSlot);
+            position = next + nextSlot.placeholder.length();
+        }
+        // Room for the substituted values
+        return new RequestTemplate(literals.toArray(new String[0]), slots.toArray(new Slot[0]),
+                json.length() + slots.size() * 24);
+    }
+
+    public String render(Params params) {
+        StringBuilder json = new StringBuilder(estimatedLength);
+        for (int i = 0; i < slots.length; i++) {
+            json.append(literals[i]);
+            switch (slots[i]) {
+                case MIN_LON -> json.append(params.minLon());
+                case MIN_LAT -> json.append(params.minLat());
+                case MAX_LON -> json.append(params.maxLon());
+                case MAX_LAT -> json.append(params.maxLat());
+                case FROM -> json.append('"').append(params.timeFrom()).append('"');
+                case TO -> json.append('"').append(params.timeTo()).append('"');
+                case WIDTH -> json.append(params.width());
+                case HEIGHT -> json.append(params.height());
+            }
+        }
+        return json.append(literals[slots.length]).toString();
+    }
+}
@@ -1,24 +1,37 @@
 // src/main/java/com/proiect/SCD/CropHealthAdvisor/services/SatelliteDataService.java
 package com.proiect.SCD.CropHealthAdvisor.services;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.proiect.SCD.CropHealthAdvisor.dto.SatelliteDataDTO;
+import com.proiect.SCD.CropHealthAdvisor.dto.ReportStage;
 import com.proiect.SCD.CropHealthAdvisor.dto.SatelliteMetricsDTO;
+import com.proiect.SCD.CropHealthAdvisor.models.Location;
+import com.proiect.SCD.CropHealthAdvisor.models.SatelliteObservation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
 
-import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import javax.imageio.ImageIO;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class SatelliteDataService {
@@ -32,17 +45,122 @@ public class SatelliteDataService {
     @Autowired(required = false)
     private WeatherService weatherService; // Optional - for real weather data
     
+    @Autowired
+    private SatelliteMetricsCache metricsCache;
+    
+    @Autowired(required = false)
+    private SatelliteTimeSeriesService timeSeriesService; // Optional - daily series storage
+    
+    // Grid cell size used to group nearby fields into one multi-location request
+    @Value("${satellite.batch-stats.cell-degrees:0.02}")
+    private double batchCellDegrees;
+    
+    @Value("${satellite.batch-stats.concurrency:4}")
+    private int batchConcurrency;
+    
+    // Minimum share of cloud-free pixels for a day to be used as the current scene
+    @Value("${satellite.scene.min-valid-fraction:0.6}")
+    private double minValidFraction = 0.6;
+    
+    // Upstream-call accounting for grouped requests
+    private final AtomicLong batchLocationsRequested = new AtomicLong();
+    private final AtomicLong batchLocationsServed = new AtomicLong();
+    private final AtomicLong batchGroups = new AtomicLong();
+    private final AtomicLong batchUpstreamRequests = new AtomicLong();
+    
+    // Incremental time-series fetching
+    private final AtomicLong seriesFullFetches = new AtomicLong();
+    private final AtomicLong seriesDeltaFetches = new AtomicLong();
+    private final AtomicLong seriesSyncFetches = new AtomicLong();
+    private final AtomicLong seriesDaysRequested = new AtomicLong();
+    private final AtomicLong seriesDaysSkipped = new AtomicLong();
+    
+    // Cloud-aware scene selection
+    private final AtomicLong scenesSelected = new AtomicLong();
+    private final AtomicLong cloudyScenesSkipped = new AtomicLong();
+    private final AtomicLong scenesBelowThreshold = new AtomicLong();
+    private final AtomicLong noClearScene = new AtomicLong();
+    
+    // Raw-band mode: indices computed here from stored rasters shared by metrics and images
+    @Value("${satellite.raw-bands.enabled:false}")
+    private boolean rawBandsEnabled;
+    
+    @Value("${satellite.raw-bands.lookback-days:30}")
+    private int rawBandsLookbackDays = 30;
+    
+    @Value("${satellite.raw-bands.acquisition-ttl-minutes:360}")
+    private long rawBandsAcquisitionTtlMinutes = 360;
+    
+    @Autowired
+    private BandRasterStore bandRasterStore;
+    
+    private static final int MAX_RAW_BAND_ACQUISITIONS = 10_000;
+    
+    // Latest acquisition per bbox, bounded LRU
+    private final LinkedHashMap<RawBandBbox, RawBandAcquisition> rawBandAcquisitions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<RawBandBbox, RawBandAcquisition> eldest) {
+            return size() > MAX_RAW_BAND_ACQUISITIONS;
+        }
+    };
+    private final InFlightRequests<BandRasterStore.Key, BandRaster> rawBandRequests = new InFlightRequests<>();
+    
+    private final AtomicLong rawBandDownloads = new AtomicLong();
+    private final AtomicLong rawBandAcquisitionLookups = new AtomicLong();
+    private final AtomicLong rawBandMetricsServed = new AtomicLong();
+    private final AtomicLong rawBandImagesServed = new AtomicLong();
+    private final AtomicLong rawBandFallbacks = new AtomicLong();
+    private final AtomicLong rawBandKernelMs = new AtomicLong();
+    
+    // Identical concurrent requests share one upstream call
+    private final InFlightRequests<SatelliteMetricsCache.Key, SatelliteMetricsDTO> metricsRequests = new InFlightRequests<>();
+    private final InFlightRequests<LstKey, Double> lstRequests = new InFlightRequests<>();
+    private final InFlightRequests<Long, Boolean> seriesSyncs = new InFlightRequests<>();
+    
+    // Acquisition window of the metrics: the days up to the report date
+    public static final int METRICS_WINDOW_DAYS = 30;
+    
+    // Statistical API outputs of SentinelHubRequests.INDICES_EVALSCRIPT, in StatisticsResponseParser order
+    private static final String[] INDEX_OUTPUTS = {"ndvi", "evi", "ndwi"};
+    
+    // Half-size of the NDVI image bbox around a point (~500m)
+    static final double NDVI_IMAGE_BUFFER = 0.005;
+    
+    // Images and multi-location rasters are larger than the 256KB default buffer limit
+    private static final int MAX_IN_MEMORY_BYTES = 16 * 1024 * 1024;
+    
+    // Largest raw band raster (FLOAT32 samples) that fits in memory, with room for the TIFF header
+    private static final long MAX_RAW_BAND_PIXELS =
+            (MAX_IN_MEMORY_BYTES - 64 * 1024) / (BandRaster.BANDS * Float.BYTES);
+    
     private final WebClient webClient;
     private final ObjectMapper objectMapper;
     
-    // Cache for access token
-    private String cachedAccessToken = null;
-    private long tokenExpiryTime = 0;
+    // Cache for access token (refreshed single-flight, see getAccessToken)
+    private final AtomicReference<AccessToken> accessToken = new AtomicReference<>();
+    private final AtomicReference<Mono<AccessToken>> tokenRefresh = new AtomicReference<>();
+    
+    @Value("${sentinelhub.token.refresh-ahead-seconds:300}")
+    private long tokenRefreshAheadSeconds = 300;
+    
+    // A hung token request would otherwise hold every caller waiting on the shared refresh
+    @Value("${sentinelhub.token.timeout-seconds:10}")
+    private long tokenTimeoutSeconds = 10;
+    
+    private final AtomicLong tokenRefreshes = new AtomicLong();
+    private final AtomicLong tokenRefreshFailures = new AtomicLong();
+    private final AtomicLong tokenProactiveRefreshes = new AtomicLong();
+    private final AtomicLong tokenRefreshJoins = new AtomicLong();
+    private final AtomicLong tokenRefreshTotalMs = new AtomicLong();
+    private final AtomicLong tokenRefreshMaxMs = new AtomicLong();
+    private volatile long tokenRefreshLastMs;
     
     @Autowired
-    public SatelliteDataService(ObjectMapper objectMapper) {
+    public SatelliteDataService(ObjectMapper objectMapper,
+                                @Value("${sentinelhub.base-url:https://services.sentinel-hub.com}") String baseUrl) {
         this.webClient = WebClient.builder()
-                .baseUrl("https://services.sentinel-hub.com")
+                .baseUrl(baseUrl)
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(MAX_IN_MEMORY_BYTES))
                 .build();
         this.objectMapper = objectMapper != null ? objectMapper : new ObjectMapper();
     }
@@ -50,19 +168,77 @@ public class SatelliteDataService {
     /**
      * Gets an OAuth2 access token from Sentinel Hub.
      * NOTE: If no Client Secret, use API key directly (legacy mode).
+     * <p>
+     * Lock-free and single-flight: concurrent callers share one in-flight refresh,
+     * and a token close to expiry is refreshed in the background while still being served.
      */
     private Mono<String> getAccessToken() {
-        // If no Client Secret, use API key directly (for legacy/statistical API)
-        if (sentinelHubClientSecret == null || sentinelHubClientSecret.isEmpty()) {
-            return Mono.just(sentinelHubApiKey);
-        }
-        
-        // If we have valid cached token, use it
-        if (cachedAccessToken != null && System.currentTimeMillis() < tokenExpiryTime) {
-            return Mono.just(cachedAccessToken);
+        return Mono.defer(() -> {
+            // If no Client Secret, use API key directly (for legacy/statistical API)
+            if (sentinelHubClientSecret == null || sentinelHubClientSecret.isEmpty()) {
+                return Mono.just(sentinelHubApiKey);
+            }
+            
+            AccessToken current = accessToken.get();
+            long now = System.currentTimeMillis();
+            if (current != null && now < current.expiresAt()) {
+                if (now >= current.refreshAt()) {
+                    // Proactive refresh: keep serving the current token meanwhile
+                    tokenProactiveRefreshes.incrementAndGet();
+                    refreshAccessToken().subscribe(token -> { }, error -> { });
+                }
+                return Mono.just(current.value());
+            }
+            
+            return refreshAccessToken()
+                    .map(AccessToken::value)
+                    .onErrorResume(error -> {
+                        System.err.println("Error getting OAuth token: " + error.getMessage());
+                        // Fallback to direct API key
+                        return Mono.just(sentinelHubApiKey);
+                    });
+        });
+    }
+    
+    /**
+     * Returns the in-flight token refresh, starting one if there is none.
+     * The refresh runs to completion even if the callers that joined it cancel.
+     */
+    private Mono<AccessToken> refreshAccessToken() {
+        while (true) {
+            Mono<AccessToken> inFlight = tokenRefresh.get();
+            if (inFlight != null) {
+                tokenRefreshJoins.incrementAndGet();
+                return inFlight;
+            }
+            Sinks.One<AccessToken> sink = Sinks.one();
+            Mono<AccessToken> shared = sink.asMono();
+            if (!tokenRefresh.compareAndSet(null, shared)) {
+                continue; // Another caller started a refresh first
+            }
+            long start = System.nanoTime();
+            requestAccessToken().subscribe(
+                    token -> {
+                        recordTokenRefresh(start);
+                        accessToken.set(token);
+                        tokenRefresh.set(null);
+                        sink.tryEmitValue(token);
+                    },
+                    error -> {
+                        recordTokenRefresh(start);
+                        tokenRefreshFailures.incrementAndGet();
+                        tokenRefresh.set(null);
+                        sink.tryEmitError(error);
+                    });
+            return shared;
         }
-        
-        // Get new token via OAuth2 client credentials
+    }
+    
+    /**
+     * Get new token via OAuth2 client credentials.
+     * Always ends with a token or an error (empty response, timeout), so the shared refresh completes.
+     */
+    private Mono<AccessToken> requestAccessToken() {
         return webClient.post()
                 .uri("/oauth/token")
                 .header("Content-Type", "application/x-www-form-urlencoded")
@@ -70,132 +246,174 @@ public class SatelliteDataService {
                 .retrieve()
                 .bodyToMono(Map.class)
                 .map(response -> {
-                    String accessToken = (String) response.get("access_token");
-                    Integer expiresIn = (Integer) response.get("expires_in");
-                    cachedAccessToken = accessToken;
-                    tokenExpiryTime = System.currentTimeMillis() + (expiresIn * 1000) - 60000; // Expires 1 min before
-                    return accessToken;
+                    String value = (String) response.get("access_token");
+                    if (value == null) {
+                        throw new IllegalStateException("No access_token in OAuth response");
+                    }
+                    long expiresInMillis = ((Number) response.get("expires_in")).longValue() * 1000;
+                    long now = System.currentTimeMillis();
+                    long expiresAt = now + expiresInMillis - 60000; // Expires 1 min before
+                    long refreshAt = Math.max(now, expiresAt - tokenRefreshAheadSeconds * 1000);
+                    return new AccessToken(value, expiresAt, refreshAt);
                 })
-                .onErrorResume(error -> {
-                    System.err.println("Error getting OAuth token: " + error.getMessage());
-                    // Fallback to direct API key
-                    return Mono.just(sentinelHubApiKey);
-                });
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("Empty OAuth response")))
+                .timeout(Duration.ofSeconds(tokenTimeoutSeconds));
+    }
+    
+    private void recordTokenRefresh(long startNanos) {
+        long elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+        tokenRefreshes.incrementAndGet();
+        tokenRefreshTotalMs.addAndGet(elapsedMs);
+        tokenRefreshMaxMs.accumulateAndGet(elapsedMs, Math::max);
+        tokenRefreshLastMs = elapsedMs;
+    }
+    
+    /**
+     * OAuth token refresh counters and latency.
+     */
+    public Map<String, Object> getTokenStats() {
+        long refreshes = tokenRefreshes.get();
+        AccessToken current = accessToken.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("oauthEnabled", sentinelHubClientSecret != null && !sentinelHubClientSecret.isEmpty());
+        stats.put("refreshes", refreshes);
+        stats.put("refreshFailures", tokenRefreshFailures.get());
+        stats.put("proactiveRefreshes", tokenProactiveRefreshes.get());
+        stats.put("joinedRefreshes", tokenRefreshJoins.get());
+        stats.put("avgRefreshMs", refreshes == 0 ? 0.0 : (double) tokenRefreshTotalMs.get() / refreshes);
+        stats.put("maxRefreshMs", tokenRefreshMaxMs.get());
+        stats.put("lastRefreshMs", tokenRefreshLastMs);
+        stats.put("tokenValidForSeconds", current == null ? 0
+                : Math.max(0, (current.expiresAt() - System.currentTimeMillis()) / 1000));
+        return stats;
+    }
+
+    private record AccessToken(String value, long expiresAt, long refreshAt) {
+    }
+
+    /**
+     * Upper bound on the upstream requests of one uncached metrics fetch, for rate budgets:
+     * index statistics (which also store the time series, or sync it on a cache hit), LST,
+     * plus a token refresh, a raw band raster and the weather fallback where enabled.
+     */
+    public int maxUpstreamCallsPerFetch() {
+        int calls = 2;
+        if (sentinelHubClientSecret != null && !sentinelHubClientSecret.isEmpty()) {
+            calls++;
+        }
+        if (rawBandsEnabled) {
+            calls++;
+        }
+        if (weatherService != null) {
+            calls++;
+        }
+        return calls;
+    }
+
+    /**
+     * Keeps today's cached metrics of a point until the end of the day (see
+     * {@link SatelliteMetricsCache#pinForWindow}).
+     * @return false if nothing is cached (e.g. the fetch fell back to mock values)
+     */
+    public boolean pinCachedMetrics(double lat, double lon) {
+        LocalDate endDate = LocalDate.now();
+        return metricsCache.pinForWindow(metricsCache.keyFor(lat, lon, endDate.minusDays(METRICS_WINDOW_DAYS), endDate));
+    }
+
+    /**
+     * Resolves the access token ahead of a bulk run, so parallel requests reuse one cached token.
+     */
+    public Mono<Void> prefetchAccessToken() {
+        return getAccessToken().then();
     }
 
     /**
      * Retrieves satellite metrics for a location (NDVI, EVI, NDWI, LST temperature).
      * Uses Sentinel Hub Statistical API for indices and MODIS for temperature.
+     * Results are served from the metrics cache while fresh; mock fallbacks are never cached.
      */
     public Mono<SatelliteMetricsDTO> getSatelliteMetrics(double lat, double lon) {
-        // Define small area around coordinates (buffer ~100m)
-        double buffer = 0.001; // ~100m
-        double minLon = lon - buffer;
-        double minLat = lat - buffer;
-        double maxLon = lon + buffer;
-        double maxLat = lat + buffer;
-        
+        return getSatelliteMetrics(lat, lon, ReportProgressListener.NONE);
+    }
+    
+    /**
+     * Same as {@link #getSatelliteMetrics(double, double)}, reporting the SATELLITE, LST
+     * and WEATHER stages to the listener as they complete.
+     */
+    public Mono<SatelliteMetricsDTO> getSatelliteMetrics(double lat, double lon, ReportProgressListener listener) {
+        return getSatelliteMetrics(null, lat, lon, listener);
+    }
+    
+    /**
+     * Same as {@link #getSatelliteMetrics(double, double, ReportProgressListener)} for a stored location:
+     * every daily interval fetched from the Statistical API is also kept in the location's time series.
+     */
+    public Mono<SatelliteMetricsDTO> getSatelliteMetrics(Location location, ReportProgressListener listener) {
+        return getSatelliteMetrics(location.getId(), location.getLatitude(), location.getLongitude(), listener);
+    }
+    
+    private Mono<SatelliteMetricsDTO> getSatelliteMetrics(Long locationId, double lat, double lon,
+                                                          ReportProgressListener listener) {
         // Time interval: last 30 days
         LocalDate endDate = LocalDate.now();
-        LocalDate startDate = endDate.minusDays(30);
-        String timeFrom = startDate.format(DateTimeFormatter.ISO_LOCAL_DATE) + "T00:00:00Z";
-        String timeTo = endDate.format(DateTimeFormatter.ISO_LOCAL_DATE) + "T23:59:59Z";
-        
-        // Eval script for NDVI, EVI, NDWI from Sentinel-2
-        String evalscript = 
-            "//VERSION=3\n" +
-            "function setup() {\n" +
-            "  return {\n" +
-            "    input: [{\n" +
-            "      bands: [\"B02\", \"B03\", \"B04\", \"B08\", \"B11\", \"B12\"], // Blue, Green, Red, NIR, SWIR1, SWIR2\n" +
-            "      units: \"DN\"\n" +
-            "    }],\n" +
-            "    output: [\n" +
-            "      { id: \"ndvi\", bands: 1, sampleType: \"FLOAT32\" },\n" +
-            "      { id: \"evi\", bands: 1, sampleType: \"FLOAT32\" },\n" +
-            "      { id: \"ndwi\", bands: 1, sampleType: \"FLOAT32\" }\n" +
-            "    ]\n" +
-            "  };\n" +
-            "}\n" +
-            "function evaluatePixel(samples) {\n" +
-            "  var blue = samples.B02 / 10000;\n" +
-            "  var green = samples.B03 / 10000;\n" +
-            "  var red = samples.B04 / 10000;\n" +
-            "  var nir = samples.B08 / 10000;\n" +
-            "  var swir1 = samples.B11 / 10000;\n" +
-            "  var swir2 = samples.B12 / 10000;\n" +
-            "  \n" +
-            "  var ndvi = (nir - red) / (nir + red);\n" +
-            "  var evi = 2.5 * ((nir - red) / (nir + 6 * red - 7.5 * blue + 1));\n" +
-            "  var ndwi = (green - nir) / (green + nir);\n" +
-            "  \n" +
-            "  return {\n" +
-            "    ndvi: [Math.max(-1, Math.min(1, ndvi))],\n" +
-            "    evi: [Math.max(-1, Math.min(1, evi))],\n" +
-            "    ndwi: [Math.max(-1, Math.min(1, ndwi))]\n" +
-            "  };\n" +
-            "}";
-        
-        // Request pentru NDVI/EVI/NDWI din Sentinel-2
-        Map<String, Object> requestBody = new HashMap<>();
-        
-        Map<String, Object> input = new HashMap<>();
-        Map<String, Object> bounds = new HashMap<>();
-        bounds.put("bbox", new double[]{minLon, minLat, maxLon, maxLat});
-        bounds.put("properties", Map.of("crs", "http://www.opengis.net/def/crs/EPSG/0/4326"));
-        input.put("bounds", bounds);
+        LocalDate startDate = endDate.minusDays(METRICS_WINDOW_DAYS);
         
-        Map<String, Object> dataSource = new HashMap<>();
-        dataSource.put("type", "sentinel-2-l2a");
-        Map<String, Object> dataFilter = new HashMap<>();
-        Map<String, String> timeRange = new HashMap<>();
-        timeRange.put("from", timeFrom);
-        timeRange.put("to", timeTo);
-        dataFilter.put("timeRange", timeRange);
-        dataSource.put("dataFilter", dataFilter);
-        input.put("data", new Object[]{dataSource});
-        requestBody.put("input", input);
-        
-        Map<String, Object> aggregation = new HashMap<>();
-        Map<String, String> aggTimeRange = new HashMap<>();
-        aggTimeRange.put("from", timeFrom);
-        aggTimeRange.put("to", timeTo);
-        aggregation.put("timeRange", aggTimeRange);
-        aggregation.put("aggregationInterval", Map.of("of", "P1D"));
-        aggregation.put("evalscript", evalscript);
-        requestBody.put("aggregation", aggregation);
-        
-        Map<String, Object> output = new HashMap<>();
-        output.put("width", 1);
-        output.put("height", 1);
-        Map<String, Object> response = new HashMap<>();
-        response.put("identifier", "default");
-        Map<String, String> format = new HashMap<>();
-        format.put("type", "application/json");
-        response.put("format", format);
-        output.put("responses", new Object[]{response});
-        requestBody.put("output", output);
+        SatelliteMetricsCache.Key cacheKey = metricsCache.keyFor(lat, lon, startDate, endDate);
+        SatelliteMetricsDTO cached = metricsCache.get(cacheKey);
+        if (cached != null) {
+            // Cached metrics may come from another location at the same coordinates
+            return syncTimeSeries(locationId, lat, lon, startDate, endDate)
+                    .then(Mono.just(cached))
+                    .doOnNext(metrics -> reportMetricStages(listener));
+        }
         
+        // Concurrent misses for the same cache key share one upstream fetch;
+        // the listener of the caller that started it receives the fine-grained stages
+        AtomicBoolean fetchedHere = new AtomicBoolean();
+        return metricsRequests.execute(cacheKey, () -> {
+                    fetchedHere.set(true);
+                    return fetchSatelliteMetrics(locationId, lat, lon, startDate, endDate, listener)
+                            .doOnNext(metrics -> metricsCache.put(cacheKey, metrics));
+                })
+                .flatMap(metrics -> fetchedHere.get()
+                        ? Mono.just(metrics)
+                        : syncTimeSeries(locationId, lat, lon, startDate, endDate).thenReturn(metrics)) // Joined fetch
+                .map(SatelliteMetricsDTO::new) // Each caller gets its own copy
+                .doOnNext(metrics -> {
+                    // Also covers stages skipped by a fallback or a joined fetch; listeners ignore repeats
+                    reportMetricStages(listener);
+                });
+    }
+    
+    private void reportMetricStages(ReportProgressListener listener) {
+        listener.onStage(ReportStage.SATELLITE);
+        listener.onStage(ReportStage.LST);
+        listener.onStage(ReportStage.WEATHER);
+    }
+    
+    /**
+     * Fetches satellite metrics from Sentinel Hub for the given acquisition window (no caching).
+     * With a location ID, all daily intervals are stored in its time series.
+     */
+    private Mono<SatelliteMetricsDTO> fetchSatelliteMetrics(Long locationId, double lat, double lon,
+                                                            LocalDate startDate, LocalDate endDate,
+                                                            ReportProgressListener listener) {
         try {
-            String requestBodyJson = objectMapper.writeValueAsString(requestBody);
-            
-            // Get NDVI/EVI/NDWI from Sentinel-2
-            Mono<SatelliteMetricsDTO> satelliteMetricsMono = getAccessToken()
-                    .flatMap(accessToken -> {
-                        return webClient.post()
-                                .uri("/api/v1/statistics")
-                                .header("Authorization", "Bearer " + accessToken)
-                                .header("Content-Type", "application/json")
-                                .bodyValue(requestBodyJson)
-                                .retrieve()
-                                .bodyToMono(String.class);
-                    })
-                    .map(responseJson -> {
-                        return parseStatisticalResponse(responseJson, lat, lon);
-                    });
+            // Get NDVI/EVI/NDWI from Sentinel-2; for a stored location only the days not stored yet
+            Mono<SatelliteMetricsDTO> indexMetricsMono = Mono.defer(() -> locationId != null && timeSeriesService != null
+                    ? fetchIncrementalIndexMetrics(locationId, lat, lon, startDate, endDate)
+                    : fetchIndexIntervals(lat, lon, startDate, endDate)
+                            .map(intervals -> toSatelliteMetrics(intervals, lat, lon)));
+            if (rawBandsEnabled) {
+                // Computed from the raster also used for the NDVI image; statistics only as fallback
+                indexMetricsMono = rawBandMetrics(lat, lon).switchIfEmpty(indexMetricsMono);
+            }
+            Mono<SatelliteMetricsDTO> satelliteMetricsMono = indexMetricsMono
+                    .doOnNext(metrics -> listener.onStage(ReportStage.SATELLITE));
             
             // Get LST temperature (Land Surface Temperature) from MODIS
-            Mono<Double> lstTemperatureMono = getLandSurfaceTemperature(lat, lon);
+            Mono<Double> lstTemperatureMono = getLandSurfaceTemperature(lat, lon)
+                    .doOnNext(lst -> listener.onStage(ReportStage.LST));
             
             // Combine both: NDVI/EVI/NDWI + LST + Weather data
             return Mono.zip(satelliteMetricsMono, lstTemperatureMono)
@@ -203,8 +421,8 @@ public class SatelliteDataService {
                         SatelliteMetricsDTO metrics = tuple.getT1();
                         Double lstTemp = tuple.getT2();
                         
-                        // Use LST directly (soil surface temperature)
-                        if (lstTemp != null && lstTemp > -50 && lstTemp < 60) {
+                        // Use LST directly (soil surface temperature); NaN when not available
+                        if (!lstTemp.isNaN() && lstTemp > -50 && lstTemp < 60) {
                             metrics.setTemperature(lstTemp);
                             
                             // Calculate additional metrics based on available satellite data
@@ -227,12 +445,14 @@ public class SatelliteDataService {
                                         System.err.println("Error fetching weather data: " + error.getMessage());
                                         metrics.setTemperature(getTemperatureFromWeatherAPI(lat, lon));
                                         metrics.setPrecipitation(getPrecipitationFromWeatherAPI(lat, lon));
+                                        metrics.setMock(true); // Random fallback values, do not cache
                                         return Mono.just(metrics);
                                     });
                         } else {
                             // Fallback: calculate metrics from available data, or mock if nothing available
                             if (metrics.getTemperature() == 0.0) {
                                 metrics.setTemperature(getTemperatureFromWeatherAPI(lat, lon));
+                                metrics.setMock(true); // Random fallback temperature, do not cache
                             }
                             // Calculate additional metrics from available data
                             calculateAdditionalMetricsFromSatellite(metrics);
@@ -258,173 +478,622 @@ public class SatelliteDataService {
     /**
      * Retrieves Land Surface Temperature (LST) from MODIS Terra/Aqua.
      * MODIS provides thermal data for soil surface temperature.
+     * Emits NaN when LST is not available (reactor does not allow null values).
      */
     private Mono<Double> getLandSurfaceTemperature(double lat, double lon) {
         double buffer = 0.001;
-        double minLon = lon - buffer;
-        double minLat = lat - buffer;
-        double maxLon = lon + buffer;
-        double maxLat = lat + buffer;
-        
+        return getLandSurfaceTemperature(lon - buffer, lat - buffer, lon + buffer, lat + buffer);
+    }
+    
+    /**
+     * Mean LST over a bbox (EPSG:4326). Identical concurrent requests share one upstream call.
+     */
+    private Mono<Double> getLandSurfaceTemperature(double minLon, double minLat, double maxLon, double maxLat) {
         LocalDate endDate = LocalDate.now();
+        LstKey key = new LstKey(Math.round(minLon * 1e6), Math.round(minLat * 1e6),
+                Math.round(maxLon * 1e6), Math.round(maxLat * 1e6), endDate);
+        return lstRequests.execute(key, () -> fetchLandSurfaceTemperature(minLon, minLat, maxLon, maxLat, endDate));
+    }
+    
+    private Mono<Double> fetchLandSurfaceTemperature(double minLon, double minLat, double maxLon, double maxLat,
+                                                     LocalDate endDate) {
         LocalDate startDate = endDate.minusDays(7); // MODIS has daily resolution, use last 7 days
         String timeFrom = startDate.format(DateTimeFormatter.ISO_LOCAL_DATE) + "T00:00:00Z";
         String timeTo = endDate.format(DateTimeFormatter.ISO_LOCAL_DATE) + "T23:59:59Z";
         
-        // Eval script for LST from MODIS
-        String lstScript = 
-            "//VERSION=3\n" +
-            "function setup() {\n" +
-            "  return {\n" +
-            "    input: [{\n" +
-            "      bands: [\"LST\"], // MODIS Land Surface Temperature band\n" +
-            "      units: \"K\" // Kelvin\n" +
-            "    }],\n" +
-            "    output: [\n" +
-            "      { id: \"lst\", bands: 1, sampleType: \"FLOAT32\" }\n" +
-            "    ]\n" +
-            "  };\n" +
-            "}\n" +
-            "function evaluatePixel(samples) {\n" +
-            "  // LST is in Kelvin, convert to Celsius\n" +
-            "  var lstKelvin = samples.LST * 0.02 - 273.15; // Scale factor 0.02 for MODIS\n" +
-            "  return {\n" +
-            "    lst: [lstKelvin]\n" +
-            "  };\n" +
-            "}";
-        
-        Map<String, Object> requestBody = new HashMap<>();
-        
-        Map<String, Object> input = new HashMap<>();
-        Map<String, Object> bounds = new HashMap<>();
-        bounds.put("bbox", new double[]{minLon, minLat, maxLon, maxLat});
-        bounds.put("properties", Map.of("crs", "http://www.opengis.net/def/crs/EPSG/0/4326"));
-        input.put("bounds", bounds);
-        
-        Map<String, Object> dataSource = new HashMap<>();
-        dataSource.put("type", "modis");
-        Map<String, Object> dataFilter = new HashMap<>();
-        Map<String, String> timeRange = new HashMap<>();
-        timeRange.put("from", timeFrom);
-        timeRange.put("to", timeTo);
-        dataFilter.put("timeRange", timeRange);
-        dataSource.put("dataFilter", dataFilter);
-        input.put("data", new Object[]{dataSource});
-        requestBody.put("input", input);
-        
-        Map<String, Object> aggregation = new HashMap<>();
-        Map<String, String> aggTimeRange = new HashMap<>();
-        aggTimeRange.put("from", timeFrom);
-        aggTimeRange.put("to", timeTo);
-        aggregation.put("timeRange", aggTimeRange);
-        aggregation.put("aggregationInterval", Map.of("of", "P1D"));
-        aggregation.put("evalscript", lstScript);
-        requestBody.put("aggregation", aggregation);
-        
-        Map<String, Object> output = new HashMap<>();
-        output.put("width", 1);
-        output.put("height", 1);
-        Map<String, Object> response = new HashMap<>();
-        response.put("identifier", "default");
-        Map<String, String> format = new HashMap<>();
-        format.put("type", "application/json");
-        response.put("format", format);
-        output.put("responses", new Object[]{response});
-        requestBody.put("output", output);
-        
         try {
-            String requestBodyJson = objectMapper.writeValueAsString(requestBody);
+            String requestBodyJson = SentinelHubRequests.LST_STATISTICS.render(
+                    RequestTemplate.Params.of(minLon, minLat, maxLon, maxLat, timeFrom, timeTo));
             
             return getAccessToken()
-                    .flatMap(accessToken -> {
+                    .flatMapMany(accessToken -> {
                         return webClient.post()
                                 .uri("/api/v1/statistics")
                                 .header("Authorization", "Bearer " + accessToken)
                 .header("Content-Type", "application/json")
                                 .bodyValue(requestBodyJson)
                 .retrieve()
-                .bodyToMono(String.class);
+                .bodyToFlux(DataBuffer.class);
                     })
-                    .map(responseJson -> {
-                        // Parse response for LST
-                        SatelliteDataDTO data;
-                        try {
-                            data = objectMapper.readValue(responseJson, SatelliteDataDTO.class);
-                        } catch (Exception e) {
-                            System.err.println("Error parsing LST response: " + e.getMessage());
-                            return null;
-                        }
-                        
-                        if (data.getData() != null && !data.getData().isEmpty()) {
-                            SatelliteDataDTO.TimeSeriesData latestData = data.getData().get(data.getData().size() - 1);
-                            if (latestData.getOutputs() != null && latestData.getOutputs().containsKey("lst")) {
-                                SatelliteDataDTO.OutputValue lstOutput = latestData.getOutputs().get("lst");
-                                if (lstOutput.getStats() != null && lstOutput.getStats().getMean() != null) {
-                                    return lstOutput.getStats().getMean();
-                                }
+                    .as(body -> StatisticsResponseParser.parse(body, "lst"))
+                    .map(intervals -> {
+                        // Latest interval
+                        if (!intervals.isEmpty()) {
+                            StatisticsResponseParser.Stats lst = intervals.get(intervals.size() - 1).output(0);
+                            if (lst != null && lst.hasMean()) {
+                                return lst.mean();
                             }
                         }
-                        return null;
+                        return Double.NaN;
                     })
                     .onErrorResume(error -> {
                         System.err.println("Error fetching LST from MODIS: " + error.getMessage());
-                        return Mono.just((Double) null); // Return null if cannot get LST
+                        return Mono.just(Double.NaN); // NaN if cannot get LST
                     });
         } catch (Exception e) {
             System.err.println("Error building LST request: " + e.getMessage());
-            return Mono.just((Double) null);
+            return Mono.just(Double.NaN);
         }
     }
     
     /**
-     * Parsează răspunsul de la Statistical API și extrage metricile
+     * LST request key: bbox in micro-degrees and the end of the 7-day window.
      */
-    private SatelliteMetricsDTO parseStatisticalResponse(String response, double lat, double lon) {
-        try {
-            SatelliteDataDTO data = objectMapper.readValue(response, SatelliteDataDTO.class);
-            
-            if (data.getData() != null && !data.getData().isEmpty()) {
-                // Get latest available data (most recent)
-                SatelliteDataDTO.TimeSeriesData latestData = data.getData().get(data.getData().size() - 1);
-                
-                if (latestData.getOutputs() != null) {
-                    SatelliteMetricsDTO metrics = new SatelliteMetricsDTO();
-                    
-                    // Extrage NDVI
-                    if (latestData.getOutputs().containsKey("ndvi")) {
-                        SatelliteDataDTO.OutputValue ndviOutput = latestData.getOutputs().get("ndvi");
-                        if (ndviOutput.getStats() != null && ndviOutput.getStats().getMean() != null) {
-                            metrics.setNdvi(ndviOutput.getStats().getMean());
-                        }
+    private record LstKey(long minLon, long minLat, long maxLon, long maxLat, LocalDate endDate) {
+    }
+    
+    /**
+     * Upstream calls saved by coalescing identical concurrent metrics and LST requests.
+     */
+    public Map<String, Object> getCoalescingStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("metrics", metricsRequests.getStats());
+        stats.put("lst", lstRequests.getStats());
+        return stats;
+    }
+    
+    /**
+     * Daily NDVI/EVI/NDWI statistics around a point for the given days (Statistical API, P1D).
+     */
+    private Mono<List<StatisticsResponseParser.Interval>> fetchIndexIntervals(double lat, double lon,
+                                                                              LocalDate from, LocalDate to) {
+        // Define small area around coordinates (buffer ~100m)
+        double buffer = 0.001; // ~100m
+        String timeFrom = from.format(DateTimeFormatter.ISO_LOCAL_DATE) + "T00:00:00Z";
+        String timeTo = to.format(DateTimeFormatter.ISO_LOCAL_DATE) + "T23:59:59Z";
+        String requestBodyJson = SentinelHubRequests.INDICES_STATISTICS.render(
+                RequestTemplate.Params.of(lon - buffer, lat - buffer, lon + buffer, lat + buffer, timeFrom, timeTo));
+        seriesDaysRequested.addAndGet(ChronoUnit.DAYS.between(from, to) + 1);
+        
+        return getAccessToken()
+                .flatMapMany(accessToken -> webClient.post()
+                        .uri("/api/v1/statistics")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .header("Content-Type", "application/json")
+                        .bodyValue(requestBodyJson)
+                        .retrieve()
+                        .bodyToFlux(DataBuffer.class))
+                .as(body -> StatisticsResponseParser.parse(body, INDEX_OUTPUTS));
+    }
+    
+    /**
+     * Index metrics of a stored location, fetching only the days after its stored series
+     * (the last stored day is requested again, it may have been incomplete) and merging them in.
+     * The scene is the most recent clear day of the delta; when the delta has none (empty or
+     * cloudy), it is selected from the stored window, which already includes the delta.
+     */
+    private Mono<SatelliteMetricsDTO> fetchIncrementalIndexMetrics(Long locationId, double lat, double lon,
+                                                                   LocalDate startDate, LocalDate endDate) {
+        return timeSeriesService.getFetchedThrough(locationId)
+                .onErrorResume(error -> {
+                    System.err.println("Error reading time series state for location " + locationId + ": " + error.getMessage());
+                    return Mono.empty();
+                })
+                .filter(fetchedThrough -> fetchedThrough.isAfter(startDate))
+                .map(fetchedThrough -> fetchedThrough.isAfter(endDate) ? endDate : fetchedThrough)
+                .defaultIfEmpty(startDate)
+                .flatMap(fetchFrom -> {
+                    if (fetchFrom.isAfter(startDate)) {
+                        seriesDeltaFetches.incrementAndGet();
+                        seriesDaysSkipped.addAndGet(ChronoUnit.DAYS.between(startDate, fetchFrom));
+                    } else {
+                        seriesFullFetches.incrementAndGet();
                     }
-                    
-                    // Extrage EVI
-                    if (latestData.getOutputs().containsKey("evi")) {
-                        SatelliteDataDTO.OutputValue eviOutput = latestData.getOutputs().get("evi");
-                        if (eviOutput.getStats() != null && eviOutput.getStats().getMean() != null) {
-                            metrics.setEvi(eviOutput.getStats().getMean());
-                        }
+                    return fetchIndexIntervals(lat, lon, fetchFrom, endDate);
+                })
+                .flatMap(intervals -> storeTimeSeries(locationId, intervals, endDate)
+                        .then(Mono.defer(() -> {
+                            List<SatelliteScenes.Scene> delta = toScenes(intervals);
+                            SatelliteScenes.Selection selection = SatelliteScenes.select(delta, minValidFraction);
+                            if (selection.scene() != null && !selection.belowThreshold()) {
+                                return Mono.just(toSatelliteMetrics(selection, lat, lon));
+                            }
+                            return storedSceneMetrics(locationId, startDate, endDate, lat, lon, delta);
+                        })));
+    }
+    
+    /**
+     * Stores the days missing from a location's series when its metrics were not fetched for it
+     * (metrics cache hit, or a joined fetch for the same coordinates). No upstream request when the
+     * series is already stored through the end of the window; errors never fail the metrics request.
+     */
+    private Mono<Void> syncTimeSeries(Long locationId, double lat, double lon, LocalDate startDate, LocalDate endDate) {
+        if (locationId == null || timeSeriesService == null) {
+            return Mono.empty();
+        }
+        return seriesSyncs.execute(locationId, () -> timeSeriesService.getFetchedThrough(locationId)
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                        .flatMap(fetchedThrough -> {
+                            if (fetchedThrough.isPresent() && !fetchedThrough.get().isBefore(endDate)) {
+                                return Mono.just(false);
+                            }
+                            LocalDate fetchFrom = fetchedThrough.filter(date -> date.isAfter(startDate)).orElse(startDate);
+                            seriesSyncFetches.incrementAndGet();
+                            seriesDaysSkipped.addAndGet(ChronoUnit.DAYS.between(startDate, fetchFrom));
+                            return fetchIndexIntervals(lat, lon, fetchFrom, endDate)
+                                    .flatMap(intervals -> storeTimeSeries(locationId, intervals, endDate))
+                                    .thenReturn(true);
+                        }))
+                .onErrorResume(error -> {
+                    System.err.println("Error syncing time series for location " + locationId + ": " + error.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+    
+    /**
+     * Keeps the daily intervals of a location and advances its fetched-through date;
+     * storage errors never fail the metrics request.
+     */
+    private Mono<Void> storeTimeSeries(Long locationId, List<StatisticsResponseParser.Interval> intervals,
+                                       LocalDate fetchedThrough) {
+        return timeSeriesService.storeIntervals(locationId, intervals)
+                .then(timeSeriesService.markFetchedThrough(locationId, fetchedThrough))
+                .onErrorResume(error -> {
+                    System.err.println("Error storing time series for location " + locationId + ": " + error.getMessage());
+                    return Mono.empty();
+                });
+    }
+    
+    /**
+     * Best scene of the stored window; falls back to the delta when storage cannot be read.
+     */
+    private Mono<SatelliteMetricsDTO> storedSceneMetrics(Long locationId, LocalDate startDate, LocalDate endDate,
+                                                         double lat, double lon, List<SatelliteScenes.Scene> delta) {
+        return timeSeriesService.getSeries(locationId, startDate, endDate)
+                .map(observations -> {
+                    List<SatelliteScenes.Scene> scenes = new ArrayList<>(observations.size());
+                    for (SatelliteObservation observation : observations) {
+                        scenes.add(SatelliteScenes.of(observation));
                     }
-                    
-                    // Extrage NDWI
-                    if (latestData.getOutputs().containsKey("ndwi")) {
-                        SatelliteDataDTO.OutputValue ndwiOutput = latestData.getOutputs().get("ndwi");
-                        if (ndwiOutput.getStats() != null && ndwiOutput.getStats().getMean() != null) {
-                            metrics.setNdwi(ndwiOutput.getStats().getMean());
-                        }
+                    return scenes;
+                })
+                .onErrorResume(error -> {
+                    System.err.println("Error reading time series for location " + locationId + ": " + error.getMessage());
+                    return Mono.just(delta);
+                })
+                .map(scenes -> toSatelliteMetrics(SatelliteScenes.select(scenes, minValidFraction), lat, lon));
+    }
+    
+    /**
+     * Days requested from the Statistical API vs. days skipped because they were already stored.
+     */
+    public Map<String, Object> getTimeSeriesFetchStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("fullFetches", seriesFullFetches.get());
+        stats.put("deltaFetches", seriesDeltaFetches.get());
+        stats.put("syncFetches", seriesSyncFetches.get());
+        stats.put("daysRequested", seriesDaysRequested.get());
+        stats.put("daysSkipped", seriesDaysSkipped.get());
+        return stats;
+    }
+    
+    /**
+     * Scenes used for metrics vs. newer days skipped because they were too cloudy.
+     */
+    public Map<String, Object> getSceneSelectionStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("minValidFraction", minValidFraction);
+        stats.put("scenesSelected", scenesSelected.get());
+        stats.put("cloudyScenesSkipped", cloudyScenesSkipped.get());
+        stats.put("scenesBelowThreshold", scenesBelowThreshold.get());
+        stats.put("noClearScene", noClearScene.get());
+        return stats;
+    }
+    
+    private static List<SatelliteScenes.Scene> toScenes(List<StatisticsResponseParser.Interval> intervals) {
+        List<SatelliteScenes.Scene> scenes = new ArrayList<>(intervals.size());
+        for (StatisticsResponseParser.Interval interval : intervals) {
+            scenes.add(SatelliteScenes.of(interval));
+        }
+        return scenes;
+    }
+    
+    /**
+     * Extrage metricile din cea mai recentă scenă fără nori a răspunsului Statistical API
+     */
+    private SatelliteMetricsDTO toSatelliteMetrics(List<StatisticsResponseParser.Interval> intervals, double lat, double lon) {
+        return toSatelliteMetrics(SatelliteScenes.select(toScenes(intervals), minValidFraction), lat, lon);
+    }
+    
+    private SatelliteMetricsDTO toSatelliteMetrics(SatelliteScenes.Selection selection, double lat, double lon) {
+        SatelliteScenes.Scene scene = selection.scene();
+        if (scene == null) {
+            // Fallback to mock if no day of the window has a valid pixel
+            noClearScene.incrementAndGet();
+            return createMockMetrics(lat, lon);
+        }
+        scenesSelected.incrementAndGet();
+        cloudyScenesSkipped.addAndGet(selection.cloudySkipped());
+        if (selection.belowThreshold()) {
+            scenesBelowThreshold.incrementAndGet();
+        }
+        // Temperature and precipitation will be set later in flatMap
+        return sceneMetrics(scene);
+    }
+    
+    /**
+     * Metrics of the scene selected from stored daily observations (oldest first), e.g. the
+     * acquisition window before a past report. Additional metrics are derived with the given
+     * temperature, like for a fresh fetch.
+     * @return null if no day of the window has a valid pixel
+     */
+    public SatelliteMetricsDTO metricsFromObservations(List<SatelliteObservation> observations, Double temperature) {
+        List<SatelliteScenes.Scene> scenes = new ArrayList<>(observations.size());
+        for (SatelliteObservation observation : observations) {
+            scenes.add(SatelliteScenes.of(observation));
+        }
+        SatelliteScenes.Scene scene = SatelliteScenes.select(scenes, minValidFraction).scene();
+        if (scene == null) {
+            return null;
+        }
+        SatelliteMetricsDTO metrics = sceneMetrics(scene);
+        if (temperature != null) {
+            metrics.setTemperature(temperature);
+        }
+        calculateAdditionalMetricsFromSatellite(metrics);
+        return metrics;
+    }
+    
+    private static SatelliteMetricsDTO sceneMetrics(SatelliteScenes.Scene scene) {
+        SatelliteMetricsDTO metrics = new SatelliteMetricsDTO();
+        metrics.setNdvi(scene.ndvi());
+        if (!Double.isNaN(scene.evi())) {
+            metrics.setEvi(scene.evi());
+        }
+        if (!Double.isNaN(scene.ndwi())) {
+            metrics.setNdwi(scene.ndwi());
+        }
+        if (scene.date() != null) {
+            metrics.setSceneDate(scene.date().toString());
+        }
+        if (!Double.isNaN(scene.validFraction())) {
+            metrics.setValidPixelFraction(scene.validFraction());
+            metrics.setCloudCover(scene.cloudCoverPercent());
+        }
+        return metrics;
+    }
+    
+    /**
+     * Index metrics from the raw-band raster of the NDVI image bbox around the point, so the image
+     * request that usually follows (at any size) reuses the stored raster.
+     * Completes empty when the window is too cloudy or the raster cannot be fetched, leaving
+     * the metrics to the Statistical API path (which also keeps the stored time series up to date).
+     */
+    private Mono<SatelliteMetricsDTO> rawBandMetrics(double lat, double lon) {
+        double buffer = NDVI_IMAGE_BUFFER;
+        return getRawBandRaster(lon - buffer, lat - buffer, lon + buffer, lat + buffer, null)
+                .publishOn(Schedulers.parallel())
+                .flatMap(raster -> {
+                    long start = System.nanoTime();
+                    BandIndexKernel.IndexStats stats = BandIndexKernel.stats(raster, lat, lon, 0.001); // ~100m field window
+                    rawBandKernelMs.addAndGet((System.nanoTime() - start) / 1_000_000);
+                    if (!stats.ndvi().hasMean() || !(stats.validFraction() >= minValidFraction)) {
+                        rawBandFallbacks.incrementAndGet();
+                        return Mono.<SatelliteMetricsDTO>empty();
                     }
-                    
-                    // Temperature and precipitation will be set later in flatMap
-                    
-                    return metrics;
-                }
+                    rawBandMetricsServed.incrementAndGet();
+                    SatelliteScenes.Scene scene = new SatelliteScenes.Scene(null, stats.ndvi().mean(),
+                            stats.evi().mean(), stats.ndwi().mean(), stats.validFraction());
+                    return Mono.just(toSatelliteMetrics(new SatelliteScenes.Selection(scene, 0, false), lat, lon));
+                })
+                .onErrorResume(error -> {
+                    System.err.println("Error computing indices from raw bands: " + error.getMessage());
+                    rawBandFallbacks.incrementAndGet();
+                    return Mono.empty();
+                });
+    }
+    
+    /**
+     * Raw band raster of a bbox (native 10m resolution) for an acquisition, or for the latest one
+     * when {@code acquisitionDate} is null (Catalog API, remembered per bbox).
+     * Served memory-mapped from the {@link BandRasterStore}; only a raster not stored yet is
+     * downloaded (most recent scene of the lookback window up to the acquisition), and identical
+     * concurrent downloads are shared. Completes empty when there is no acquisition.
+     */
+    public Mono<BandRaster> getRawBandRaster(double minLon, double minLat, double maxLon, double maxLat,
+                                             LocalDate acquisitionDate) {
+        Mono<LocalDate> acquisition = acquisitionDate != null
+                ? Mono.just(acquisitionDate)
+                : latestRawBandAcquisition(minLon, minLat, maxLon, maxLat);
+        return acquisition.flatMap(date -> {
+            BandRasterStore.Key key = BandRasterStore.Key.of(minLon, minLat, maxLon, maxLat, date);
+            BandRaster stored = bandRasterStore.get(key);
+            if (stored != null) {
+                return Mono.just(stored);
             }
-        } catch (Exception e) {
-            System.err.println("Error parsing satellite data response: " + e.getMessage());
+            return rawBandRequests.execute(key, () -> downloadRawBandRaster(key, minLon, minLat, maxLon, maxLat));
+        });
+    }
+    
+    private Mono<LocalDate> latestRawBandAcquisition(double minLon, double minLat, double maxLon, double maxLat) {
+        RawBandBbox bbox = new RawBandBbox(Math.round(minLon * 1e6), Math.round(minLat * 1e6),
+                Math.round(maxLon * 1e6), Math.round(maxLat * 1e6));
+        synchronized (rawBandAcquisitions) {
+            RawBandAcquisition cached = rawBandAcquisitions.get(bbox);
+            if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+                return Mono.just(cached.date());
+            }
+        }
+        rawBandAcquisitionLookups.incrementAndGet();
+        return getLatestAcquisitionDate((minLat + maxLat) / 2, (minLon + maxLon) / 2, rawBandsLookbackDays)
+                .doOnNext(date -> {
+                    synchronized (rawBandAcquisitions) {
+                        rawBandAcquisitions.put(bbox, new RawBandAcquisition(date,
+                                System.currentTimeMillis() + rawBandsAcquisitionTtlMinutes * 60_000L));
+                    }
+                });
+    }
+    
+    private Mono<BandRaster> downloadRawBandRaster(BandRasterStore.Key key, double minLon, double minLat,
+                                                   double maxLon, double maxLat) {
+        int[] size = rawBandRasterSize(minLon, minLat, maxLon, maxLat);
+        String requestBodyJson = SentinelHubRequests.RAW_BANDS.render(new RequestTemplate.Params(
+                minLon, minLat, maxLon, maxLat,
+                key.acquisitionDate().minusDays(rawBandsLookbackDays).format(DateTimeFormatter.ISO_LOCAL_DATE) + "T00:00:00Z",
+                key.acquisitionDate().format(DateTimeFormatter.ISO_LOCAL_DATE) + "T23:59:59Z", size[0], size[1]));
+        return getAccessToken()
+                .flatMap(accessToken -> {
+                    rawBandDownloads.incrementAndGet();
+                    return webClient.post()
+                            .uri("/api/v1/process")
+                            .header("Authorization", "Bearer " + accessToken)
+                            .header("Content-Type", "application/json")
+                            .header("Accept", "image/tiff")
+                            .bodyValue(requestBodyJson)
+                            .retrieve()
+                            .bodyToMono(byte[].class);
+                })
+                // Decoding and the file write, kept off the HTTP client threads
+                .publishOn(Schedulers.boundedElastic())
+                .map(tiff -> {
+                    try {
+                        return bandRasterStore.put(key, BandRaster.decode(tiff, minLon, minLat, maxLon, maxLat));
+                    } catch (Exception e) {
+                        throw new IllegalStateException("Error storing raw band raster: " + e.getMessage(), e);
+                    }
+                });
+    }
+    
+    /**
+     * Raster width and height at the 10m native resolution of the bands, at least one pixel.
+     */
+    private static int[] rawBandRasterSize(double minLon, double minLat, double maxLon, double maxLat) {
+        double midLat = Math.toRadians((minLat + maxLat) / 2);
+        int width = (int) Math.max(1, Math.ceil((maxLon - minLon) * 111_320 * Math.cos(midLat) / 10));
+        int height = (int) Math.max(1, Math.ceil((maxLat - minLat) * 110_540 / 10));
+        return new int[]{width, height};
+    }
+    
+    private record RawBandBbox(long minLon, long minLat, long maxLon, long maxLat) {
+    }
+    
+    private record RawBandAcquisition(LocalDate date, long expiresAt) {
+    }
+    
+    /**
+     * Raw-band mode: raster downloads vs. metrics and images computed from stored rasters.
+     */
+    public Map<String, Object> getRawBandStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", rawBandsEnabled);
+        stats.put("downloads", rawBandDownloads.get());
+        stats.put("acquisitionLookups", rawBandAcquisitionLookups.get());
+        stats.put("metricsServed", rawBandMetricsServed.get());
+        stats.put("imagesServed", rawBandImagesServed.get());
+        stats.put("fallbacks", rawBandFallbacks.get());
+        stats.put("kernelMs", rawBandKernelMs.get());
+        if (bandRasterStore != null) {
+            stats.put("store", bandRasterStore.getStats());
         }
+        stats.put("coalescing", rawBandRequests.getStats());
+        return stats;
+    }
+    
+    /**
+     * Fetches metrics for many locations with few upstream requests.
+     * Locations are grouped by grid cell (satellite.batch-stats.cell-degrees); each group costs
+     * one Process API request (an NDVI/EVI/NDWI raster over the group's bbox, split back into
+     * per-location means) and one MODIS LST request, instead of two requests per location.
+     * Results go into the metrics cache, so the following getSatelliteMetrics calls are cache hits.
+     * Groups that fail are left out and fall back to the per-location path.
+     * 
+     * @return metrics per location ID (cached or freshly fetched)
+     */
+    public Mono<Map<Long, SatelliteMetricsDTO>> prefetchSatelliteMetrics(Collection<Location> locations) {
+        LocalDate endDate = LocalDate.now();
+        LocalDate startDate = endDate.minusDays(METRICS_WINDOW_DAYS);
+        
+        Map<Long, SatelliteMetricsDTO> result = new LinkedHashMap<>();
+        Map<Long, Location> byId = new HashMap<>();
+        Map<String, List<Location>> groups = new LinkedHashMap<>();
+        for (Location location : locations) {
+            byId.put(location.getId(), location);
+            SatelliteMetricsDTO cached = metricsCache.get(
+                    metricsCache.keyFor(location.getLatitude(), location.getLongitude(), startDate, endDate));
+            if (cached != null) {
+                result.put(location.getId(), cached);
+                continue;
+            }
+            String cell = (long) Math.floor(location.getLatitude() / batchCellDegrees) + ":" +
+                    (long) Math.floor(location.getLongitude() / batchCellDegrees);
+            groups.computeIfAbsent(cell, key -> new ArrayList<>()).add(location);
+        }
+        if (groups.isEmpty()) {
+            return Mono.just(result);
+        }
+        
+        return Flux.fromIterable(groups.values())
+                .flatMap(group -> fetchGroupMetrics(group, startDate, endDate), Math.max(1, batchConcurrency))
+                .doOnNext(groupMetrics -> groupMetrics.forEach((locationId, metrics) -> {
+                    Location location = byId.get(locationId);
+                    metricsCache.put(metricsCache.keyFor(location.getLatitude(), location.getLongitude(), startDate, endDate), metrics);
+                    result.put(locationId, new SatelliteMetricsDTO(metrics));
+                }))
+                .then(Mono.fromSupplier(() -> result));
+    }
+    
+    /**
+     * One Process API raster + one LST request for a group of nearby locations.
+     * @return metrics per location ID
+     */
+    private Mono<Map<Long, SatelliteMetricsDTO>> fetchGroupMetrics(List<Location> group, LocalDate startDate, LocalDate endDate) {
+        double buffer = 0.001; // Same ~100m window as the single-location statistics request
+        double minLon = Double.MAX_VALUE, minLat = Double.MAX_VALUE;
+        double maxLon = -Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+        for (Location location : group) {
+            minLon = Math.min(minLon, location.getLongitude() - buffer);
+            maxLon = Math.max(maxLon, location.getLongitude() + buffer);
+            minLat = Math.min(minLat, location.getLatitude() - buffer);
+            maxLat = Math.max(maxLat, location.getLatitude() + buffer);
+        }
+        // ~10m pixels (Sentinel-2 native resolution), capped at the Process API limit
+        double midLat = Math.toRadians((minLat + maxLat) / 2);
+        int width = (int) Math.max(1, Math.min(2500, Math.ceil((maxLon - minLon) * 111_320 * Math.cos(midLat) / 10)));
+        int height = (int) Math.max(1, Math.min(2500, Math.ceil((maxLat - minLat) * 110_540 / 10)));
+        
+        String timeFrom = startDate.format(DateTimeFormatter.ISO_LOCAL_DATE) + "T00:00:00Z";
+        String timeTo = endDate.format(DateTimeFormatter.ISO_LOCAL_DATE) + "T23:59:59Z";
+        
+        String requestBodyJson = SentinelHubRequests.ENCODED_INDICES_IMAGE.render(
+                new RequestTemplate.Params(minLon, minLat, maxLon, maxLat, timeFrom, timeTo, width, height));
+        
+        double bboxMinLon = minLon, bboxMinLat = minLat, bboxMaxLon = maxLon, bboxMaxLat = maxLat;
+        batchLocationsRequested.addAndGet(group.size());
+        batchGroups.incrementAndGet();
+        batchUpstreamRequests.addAndGet(2);
+        
+        Mono<EncodedIndexRaster> rasterMono = getAccessToken()
+                .flatMap(accessToken -> webClient.post()
+                        .uri("/api/v1/process")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .header("Content-Type", "application/json")
+                        .header("Accept", "image/png")
+                        .bodyValue(requestBodyJson)
+                        .retrieve()
+                        .bodyToMono(byte[].class))
+                .map(png -> {
+                    try {
+                        return EncodedIndexRaster.decode(png, bboxMinLon, bboxMinLat, bboxMaxLon, bboxMaxLat);
+                    } catch (Exception e) {
+                        throw new IllegalStateException("Error decoding multi-location raster: " + e.getMessage(), e);
+                    }
+                });
         
-        // Fallback to mock if parsing fails
-        return createMockMetrics(lat, lon);
+        return Mono.zip(rasterMono, getLandSurfaceTemperature(minLon, minLat, maxLon, maxLat))
+                .map(tuple -> {
+                    EncodedIndexRaster raster = tuple.getT1();
+                    double lst = tuple.getT2();
+                    Map<Long, SatelliteMetricsDTO> groupMetrics = new LinkedHashMap<>();
+                    if (Double.isNaN(lst) || lst <= -50 || lst >= 60) {
+                        return groupMetrics; // No usable LST: leave these to the per-location path
+                    }
+                    for (Location location : group) {
+                        double[] means = raster.meanAround(location.getLatitude(), location.getLongitude(), buffer);
+                        if (means == null) {
+                            continue;
+                        }
+                        SatelliteMetricsDTO metrics = new SatelliteMetricsDTO();
+                        metrics.setNdvi(means[0]);
+                        metrics.setEvi(means[1]);
+                        metrics.setNdwi(means[2]);
+                        metrics.setTemperature(lst);
+                        calculateAdditionalMetricsFromSatellite(metrics);
+                        groupMetrics.put(location.getId(), metrics);
+                    }
+                    batchLocationsServed.addAndGet(groupMetrics.size());
+                    return groupMetrics;
+                })
+                .onErrorResume(error -> {
+                    System.err.println("Error fetching multi-location metrics (" + group.size() + " locations): " + error.getMessage());
+                    return Mono.empty();
+                });
+    }
+    
+    /**
+     * Upstream-call accounting for grouped (multi-location) requests.
+     * Per-location fetching would cost two requests (statistics + LST) per location.
+     */
+    public Map<String, Object> getBatchStats() {
+        long served = batchLocationsServed.get();
+        long upstream = batchUpstreamRequests.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("locationsRequested", batchLocationsRequested.get());
+        stats.put("locationsServed", served);
+        stats.put("groups", batchGroups.get());
+        stats.put("upstreamRequests", upstream);
+        stats.put("perLocationEquivalentRequests", served * 2);
+        stats.put("upstreamRequestsSaved", Math.max(0, served * 2 - upstream));
+        return stats;
+    }
+    
+    /**
+     * Date of the most recent Sentinel-2 L2A acquisition covering the location
+     * in the last {@code lookbackDays}, via the Catalog API (one cheap request, no processing units).
+     * Completes empty when there is no acquisition or the lookup fails.
+     */
+    public Mono<LocalDate> getLatestAcquisitionDate(double lat, double lon, int lookbackDays) {
+        double buffer = 0.001;
+        LocalDate endDate = LocalDate.now();
+        LocalDate startDate = endDate.minusDays(lookbackDays);
+        
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("collections", new String[]{"sentinel-2-l2a"});
+        requestBody.put("bbox", new double[]{lon - buffer, lat - buffer, lon + buffer, lat + buffer});
+        requestBody.put("datetime", startDate.format(DateTimeFormatter.ISO_LOCAL_DATE) + "T00:00:00Z/"
+                + endDate.format(DateTimeFormatter.ISO_LOCAL_DATE) + "T23:59:59Z");
+        requestBody.put("distinct", "date");
+        requestBody.put("limit", 100);
+        
+        return getAccessToken()
+                .flatMap(accessToken -> webClient.post()
+                        .uri("/api/v1/catalog/1.0.0/search")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .header("Content-Type", "application/json")
+                        .bodyValue(requestBody)
+                        .retrieve()
+                        .bodyToMono(String.class))
+                .flatMap(responseJson -> {
+                    try {
+                        // With distinct=date, features is a plain list of "yyyy-MM-dd" strings
+                        LocalDate latest = null;
+                        for (JsonNode feature : objectMapper.readTree(responseJson).path("features")) {
+                            LocalDate date = LocalDate.parse(feature.asText());
+                            if (latest == null || date.isAfter(latest)) {
+                                latest = date;
+                            }
+                        }
+                        return Mono.justOrEmpty(latest);
+                    } catch (Exception e) {
+                        System.err.println("Error parsing catalog response: " + e.getMessage());
+                        return Mono.empty();
+                    }
+                })
+                .onErrorResume(error -> {
+                    System.err.println("Error querying Sentinel Hub catalog: " + error.getMessage());
+                    return Mono.empty();
+                });
     }
     
     /**
@@ -449,12 +1118,14 @@ public class SatelliteDataService {
         double evapotranspiration = Math.max(0, Math.min(10, ndvi * 5.0 + (lst > 20 ? (lst - 20) * 0.2 : 0)));
         metrics.setEvapotranspiration(evapotranspiration);
         
-        // 3. Cloud Cover - estimated from difference between NDVI and EVI
+        // 3. Cloud Cover - measured from the SCL mask of the selected scene when available;
+        // otherwise estimated from difference between NDVI and EVI
         // EVI is more robust to clouds, large difference indicates cloud cover
-        // Normalize to percentage (0-100%)
-        double ndviEviDiff = Math.abs(ndvi - evi);
-        double cloudCover = Math.min(100, ndviEviDiff * 150.0); // Adjustment to get real percentages
-        metrics.setCloudCover(cloudCover);
+        if (metrics.getValidPixelFraction() == null) {
+            double ndviEviDiff = Math.abs(ndvi - evi);
+            double cloudCover = Math.min(100, ndviEviDiff * 150.0); // Adjustment to get real percentages
+            metrics.setCloudCover(cloudCover);
+        }
         
         // 4. Estimated precipitation - derived from NDWI and NDVI changes
         // High NDWI + recent NDVI decrease = recent precipitation
@@ -492,154 +1163,83 @@ public class SatelliteDataService {
         );
         // Calculate additional metrics from mock values
         calculateAdditionalMetricsFromSatellite(metrics);
+        metrics.setMock(true);
         return metrics;
     }
     
     /**
-     * Generează o imagine NDVI colorată pentru o locație
-     * Folosește Sentinel Hub Process API pentru a genera o imagine PNG
+     * Colored NDVI PNG for a bbox (Process API), streamed as it arrives; errors are propagated,
+     * no mock fallback. Subscribers must release the buffers.
+     * With an acquisition date, the most recent scene of the {@code lookbackDays} up to that date
+     * is rendered, so the same arguments always describe the same image.
+     * In raw-band mode the image is rendered from the stored raw-band raster of the bbox and
+     * acquisition (the latest one without an acquisition date), shared with the metrics of the field.
      */
-    public Mono<byte[]> generateNDVIImage(double lat, double lon, int width, int height) {
-        // Buffer pentru zona de interes (mai mare pentru imagine)
-        double buffer = 0.005; // ~500m
-        double minLon = lon - buffer;
-        double minLat = lat - buffer;
-        double maxLon = lon + buffer;
-        double maxLat = lat + buffer;
-        
-        // Eval script for generating colored NDVI image
-        String evalscript = 
-            "//VERSION=3\n" +
-            "function setup() {\n" +
-            "  return {\n" +
-            "    input: [{\n" +
-            "      bands: [\"B04\", \"B08\"], // Red, NIR\n" +
-            "      units: \"DN\"\n" +
-            "    }],\n" +
-            "    output: {\n" +
-            "      bands: 3, // RGB\n" +
-            "      sampleType: \"UINT8\"\n" +
-            "    }\n" +
-            "  };\n" +
-            "}\n" +
-            "function evaluatePixel(samples) {\n" +
-            "  var red = samples.B04 / 10000;\n" +
-            "  var nir = samples.B08 / 10000;\n" +
-            "  var ndvi = (nir - red) / (nir + red);\n" +
-            "  \n" +
-            "  // Color NDVI: red for negative/low values, green for positive/high values\n" +
-            "  var r, g, b;\n" +
-            "  if (ndvi < 0) {\n" +
-            "    r = 255; g = 0; b = 0; // Red for water/bare soil\n" +
-            "  } else if (ndvi < 0.2) {\n" +
-            "    r = 255; g = 165; b = 0; // Orange for very weak vegetation\n" +
-            "  } else if (ndvi < 0.5) {\n" +
-            "    r = 255; g = 255; b = 0; // Yellow for moderate vegetation\n" +
-            "  } else {\n" +
-            "    r = 0; g = 255; b = 0; // Green for healthy vegetation\n" +
-            "  }\n" +
-            "  \n" +
-            "  return [r, g, b];\n" +
-            "}";
-        
-        // Build request body for Process API
-        Map<String, Object> requestBody = new HashMap<>();
-        
-        // Input
-        Map<String, Object> input = new HashMap<>();
-        Map<String, Object> bounds = new HashMap<>();
-        bounds.put("bbox", new double[]{minLon, minLat, maxLon, maxLat});
-        bounds.put("properties", Map.of("crs", "http://www.opengis.net/def/crs/EPSG/0/4326"));
-        input.put("bounds", bounds);
-        
-        Map<String, Object> dataSource = new HashMap<>();
-        dataSource.put("type", "sentinel-2-l2a");
-        input.put("data", new Object[]{dataSource});
-        requestBody.put("input", input);
-        
-        // Output
-        Map<String, Object> output = new HashMap<>();
-        output.put("width", width);
-        output.put("height", height);
-        Map<String, Object> response = new HashMap<>();
-        response.put("identifier", "default");
-        Map<String, String> format = new HashMap<>();
-        format.put("type", "image/png");
-        response.put("format", format);
-        output.put("responses", new Object[]{response});
-        requestBody.put("output", output);
-        
-        // Eval script
-        requestBody.put("evalscript", evalscript);
-        
-        try {
-            String requestBodyJson = objectMapper.writeValueAsString(requestBody);
-            
-            // Get access token (OAuth2 or direct API key)
-            return getAccessToken()
-                    .flatMap(accessToken -> {
-                        return webClient.post()
-                                .uri("/api/v1/process")
-                                .header("Authorization", "Bearer " + accessToken)
-                                .header("Content-Type", "application/json")
-                                .bodyValue(requestBodyJson)
-                                .retrieve()
-                                .bodyToMono(byte[].class);
+    public Flux<DataBuffer> fetchNdviImage(double minLon, double minLat, double maxLon, double maxLat,
+                                       int width, int height, LocalDate acquisitionDate, int lookbackDays) {
+        int[] rawSize = rawBandRasterSize(minLon, minLat, maxLon, maxLat);
+        if (rawBandsEnabled && (long) rawSize[0] * rawSize[1] <= MAX_RAW_BAND_PIXELS) {
+            return getRawBandRaster(minLon, minLat, maxLon, maxLat, acquisitionDate)
+                    .switchIfEmpty(Mono.error(() -> new IllegalStateException("No Sentinel-2 acquisition for the bbox")))
+                    .publishOn(Schedulers.parallel())
+                    .<DataBuffer>map(raster -> {
+                        long start = System.nanoTime();
+                        byte[] png = BandIndexKernel.render(raster, width, height);
+                        rawBandKernelMs.addAndGet((System.nanoTime() - start) / 1_000_000);
+                        rawBandImagesServed.incrementAndGet();
+                        return DefaultDataBufferFactory.sharedInstance.wrap(png);
                     })
-                    .onErrorResume(error -> {
-                        System.err.println("Error generating NDVI image: " + error.getMessage());
-                        System.err.println("NOTE: Sentinel Hub API returned error. Generating mock NDVI image.");
-                        // Generate mock NDVI image for demo
-                        return Mono.just(generateMockNDVIImage(width, height));
-                    });
-        } catch (Exception e) {
-            System.err.println("Error building image request: " + e.getMessage());
-            return Mono.empty();
+                    .flux();
+        }
+        RequestTemplate template = SentinelHubRequests.NDVI_IMAGE;
+        String timeFrom = null, timeTo = null;
+        if (acquisitionDate != null) {
+            template = SentinelHubRequests.NDVI_IMAGE_MOST_RECENT;
+            timeFrom = acquisitionDate.minusDays(lookbackDays).format(DateTimeFormatter.ISO_LOCAL_DATE) + "T00:00:00Z";
+            timeTo = acquisitionDate.format(DateTimeFormatter.ISO_LOCAL_DATE) + "T23:59:59Z";
         }
+        String requestBodyJson = template.render(
+                new RequestTemplate.Params(minLon, minLat, maxLon, maxLat, timeFrom, timeTo, width, height));
+        return getAccessToken()
+                .flatMapMany(accessToken -> webClient.post()
+                        .uri("/api/v1/process")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .header("Content-Type", "application/json")
+                        .bodyValue(requestBodyJson)
+                        .retrieve()
+                        .bodyToFlux(DataBuffer.class));
+    }
+    
+    /**
+     * Transparent NDVI map tile for a Web Mercator bbox (meters), most recent scene of the
+     * {@code lookbackDays} up to today; errors are propagated.
+     */
+    public Mono<byte[]> fetchNdviTile(double minX, double minY, double maxX, double maxY, int size, int lookbackDays) {
+        LocalDate today = LocalDate.now();
+        return process(SentinelHubRequests.NDVI_TILE.render(new RequestTemplate.Params(minX, minY, maxX, maxY,
+                today.minusDays(lookbackDays).format(DateTimeFormatter.ISO_LOCAL_DATE) + "T00:00:00Z",
+                today.format(DateTimeFormatter.ISO_LOCAL_DATE) + "T23:59:59Z", size, size)));
+    }
+    
+    private Mono<byte[]> process(String requestBodyJson) {
+        // Get access token (OAuth2 or direct API key)
+        return getAccessToken()
+                .flatMap(accessToken -> webClient.post()
+                        .uri("/api/v1/process")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .header("Content-Type", "application/json")
+                        .bodyValue(requestBodyJson)
+                        .retrieve()
+                        .bodyToMono(byte[].class));
     }
     
     /**
      * Generează o imagine mock NDVI pentru demo (folosit când API-ul nu funcționează)
+     * The PNG is cached per size by {@link MockNdviRenderer}; the array is shared and must not be modified.
      */
-    private byte[] generateMockNDVIImage(int width, int height) {
+    byte[] generateMockNDVIImage(int width, int height) {
         try {
-            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-            Graphics2D g2d = image.createGraphics();
-            
-            // Create NDVI gradient: red -> orange -> yellow -> green
-            for (int y = 0; y < height; y++) {
-                for (int x = 0; x < width; x++) {
-                    // Simulate NDVI distribution (center = greener, edges = redder)
-                    double centerX = width / 2.0;
-                    double centerY = height / 2.0;
-                    double distance = Math.sqrt(Math.pow(x - centerX, 2) + Math.pow(y - centerY, 2));
-                    double maxDistance = Math.sqrt(Math.pow(width/2.0, 2) + Math.pow(height/2.0, 2));
-                    double normalizedDistance = distance / maxDistance;
-                    
-                    // Simulated NDVI: -0.5 (red) at edges, 0.8 (green) at center
-                    double ndvi = 0.8 - (normalizedDistance * 1.3);
-                    
-                    Color color;
-                    if (ndvi < 0) {
-                        color = new Color(255, 0, 0); // Red - water/bare soil
-                    } else if (ndvi < 0.2) {
-                        color = new Color(255, 165, 0); // Orange - weak vegetation
-                    } else if (ndvi < 0.5) {
-                        color = new Color(255, 255, 0); // Yellow - moderate vegetation
-                    } else {
-                        color = new Color(0, 255, 0); // Green - healthy vegetation
-                    }
-                    
-                    image.setRGB(x, y, color.getRGB());
-                }
-            }
-            
-            g2d.dispose();
-            
-            // Convert BufferedImage to PNG byte array
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ImageIO.write(image, "png", baos);
-            return baos.toByteArray();
+            return MockNdviRenderer.png(width, height);
         } catch (Exception e) {
             System.err.println("Error generating mock NDVI image: " + e.getMessage());
             return new byte[0];
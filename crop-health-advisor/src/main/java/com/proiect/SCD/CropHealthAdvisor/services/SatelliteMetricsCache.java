@@ -0,0 +1,169 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.proiect.SCD.CropHealthAdvisor.dto.SatelliteMetricsDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, time-expiring cache for satellite metrics.
+ * Entries are keyed on coordinates snapped to a small grid and on the acquisition window,
+ * so repeated dashboard refreshes for the same field reuse one Sentinel Hub result.
+ * Least recently used entries are evicted when the cache is full.
+ */
+@Component
+public class SatelliteMetricsCache {
+
+    /**
+     * Cache key: coordinates snapped to the grid (in grid units) plus the acquisition window.
+     */
+    public record Key(long latCell, long lonCell, LocalDate from, LocalDate to) {
+    }
+
+    private record Entry(SatelliteMetricsDTO metrics, long expiresAt) {
+    }
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final double gridDegrees;
+
+    private final LinkedHashMap<Key, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong pinned = new AtomicLong();
+
+    public SatelliteMetricsCache(
+            @Value("${satellite.metrics-cache.ttl-minutes:360}") long ttlMinutes,
+            @Value("${satellite.metrics-cache.max-entries:2000}") int maxEntries,
+            @Value("${satellite.metrics-cache.grid-degrees:0.0005}") double gridDegrees) {
+        this.ttlMillis = ttlMinutes * 60_000L;
+        this.maxEntries = maxEntries;
+        this.gridDegrees = gridDegrees;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Builds the cache key for a point and acquisition window.
+     * Coordinates are snapped to the configured grid (~50m by default), well below the
+     * ±0.001° bbox used for the statistics request.
+     */
+    public Key keyFor(double lat, double lon, LocalDate from, LocalDate to) {
+        return new Key(Math.round(lat / gridDegrees), Math.round(lon / gridDegrees), from, to);
+    }
+
+    /**
+     * Returns a copy of the cached metrics, or null if missing or expired.
+     */
+    public SatelliteMetricsDTO get(Key key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (entry.expiresAt() <= System.currentTimeMillis()) {
+                entries.remove(key);
+                expirations.incrementAndGet();
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return new SatelliteMetricsDTO(entry.metrics());
+        }
+    }
+
+    /**
+     * Stores a copy of the metrics. Mock metrics (random fallback values) are never cached.
+     */
+    public void put(Key key, SatelliteMetricsDTO metrics) {
+        if (metrics == null || metrics.isMock() || ttlMillis <= 0 || maxEntries <= 0) {
+            return;
+        }
+        Entry entry = new Entry(new SatelliteMetricsDTO(metrics), System.currentTimeMillis() + ttlMillis);
+        synchronized (entries) {
+            entries.put(key, entry);
+            evictIfNeeded();
+        }
+    }
+
+    /**
+     * Keeps an entry until the last day of its acquisition window is over, when requests move on
+     * to the next window's key. Used for metrics precomputed off-peak, which would otherwise expire
+     * before the first request of the day.
+     * @return false if there is no entry for the key
+     */
+    public boolean pinForWindow(Key key) {
+        long endOfWindow = key.to().plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return false;
+            }
+            if (entry.expiresAt() < endOfWindow) {
+                entries.put(key, new Entry(entry.metrics(), endOfWindow));
+            }
+        }
+        pinned.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private void evictIfNeeded() {
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+        // Drop expired entries first, then the least recently used ones
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext() && entries.size() > maxEntries) {
+            if (it.next().getValue().expiresAt() <= now) {
+                it.remove();
+                expirations.incrementAndGet();
+            }
+        }
+        it = entries.entrySet().iterator();
+        while (it.hasNext() && entries.size() > maxEntries) {
+            it.next();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns hit/miss/eviction counters and current size.
+     */
+    public Map<String, Object> getStats() {
+        long h = hits.get();
+        long m = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("size", entries.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlMinutes", ttlMillis / 60_000L);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRate", h + m == 0 ? 0.0 : (double) h / (h + m));
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        stats.put("pinned", pinned.get());
+        return stats;
+    }
+}
@@ -0,0 +1,221 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.proiect.SCD.CropHealthAdvisor.models.Location;
+import com.proiect.SCD.CropHealthAdvisor.models.LocationSatelliteState;
+import com.proiect.SCD.CropHealthAdvisor.repositories.LocationRepository;
+import com.proiect.SCD.CropHealthAdvisor.repositories.LocationSatelliteStateRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Off-peak refresh of satellite metrics and reports for all monitored locations.
+ * Walks the locations page by page, checks the latest Sentinel-2 acquisition of each one
+ * (Catalog API) and only regenerates the report when a new acquisition is available.
+ * Upstream requests are limited by a global rate budget and a cap on in-flight locations.
+ * Runs take hours on large installations, so they run on their own thread instead of
+ * Spring's single scheduling thread, which the other periodic jobs share.
+ * Refreshed metrics stay cached for the rest of the day.
+ */
+@Service
+public class SatelliteRefreshScheduler {
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private LocationSatelliteStateRepository stateRepository;
+
+    @Autowired
+    private SatelliteDataService satelliteDataService;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private Scheduler jpaScheduler;
+
+    @Value("${satellite.refresh.enabled:false}")
+    private boolean enabled;
+
+    @Value("${satellite.refresh.page-size:100}")
+    private int pageSize;
+
+    @Value("${satellite.refresh.max-in-flight:4}")
+    private int maxInFlight;
+
+    // Must cover the revisit time of Sentinel-2 (5 days) with some margin for cloudy periods
+    @Value("${satellite.refresh.lookback-days:30}")
+    private int lookbackDays;
+
+    private final UpstreamRateBudget rateBudget;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "satellite-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong locationsChecked = new AtomicLong();
+    private final AtomicLong locationsRefreshed = new AtomicLong();
+    private final AtomicLong locationsSkipped = new AtomicLong();
+    private final AtomicLong locationsFailed = new AtomicLong();
+    private final AtomicLong locationsPinned = new AtomicLong();
+    private final AtomicLong upstreamPermits = new AtomicLong();
+    private volatile LocalDateTime lastRunStartedAt;
+    private volatile LocalDateTime lastRunFinishedAt;
+    private volatile long lastRunDurationMs;
+
+    public SatelliteRefreshScheduler(
+            @Value("${satellite.refresh.requests-per-minute:60}") double requestsPerMinute,
+            @Value("${satellite.refresh.burst:10}") int burst) {
+        this.rateBudget = new UpstreamRateBudget(requestsPerMinute, burst);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    /**
+     * Scheduled entry point (default: every day at 03:00); hands the run to the refresh thread.
+     */
+    @Scheduled(cron = "${satellite.refresh.cron:0 0 3 * * *}")
+    public void scheduledRefresh() {
+        if (enabled) {
+            try {
+                runner.execute(this::refreshAll);
+            } catch (RejectedExecutionException e) {
+                System.err.println("Satellite refresh not started: shutting down");
+            }
+        }
+    }
+
+    /**
+     * Refreshes all locations, blocking the calling thread until done.
+     * A run that starts while another one is still in progress is skipped.
+     */
+    public void refreshAll() {
+        if (!running.compareAndSet(false, true)) {
+            System.out.println("Satellite refresh already running, skipping this run");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        lastRunStartedAt = LocalDateTime.now();
+        runs.incrementAndGet();
+        try {
+            int pageNumber = 0;
+            Page<Location> page;
+            do {
+                page = locationRepository.findAll(PageRequest.of(pageNumber++, pageSize, Sort.by("id")));
+                Flux.fromIterable(page.getContent())
+                        .flatMap(this::refreshLocation, Math.max(1, maxInFlight))
+                        .blockLast();
+            } while (page.hasNext());
+        } catch (Exception e) {
+            System.err.println("Satellite refresh run failed: " + e.getMessage());
+        } finally {
+            lastRunDurationMs = System.currentTimeMillis() - start;
+            lastRunFinishedAt = LocalDateTime.now();
+            running.set(false);
+            System.out.println("Satellite refresh finished in " + lastRunDurationMs + "ms");
+        }
+    }
+
+    private Mono<Void> refreshLocation(Location location) {
+        Long locationId = location.getId();
+        locationsChecked.incrementAndGet();
+        Mono<LocationSatelliteState> stateMono = Mono.fromCallable(() -> stateRepository.findById(locationId)
+                        .orElseGet(() -> {
+                            LocationSatelliteState state = new LocationSatelliteState();
+                            state.setLocationId(locationId);
+                            return state;
+                        }))
+                .subscribeOn(jpaScheduler);
+
+        return stateMono
+                .flatMap(state -> acquire(1)
+                        .then(satelliteDataService.getLatestAcquisitionDate(
+                                location.getLatitude(), location.getLongitude(), lookbackDays))
+                        .map(LatestAcquisition::new)
+                        .defaultIfEmpty(new LatestAcquisition(null))
+                        .flatMap(latest -> {
+                            if (state.getLastRefreshedAt() != null && !isNewer(latest.date(), state.getLastAcquisitionDate())) {
+                                locationsSkipped.incrementAndGet();
+                                return Mono.<Void>empty();
+                            }
+                            return acquire(satelliteDataService.maxUpstreamCallsPerFetch())
+                                    .then(reportService.generateAndSaveReport(locationId))
+                                    .doOnNext(report -> {
+                                        if (satelliteDataService.pinCachedMetrics(location.getLatitude(), location.getLongitude())) {
+                                            locationsPinned.incrementAndGet();
+                                        }
+                                    })
+                                    .flatMap(report -> Mono.fromRunnable(() -> stateRepository.markRefreshed(
+                                                    locationId, latest.date(), LocalDateTime.now()))
+                                            .subscribeOn(jpaScheduler))
+                                    .doOnSuccess(ignored -> locationsRefreshed.incrementAndGet())
+                                    .then();
+                        }))
+                .onErrorResume(error -> {
+                    locationsFailed.incrementAndGet();
+                    System.err.println("Error refreshing location " + locationId + ": " + error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Unknown acquisitions (no scene in the lookback window, or a failed catalog lookup)
+     * never trigger a refresh of an already processed location.
+     */
+    private static boolean isNewer(LocalDate latest, LocalDate processed) {
+        return latest != null && (processed == null || latest.isAfter(processed));
+    }
+
+    private Mono<Void> acquire(int permits) {
+        upstreamPermits.addAndGet(permits);
+        return rateBudget.acquire(permits);
+    }
+
+    /**
+     * Counters of the background refresh pipeline.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("running", running.get());
+        stats.put("runs", runs.get());
+        stats.put("lastRunStartedAt", lastRunStartedAt);
+        stats.put("lastRunFinishedAt", lastRunFinishedAt);
+        stats.put("lastRunDurationMs", lastRunDurationMs);
+        stats.put("locationsChecked", locationsChecked.get());
+        stats.put("locationsRefreshed", locationsRefreshed.get());
+        stats.put("locationsSkipped", locationsSkipped.get());
+        stats.put("locationsFailed", locationsFailed.get());
+        stats.put("locationsPinned", locationsPinned.get());
+        stats.put("upstreamPermitsUsed", upstreamPermits.get());
+        return stats;
+    }
+
+    private record LatestAcquisition(LocalDate date) {
+    }
+}
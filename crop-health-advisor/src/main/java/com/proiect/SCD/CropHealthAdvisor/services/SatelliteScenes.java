@@ -0,0 +1,98 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.proiect.SCD.CropHealthAdvisor.models.SatelliteObservation;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Best-scene selection over daily Sentinel-2 index statistics.
+ * The most recent day whose share of cloud-free pixels reaches the threshold wins; when no day
+ * reaches it, the clearest day of the window is used instead of the most recent (cloudy) one.
+ */
+public final class SatelliteScenes {
+
+    /**
+     * Index means of one day; {@code validFraction} is NaN when unknown (rows stored before the cloud mask).
+     */
+    public record Scene(LocalDate date, double ndvi, double evi, double ndwi, double validFraction) {
+
+        boolean usable() {
+            return !Double.isNaN(ndvi);
+        }
+
+        boolean clearEnough(double minValidFraction) {
+            return Double.isNaN(validFraction) || validFraction >= minValidFraction;
+        }
+
+        /**
+         * Cloudy share of the field in percent; NaN when unknown.
+         */
+        public double cloudCoverPercent() {
+            return (1.0 - validFraction) * 100.0;
+        }
+    }
+
+    /**
+     * Chosen scene (null if no day had any valid pixel), the days found too cloudy
+     * (newer than the chosen scene, or all cloudy candidates in the fallback),
+     * and whether the chosen scene itself is below the threshold.
+     */
+    public record Selection(Scene scene, int cloudySkipped, boolean belowThreshold) {
+    }
+
+    private SatelliteScenes() {
+    }
+
+    /**
+     * Scene of a Statistical API interval (outputs ndvi, evi, ndwi, in this order); null without a date.
+     */
+    public static Scene of(StatisticsResponseParser.Interval interval) {
+        StatisticsResponseParser.Stats ndvi = interval.output(0);
+        StatisticsResponseParser.Stats evi = interval.output(1);
+        StatisticsResponseParser.Stats ndwi = interval.output(2);
+        LocalDate date = interval.from() != null && interval.from().length() >= 10
+                ? LocalDate.parse(interval.from().substring(0, 10))
+                : null;
+        return new Scene(date, mean(ndvi), mean(evi), mean(ndwi),
+                ndvi != null ? ndvi.validFraction() : Double.NaN);
+    }
+
+    public static Scene of(SatelliteObservation observation) {
+        return new Scene(observation.getObservationDate(),
+                orNaN(observation.getNdviMean()),
+                orNaN(observation.getEviMean()),
+                orNaN(observation.getNdwiMean()),
+                orNaN(observation.getValidFraction()));
+    }
+
+    /**
+     * Picks the best scene from days ordered oldest first.
+     */
+    public static Selection select(List<Scene> scenes, double minValidFraction) {
+        Scene clearest = null;
+        int cloudy = 0;
+        for (int i = scenes.size() - 1; i >= 0; i--) {
+            Scene scene = scenes.get(i);
+            if (!scene.usable() || scene.validFraction() == 0) {
+                continue;
+            }
+            if (scene.clearEnough(minValidFraction)) {
+                return new Selection(scene, cloudy, false);
+            }
+            cloudy++;
+            if (clearest == null || scene.validFraction() > clearest.validFraction()) {
+                clearest = scene;
+            }
+        }
+        return new Selection(clearest, cloudy, clearest != null);
+    }
+
+    private static double mean(StatisticsResponseParser.Stats stats) {
+        return stats != null ? stats.mean() : Double.NaN;
+    }
+
+    private static double orNaN(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+}
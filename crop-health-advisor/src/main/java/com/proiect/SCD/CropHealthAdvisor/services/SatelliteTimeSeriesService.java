@@ -0,0 +1,126 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.proiect.SCD.CropHealthAdvisor.models.LocationSatelliteState;
+import com.proiect.SCD.CropHealthAdvisor.models.SatelliteObservation;
+import com.proiect.SCD.CropHealthAdvisor.repositories.LocationSatelliteStateRepository;
+import com.proiect.SCD.CropHealthAdvisor.repositories.SatelliteObservationBatchRepository;
+import com.proiect.SCD.CropHealthAdvisor.repositories.SatelliteObservationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores the daily NDVI/EVI/NDWI statistics returned by the Statistical API per location,
+ * so trend charts and reports read the series from the database instead of re-querying Sentinel Hub.
+ */
+@Service
+public class SatelliteTimeSeriesService {
+
+    @Autowired
+    private SatelliteObservationRepository observationRepository;
+
+    @Autowired
+    private SatelliteObservationBatchRepository observationBatchRepository;
+
+    @Autowired
+    private LocationSatelliteStateRepository stateRepository;
+
+    @Autowired
+    private Scheduler jpaScheduler;
+
+    /**
+     * Upserts every interval of a statistics response (outputs ndvi, evi, ndwi, in this order).
+     * Intervals without any index statistics are ignored.
+     */
+    public Mono<Void> storeIntervals(Long locationId, List<StatisticsResponseParser.Interval> intervals) {
+        List<SatelliteObservation> observations = new ArrayList<>(intervals.size());
+        for (StatisticsResponseParser.Interval interval : intervals) {
+            SatelliteObservation observation = toObservation(locationId, interval);
+            if (observation != null) {
+                observations.add(observation);
+            }
+        }
+        if (observations.isEmpty()) {
+            return Mono.empty();
+        }
+        return Mono.fromRunnable(() -> observationBatchRepository.upsertAll(observations))
+                .subscribeOn(jpaScheduler)
+                .then();
+    }
+
+    /**
+     * Last day already stored for the location; empty if its series was never fetched.
+     */
+    public Mono<LocalDate> getFetchedThrough(Long locationId) {
+        return Mono.fromCallable(() -> stateRepository.findById(locationId)
+                        .map(LocationSatelliteState::getSeriesFetchedThrough)
+                        .orElse(null))
+                .subscribeOn(jpaScheduler);
+    }
+
+    /**
+     * Records that the series of the location is stored up to the given day (never moves backwards).
+     */
+    public Mono<Void> markFetchedThrough(Long locationId, LocalDate fetchedThrough) {
+        return Mono.fromRunnable(() -> stateRepository.markSeriesFetchedThrough(locationId, fetchedThrough))
+                .subscribeOn(jpaScheduler)
+                .then();
+    }
+
+    /**
+     * Stored daily observations of a location, oldest first.
+     */
+    public Mono<List<SatelliteObservation>> getSeries(Long locationId, LocalDate from, LocalDate to) {
+        return Mono.fromCallable(() -> observationRepository
+                        .findByLocationIdAndObservationDateBetweenOrderByObservationDate(locationId, from, to))
+                .subscribeOn(jpaScheduler);
+    }
+
+    static SatelliteObservation toObservation(Long locationId, StatisticsResponseParser.Interval interval) {
+        if (interval.from() == null || interval.from().length() < 10) {
+            return null;
+        }
+        StatisticsResponseParser.Stats ndvi = interval.output(0);
+        StatisticsResponseParser.Stats evi = interval.output(1);
+        StatisticsResponseParser.Stats ndwi = interval.output(2);
+        if (ndvi == null && evi == null && ndwi == null) {
+            return null;
+        }
+        SatelliteObservation observation = new SatelliteObservation();
+        observation.setLocationId(locationId);
+        observation.setObservationDate(LocalDate.parse(interval.from().substring(0, 10)));
+        if (ndvi != null) {
+            observation.setNdviMin(finite(ndvi.min()));
+            observation.setNdviMax(finite(ndvi.max()));
+            observation.setNdviMean(finite(ndvi.mean()));
+            observation.setNdviStdev(finite(ndvi.stdev()));
+            observation.setNdviSampleCount((int) ndvi.sampleCount());
+            observation.setValidFraction(finite(ndvi.validFraction()));
+        }
+        if (evi != null) {
+            observation.setEviMin(finite(evi.min()));
+            observation.setEviMax(finite(evi.max()));
+            observation.setEviMean(finite(evi.mean()));
+            observation.setEviStdev(finite(evi.stdev()));
+            observation.setEviSampleCount((int) evi.sampleCount());
+        }
+        if (ndwi != null) {
+            observation.setNdwiMin(finite(ndwi.min()));
+            observation.setNdwiMax(finite(ndwi.max()));
+            observation.setNdwiMean(finite(ndwi.mean()));
+            observation.setNdwiStdev(finite(ndwi.stdev()));
+            observation.setNdwiSampleCount((int) ndwi.sampleCount());
+        }
+        return observation;
+    }
+
+    // NaN/Infinity (no valid pixels) are stored as NULL
+    private static Double finite(double value) {
+        return Double.isFinite(value) ? value : null;
+    }
+}
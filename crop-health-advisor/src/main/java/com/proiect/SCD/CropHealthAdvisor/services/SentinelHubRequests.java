@@ -0,0 +1,280 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Evalscripts and precompiled request bodies for the Sentinel Hub Statistical and Process APIs.
+ * Templates are serialized once at class load; per request only the bbox (EPSG:4326, EPSG:3857 for tiles),
+ * time range and output size are substituted.
+ */
+public final class SentinelHubRequests {
+
+    private static final String CRS_WGS84 = "http://www.opengis.net/def/crs/EPSG/0/4326";
+    private static final String CRS_WEB_MERCATOR = "http://www.opengis.net/def/crs/EPSG/0/3857";
+
+    /**
+     * NDVI, EVI and NDWI from Sentinel-2 L2A, one output per index.
+     * Pixels without data or classified as cloud, cloud shadow, cirrus or snow by the
+     * scene classification (SCL) are masked out, so each output's noDataCount / sampleCount
+     * is the cloudy share of the field for that day.
+     */
+    public static final String INDICES_EVALSCRIPT = """
+            //VERSION=3
+            function setup() {
+              return {
+                input: [{
+                  bands: ["B02", "B03", "B04", "B08", "B11", "B12", "SCL", "dataMask"], // Blue, Green, Red, NIR, SWIR1, SWIR2
+                  units: "DN"
+                }],
+                output: [
+                  { id: "ndvi", bands: 1, sampleType: "FLOAT32" },
+                  { id: "evi", bands: 1, sampleType: "FLOAT32" },
+                  { id: "ndwi", bands: 1, sampleType: "FLOAT32" },
+                  { id: "dataMask", bands: 1 }
+                ]
+              };
+            }
+            // SCL: 0 no data, 1 saturated, 3 cloud shadow, 8/9 cloud, 10 cirrus, 11 snow
+            function isClear(scl) {
+              return [0, 1, 3, 8, 9, 10, 11].indexOf(scl) < 0;
+            }
+            function evaluatePixel(samples) {
+              var blue = samples.B02 / 10000;
+              var green = samples.B03 / 10000;
+              var red = samples.B04 / 10000;
+              var nir = samples.B08 / 10000;
+              var swir1 = samples.B11 / 10000;
+              var swir2 = samples.B12 / 10000;
+
+              var ndvi = (nir - red) / (nir + red);
+              var evi = 2.5 * ((nir - red) / (nir + 6 * red - 7.5 * blue + 1));
+              var ndwi = (green - nir) / (green + nir);
+
+              return {
+                ndvi: [Math.max(-1, Math.min(1, ndvi))],
+                evi: [Math.max(-1, Math.min(1, evi))],
+                ndwi: [Math.max(-1, Math.min(1, ndwi))],
+                dataMask: [samples.dataMask == 1 && isClear(samples.SCL) ? 1 : 0]
+              };
+            }""";
+
+    /**
+     * MODIS land surface temperature in degrees Celsius.
+     */
+    public static final String LST_EVALSCRIPT = """
+            //VERSION=3
+            function setup() {
+              return {
+                input: [{
+                  bands: ["LST"], // MODIS Land Surface Temperature band
+                  units: "K" // Kelvin
+                }],
+                output: [
+                  { id: "lst", bands: 1, sampleType: "FLOAT32" }
+                ]
+              };
+            }
+            function evaluatePixel(samples) {
+              // LST is in Kelvin, convert to Celsius
+              var lstKelvin = samples.LST * 0.02 - 273.15; // Scale factor 0.02 for MODIS
+              return {
+                lst: [lstKelvin]
+              };
+            }""";
+
+    /**
+     * NDVI colored in four classes (red, orange, yellow, green) as an RGB image.
+     */
+    public static final String NDVI_COLOR_EVALSCRIPT = """
+            //VERSION=3
+            function setup() {
+              return {
+                input: [{
+                  bands: ["B04", "B08"], // Red, NIR
+                  units: "DN"
+                }],
+                output: {
+                  bands: 3, // RGB
+                  sampleType: "UINT8"
+                }
+              };
+            }
+            function evaluatePixel(samples) {
+              var red = samples.B04 / 10000;
+              var nir = samples.B08 / 10000;
+              var ndvi = (nir - red) / (nir + red);
+
+              // Color NDVI: red for negative/low values, green for positive/high values
+              var r, g, b;
+              if (ndvi < 0) {
+                r = 255; g = 0; b = 0; // Red for water/bare soil
+              } else if (ndvi < 0.2) {
+                r = 255; g = 165; b = 0; // Orange for very weak vegetation
+              } else if (ndvi < 0.5) {
+                r = 255; g = 255; b = 0; // Yellow for moderate vegetation
+              } else {
+                r = 0; g = 255; b = 0; // Green for healthy vegetation
+              }
+
+              return [r, g, b];
+            }""";
+
+    /**
+     * Same NDVI classes as {@link #NDVI_COLOR_EVALSCRIPT} as RGBA; pixels without data are
+     * transparent so map tiles can be layered over a base map.
+     */
+    public static final String NDVI_TILE_EVALSCRIPT = """
+            //VERSION=3
+            function setup() {
+              return {
+                input: [{
+                  bands: ["B04", "B08", "dataMask"], // Red, NIR
+                  units: "DN"
+                }],
+                output: {
+                  bands: 4, // RGBA
+                  sampleType: "UINT8"
+                }
+              };
+            }
+            function evaluatePixel(samples) {
+              if (samples.dataMask == 0) {
+                return [0, 0, 0, 0];
+              }
+              var red = samples.B04 / 10000;
+              var nir = samples.B08 / 10000;
+              var ndvi = (nir - red) / (nir + red);
+
+              if (ndvi < 0) {
+                return [255, 0, 0, 255];
+              } else if (ndvi < 0.2) {
+                return [255, 165, 0, 255];
+              } else if (ndvi < 0.5) {
+                return [255, 255, 0, 255];
+              }
+              return [0, 255, 0, 255];
+            }""";
+
+    /**
+     * Reflectances of the bands used by the indices (blue, green, red, NIR) plus a clear-sky mask
+     * (data present and not cloud, cloud shadow, cirrus or snow by SCL), as FLOAT32 bands;
+     * decoded by {@link BandRaster}, indices are computed server-side by {@link BandIndexKernel}.
+     */
+    public static final String RAW_BANDS_EVALSCRIPT = """
+            //VERSION=3
+            function setup() {
+              return {
+                input: [{ bands: ["B02", "B03", "B04", "B08", "SCL", "dataMask"] }],
+                output: { bands: 5, sampleType: "FLOAT32" }
+              };
+            }
+            function evaluatePixel(samples) {
+              var clear = samples.dataMask == 1 && [0, 1, 3, 8, 9, 10, 11].indexOf(samples.SCL) < 0;
+              return [samples.B02, samples.B03, samples.B04, samples.B08, clear ? 1 : 0];
+            }""";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Daily NDVI/EVI/NDWI statistics (Statistical API).
+     */
+    public static final RequestTemplate INDICES_STATISTICS =
+            statisticsTemplate("sentinel-2-l2a", INDICES_EVALSCRIPT);
+
+    /**
+     * Daily LST statistics (Statistical API).
+     */
+    public static final RequestTemplate LST_STATISTICS =
+            statisticsTemplate("modis", LST_EVALSCRIPT);
+
+    /**
+     * Colored NDVI PNG (Process API).
+     */
+    public static final RequestTemplate NDVI_IMAGE =
+            processTemplate(NDVI_COLOR_EVALSCRIPT, false);
+
+    /**
+     * Colored NDVI PNG of the most recent scene within a time range (Process API);
+     * pins the image to a known acquisition so it can be cached.
+     */
+    public static final RequestTemplate NDVI_IMAGE_MOST_RECENT =
+            processTemplate(NDVI_COLOR_EVALSCRIPT, true);
+
+    /**
+     * Transparent NDVI map tile, bbox in Web Mercator meters (Process API, most recent scene).
+     */
+    public static final RequestTemplate NDVI_TILE =
+            processTemplate(NDVI_TILE_EVALSCRIPT, true, CRS_WEB_MERCATOR);
+
+    /**
+     * Encoded NDVI/EVI/NDWI raster for multi-location requests (Process API, most recent scene).
+     */
+    public static final RequestTemplate ENCODED_INDICES_IMAGE =
+            processTemplate(EncodedIndexRaster.EVALSCRIPT, true);
+
+    /**
+     * Raw band raster as a FLOAT32 TIFF (Process API, most recent scene).
+     */
+    public static final RequestTemplate RAW_BANDS =
+            processTemplate(RAW_BANDS_EVALSCRIPT, true, CRS_WGS84, "image/tiff");
+
+    private SentinelHubRequests() {
+    }
+
+    private static ObjectNode input(String dataType, boolean timeFiltered, boolean mostRecent, String crs) {
+        ObjectNode input = MAPPER.createObjectNode();
+        ObjectNode bounds = input.putObject("bounds");
+        ArrayNode bbox = bounds.putArray("bbox");
+        bbox.add("{{minLon}}").add("{{minLat}}").add("{{maxLon}}").add("{{maxLat}}");
+        bounds.putObject("properties").put("crs", crs);
+        ObjectNode dataSource = input.putArray("data").addObject();
+        dataSource.put("type", dataType);
+        if (timeFiltered) {
+            ObjectNode dataFilter = dataSource.putObject("dataFilter");
+            dataFilter.putObject("timeRange").put("from", "{{from}}").put("to", "{{to}}");
+            if (mostRecent) {
+                dataFilter.put("mosaickingOrder", "mostRecent");
+            }
+        }
+        return input;
+    }
+
+    private static RequestTemplate statisticsTemplate(String dataType, String evalscript) {
+        ObjectNode body = MAPPER.createObjectNode();
+        body.set("input", input(dataType, true, false, CRS_WGS84));
+        ObjectNode aggregation = body.putObject("aggregation");
+        aggregation.putObject("timeRange").put("from", "{{from}}").put("to", "{{to}}");
+        aggregation.putObject("aggregationInterval").put("of", "P1D");
+        aggregation.put("evalscript", evalscript);
+        ObjectNode output = body.putObject("output");
+        output.put("width", 1);
+        output.put("height", 1);
+        output.putArray("responses").addObject()
+                .put("identifier", "default")
+                .putObject("format").put("type", "application/json");
+        return RequestTemplate.compile(body.toString());
+    }
+
+    private static RequestTemplate processTemplate(String evalscript, boolean mostRecent) {
+        return processTemplate(evalscript, mostRecent, CRS_WGS84);
+    }
+
+    private static RequestTemplate processTemplate(String evalscript, boolean mostRecent, String crs) {
+        return processTemplate(evalscript, mostRecent, crs, "image/png");
+    }
+
+    private static RequestTemplate processTemplate(String evalscript, boolean mostRecent, String crs, String format) {
+        ObjectNode body = MAPPER.createObjectNode();
+        body.set("input", input("sentinel-2-l2a", mostRecent, mostRecent, crs));
+        ObjectNode output = body.putObject("output");
+        output.put("width", "{{width}}");
+        output.put("height", "{{height}}");
+        output.putArray("responses").addObject()
+                .put("identifier", "default")
+                .putObject("format").put("type", format);
+        body.put("evalscript", evalscript);
+        return RequestTemplate.compile(body.toString());
+    }
+}
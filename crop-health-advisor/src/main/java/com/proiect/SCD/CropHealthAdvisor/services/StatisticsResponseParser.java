@@ -0,0 +1,297 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming parser for Statistical API responses.
+ * Fed directly with the response {@link DataBuffer}s through Jackson's non-blocking parser;
+ * only the interval bounds and the stats of the requested outputs are kept, everything
+ * else (histograms, other outputs, error entries) is skipped token by token.
+ * <p>
+ * Accepts both {@code outputs.<id>.bands.<band>.stats} (Statistical API) and
+ * {@code outputs.<id>.stats}; with several bands, the first one is used.
+ */
+public final class StatisticsResponseParser implements AutoCloseable {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Statistics of one output in one interval; NaN when missing.
+     */
+    public record Stats(double min, double max, double mean, double stdev, long sampleCount, long noDataCount) {
+
+        public boolean hasMean() {
+            return !Double.isNaN(mean);
+        }
+
+        /**
+         * Share of the sampled pixels that were not masked (no data or cloud); NaN without a sample count.
+         */
+        public double validFraction() {
+            return sampleCount > 0 ? (double) (sampleCount - noDataCount) / sampleCount : Double.NaN;
+        }
+    }
+
+    /**
+     * One aggregation interval; {@code outputs[i]} belongs to the i-th requested output id (null if absent).
+     */
+    public record Interval(String from, String to, Stats[] outputs) {
+
+        public Stats output(int index) {
+            return outputs[index];
+        }
+    }
+
+    private static final int MIN = 0, MAX = 1, MEAN = 2, STDEV = 3, SAMPLE_COUNT = 4, NO_DATA_COUNT = 5;
+    private static final int MAX_DEPTH = 16;
+
+    private final String[] outputIds;
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+    private final List<Interval> intervals = new ArrayList<>();
+
+    // Field name (or null for array elements) of each open container
+    private final String[] path = new String[MAX_DEPTH];
+    private int depth;
+    private String fieldName;
+
+    // Current data[] element
+    private String intervalFrom;
+    private String intervalTo;
+    private final double[][] values;
+    private final boolean[] seen;
+    private final String[] statsBand;
+
+    public StatisticsResponseParser(String... outputIds) {
+        this.outputIds = outputIds;
+        this.values = new double[outputIds.length][6];
+        this.seen = new boolean[outputIds.length];
+        this.statsBand = new String[outputIds.length];
+        try {
+            this.parser = JSON_FACTORY.createNonBlockingByteBufferParser();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+        resetInterval();
+    }
+
+    /**
+     * Parses a response body as it arrives; buffers are released once consumed.
+     */
+    public static Mono<List<Interval>> parse(Flux<DataBuffer> body, String... outputIds) {
+        return Mono.using(
+                () -> new StatisticsResponseParser(outputIds),
+                parser -> body
+                        .doOnNext(buffer -> {
+                            try {
+                                parser.feed(buffer);
+                            } finally {
+                                DataBufferUtils.release(buffer);
+                            }
+                        })
+                        .then(Mono.fromCallable(parser::finish)),
+                StatisticsResponseParser::close);
+    }
+
+    /**
+     * Parses a complete response body.
+     */
+    public static List<Interval> parse(byte[] body, String... outputIds) {
+        try (StatisticsResponseParser parser = new StatisticsResponseParser(outputIds)) {
+            parser.feed(ByteBuffer.wrap(body));
+            return parser.finish();
+        }
+    }
+
+    public void feed(DataBuffer buffer) {
+        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+            while (iterator.hasNext()) {
+                feed(iterator.next());
+            }
+        }
+    }
+
+    public void feed(ByteBuffer bytes) {
+        try {
+            feeder.feedInput(bytes);
+            drain();
+        } catch (IOException e) {
+            throw new IllegalStateException("Malformed statistics response: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Signals the end of input and returns the parsed intervals in response order.
+     */
+    public List<Interval> finish() {
+        try {
+            feeder.endOfInput();
+            drain();
+        } catch (IOException e) {
+            throw new IllegalStateException("Malformed statistics response: " + e.getMessage(), e);
+        }
+        if (depth != 0) {
+            throw new IllegalStateException("Truncated statistics response");
+        }
+        return intervals;
+    }
+
+    @Override
+    public void close() {
+        try {
+            parser.close();
+        } catch (IOException ignored) {
+            // Nothing to release
+        }
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            switch (token) {
+                case FIELD_NAME -> fieldName = parser.currentName();
+                case START_OBJECT, START_ARRAY -> {
+                    if (depth < MAX_DEPTH) {
+                        path[depth] = fieldName;
+                    }
+                    depth++;
+                    fieldName = null;
+                }
+                case END_OBJECT, END_ARRAY -> {
+                    depth--;
+                    // data[] elements are objects at depth 2: {"data": [ {...} ]}
+                    if (token == JsonToken.END_OBJECT && depth == 2 && "data".equals(path[1])) {
+                        endInterval();
+                    }
+                    fieldName = null;
+                }
+                default -> {
+                    onValue(token);
+                    fieldName = null;
+                }
+            }
+        }
+    }
+
+    private boolean inDataElement() {
+        return depth >= 3 && "data".equals(path[1]) && path[2] == null;
+    }
+
+    private void onValue(JsonToken token) throws IOException {
+        if (!inDataElement() || depth > MAX_DEPTH) {
+            return;
+        }
+        // {"data":[{"interval":{"from":..,"to":..}}]}
+        if (depth == 4 && "interval".equals(path[3])) {
+            if ("from".equals(fieldName)) {
+                intervalFrom = parser.getText();
+            } else if ("to".equals(fieldName)) {
+                intervalTo = parser.getText();
+            }
+            return;
+        }
+        // ..."outputs":{"<id>":{"stats":{..}}} or ..."outputs":{"<id>":{"bands":{"<band>":{"stats":{..}}}}}
+        if (!"outputs".equals(path[3]) || depth < 6 || !"stats".equals(path[depth - 1])) {
+            return;
+        }
+        String band = null;
+        if (depth == 8 && "bands".equals(path[5])) {
+            band = path[6];
+        } else if (depth != 6) {
+            return;
+        }
+        int output = outputIndex(path[4]);
+        if (output < 0) {
+            return;
+        }
+        if (band != null) {
+            if (statsBand[output] == null) {
+                statsBand[output] = band;
+            } else if (!statsBand[output].equals(band)) {
+                return; // Only the first band
+            }
+        }
+        int stat = statIndex(fieldName);
+        if (stat >= 0) {
+            values[output][stat] = numericValue(token);
+            seen[output] = true;
+        }
+    }
+
+    private double numericValue(JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return parser.getDoubleValue();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            // The Statistical API writes "NaN" and "Infinity" as strings
+            try {
+                return Double.parseDouble(parser.getText());
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+
+    private int outputIndex(String id) {
+        for (int i = 0; i < outputIds.length; i++) {
+            if (outputIds[i].equals(id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int statIndex(String name) {
+        if (name == null) {
+            return -1;
+        }
+        return switch (name) {
+            case "min" -> MIN;
+            case "max" -> MAX;
+            case "mean" -> MEAN;
+            case "stDev", "stdev" -> STDEV;
+            case "sampleCount" -> SAMPLE_COUNT;
+            case "noDataCount" -> NO_DATA_COUNT;
+            default -> -1;
+        };
+    }
+
+    private void endInterval() {
+        Stats[] outputs = new Stats[outputIds.length];
+        for (int i = 0; i < outputIds.length; i++) {
+            if (seen[i]) {
+                double[] v = values[i];
+                outputs[i] = new Stats(v[MIN], v[MAX], v[MEAN], v[STDEV],
+                        Double.isNaN(v[SAMPLE_COUNT]) ? 0 : (long) v[SAMPLE_COUNT],
+                        Double.isNaN(v[NO_DATA_COUNT]) ? 0 : (long) v[NO_DATA_COUNT]);
+            }
+        }
+        intervals.add(new Interval(intervalFrom, intervalTo, outputs));
+        resetInterval();
+    }
+
+    private void resetInterval() {
+        intervalFrom = null;
+        intervalTo = null;
+        for (int i = 0; i < outputIds.length; i++) {
+            Arrays.fill(values[i], Double.NaN);
+            seen[i] = false;
+            statsBand[i] = null;
+        }
+    }
+}
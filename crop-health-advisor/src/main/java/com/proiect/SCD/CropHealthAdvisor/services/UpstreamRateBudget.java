@@ -0,0 +1,47 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Token bucket limiting the rate of upstream (Sentinel Hub) requests issued by background jobs.
+ * Permits are reserved up front and callers are delayed until their reservation is due,
+ * so waiting never blocks a thread.
+ */
+public class UpstreamRateBudget {
+
+    private final double permitsPerSecond;
+    private final double maxBurst;
+    private double storedPermits;
+    private long lastRefillNanos;
+
+    public UpstreamRateBudget(double permitsPerMinute, int maxBurst) {
+        this.permitsPerSecond = permitsPerMinute / 60.0;
+        this.maxBurst = Math.max(1, maxBurst);
+        this.storedPermits = this.maxBurst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Completes once {@code permits} upstream requests may be issued.
+     */
+    public Mono<Void> acquire(int permits) {
+        long waitNanos = reserve(permits);
+        return waitNanos <= 0 ? Mono.empty() : Mono.delay(Duration.ofNanos(waitNanos)).then();
+    }
+
+    /**
+     * Takes the permits (possibly going into debt) and returns how long the caller must wait.
+     */
+    synchronized long reserve(int permits) {
+        long now = System.nanoTime();
+        storedPermits = Math.min(maxBurst, storedPermits + (now - lastRefillNanos) / 1e9 * permitsPerSecond);
+        lastRefillNanos = now;
+        storedPermits -= permits;
+        if (storedPermits >= 0) {
+            return 0;
+        }
+        return (long) (-storedPermits / permitsPerSecond * 1e9);
+    }
+}
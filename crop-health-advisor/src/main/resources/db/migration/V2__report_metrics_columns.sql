@@ -0,0 +1,25 @@
+-- Stores the additional satellite metrics with each report instead of
+-- re-fetching them from Sentinel Hub when the report history is read.
+-- Run once on existing databases (hibernate.hbm2ddl.auto is set to "validate").
+
+ALTER TABLE reports
+    ADD COLUMN evi_value DOUBLE NULL,
+    ADD COLUMN ndwi_value DOUBLE NULL,
+    ADD COLUMN soil_moisture DOUBLE NULL,
+    ADD COLUMN cloud_cover DOUBLE NULL,
+    ADD COLUMN evapotranspiration DOUBLE NULL;
+
+CREATE INDEX idx_reports_location_date ON reports (location_id, report_date);
+
+-- Evapotranspiration only depends on NDVI and LST, which were always stored:
+-- same formula as SatelliteDataService.calculateAdditionalMetricsFromSatellite
+UPDATE reports
+SET evapotranspiration = GREATEST(0, LEAST(10,
+        ndvi_value * 5.0 + CASE WHEN temperature_value > 20 THEN (temperature_value - 20) * 0.2 ELSE 0 END))
+WHERE evapotranspiration IS NULL
+  AND ndvi_value IS NOT NULL
+  AND temperature_value IS NOT NULL;
+
+-- The remaining columns (EVI, NDWI, soil moisture, cloud cover) were never stored.
+-- They are filled by ReportMetricsBackfillService on startup when
+-- reports.metrics-backfill.enabled=true
@@ -0,0 +1,9 @@
+-- Bookkeeping for the scheduled satellite refresh (SatelliteRefreshScheduler):
+-- locations whose latest Sentinel-2 acquisition has not changed are skipped.
+
+CREATE TABLE location_satellite_state (
+    location_id BIGINT PRIMARY KEY,
+    last_acquisition_date DATE NULL,
+    last_refreshed_at DATETIME(6) NULL,
+    FOREIGN KEY (location_id) REFERENCES locations(id) ON DELETE CASCADE
+);
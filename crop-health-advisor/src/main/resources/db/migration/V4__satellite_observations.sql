@@ -0,0 +1,26 @@
+-- Daily Sentinel-2 index statistics per location (every P1D interval of the
+-- Statistical API response, not only the latest one). Read by trend charts
+-- via GET /api/locations/{id}/satellite-series.
+
+CREATE TABLE satellite_observations (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    location_id BIGINT NOT NULL,
+    observation_date DATE NOT NULL,
+    ndvi_min DOUBLE NULL,
+    ndvi_max DOUBLE NULL,
+    ndvi_mean DOUBLE NULL,
+    ndvi_stdev DOUBLE NULL,
+    ndvi_sample_count INT NULL,
+    evi_min DOUBLE NULL,
+    evi_max DOUBLE NULL,
+    evi_mean DOUBLE NULL,
+    evi_stdev DOUBLE NULL,
+    evi_sample_count INT NULL,
+    ndwi_min DOUBLE NULL,
+    ndwi_max DOUBLE NULL,
+    ndwi_mean DOUBLE NULL,
+    ndwi_stdev DOUBLE NULL,
+    ndwi_sample_count INT NULL,
+    FOREIGN KEY (location_id) REFERENCES locations(id) ON DELETE CASCADE,
+    UNIQUE KEY uk_satellite_observations_location_date (location_id, observation_date)
+);
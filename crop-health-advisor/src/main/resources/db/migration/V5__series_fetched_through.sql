@@ -0,0 +1,5 @@
+-- Last day already fetched into satellite_observations for each location:
+-- metrics requests only ask the Statistical API for the days after it.
+
+ALTER TABLE location_satellite_state
+    ADD COLUMN series_fetched_through DATE NULL;
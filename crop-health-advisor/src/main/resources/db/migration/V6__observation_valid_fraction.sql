@@ -0,0 +1,5 @@
+-- Share of cloud-free pixels of each daily observation (SCL cloud mask of the
+-- statistics evalscript), used to pick the most recent clear scene.
+
+ALTER TABLE satellite_observations
+    ADD COLUMN valid_fraction DOUBLE NULL;
@@ -0,0 +1,8 @@
+-- Reports are saved as soon as their metrics are known; the AI interpretation is
+-- filled in afterwards by ReportInterpretationQueue. Existing reports already have one.
+
+ALTER TABLE reports
+    ADD COLUMN interpretation_status ENUM('PENDING', 'COMPLETED', 'FAILED') NOT NULL DEFAULT 'COMPLETED';
+
+-- Pending reports are looked up at startup and by the periodic recovery sweep
+CREATE INDEX idx_reports_interpretation_status ON reports (interpretation_status);
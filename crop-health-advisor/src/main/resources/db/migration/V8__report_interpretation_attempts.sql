@@ -0,0 +1,5 @@
+-- Interpretation attempts made by ReportInterpretationQueue; the recovery sweep
+-- retries FAILED reports until reports.ai-queue.max-attempts is reached.
+
+ALTER TABLE reports
+    ADD COLUMN interpretation_attempts INT NOT NULL DEFAULT 0;
@@ -0,0 +1,52 @@
+package com.proiect.SCD.CropHealthAdvisor.benchmarks;
+
+import com.proiect.SCD.CropHealthAdvisor.services.LegacyMockInterpretation;
+import com.proiect.SCD.CropHealthAdvisor.services.MockInterpretationTemplate;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mock interpretation text per report: StringBuilder with branches and String.format per section
+ * vs. the compiled template (prebuilt sections, three number slots, per-thread buffer).
+ * Metrics cycle through all bands. Run with
+ * {@code java -cp <test classpath> org.openjdk.jmh.Main MockInterpretationBenchmark -prof gc}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MockInterpretationBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    private final double[] ndvi = new double[SAMPLES];
+    private final double[] temperature = new double[SAMPLES];
+    private final double[] precipitation = new double[SAMPLES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < SAMPLES; i++) {
+            ndvi[i] = random.nextDouble() * 2 - 1;
+            temperature[i] = random.nextDouble() * 60 - 10;
+            precipitation[i] = random.nextDouble() * 120;
+        }
+    }
+
+    @Benchmark
+    public String legacy() {
+        int i = next++ & (SAMPLES - 1);
+        return LegacyMockInterpretation.generate(ndvi[i], temperature[i], precipitation[i]);
+    }
+
+    @Benchmark
+    public String template() {
+        int i = next++ & (SAMPLES - 1);
+        return MockInterpretationTemplate.render(ndvi[i], temperature[i], precipitation[i]);
+    }
+}
@@ -0,0 +1,40 @@
+package com.proiect.SCD.CropHealthAdvisor.benchmarks;
+
+import com.proiect.SCD.CropHealthAdvisor.services.LegacyMockNdviRenderer;
+import com.proiect.SCD.CropHealthAdvisor.services.MockNdviRenderer;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mock NDVI raster rendering: per-pixel sqrt/pow + Color + setRGB vs. squared distances written
+ * into the int[] raster; {@code png} is the cached encoded image served on upstream failures.
+ * Run with {@code java -cp <test classpath> org.openjdk.jmh.Main MockNdviRendererBenchmark -prof gc}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MockNdviRendererBenchmark {
+
+    @Param({"512", "2048"})
+    private int size;
+
+    @Benchmark
+    public BufferedImage renderLegacy() {
+        return LegacyMockNdviRenderer.render(size, size);
+    }
+
+    @Benchmark
+    public BufferedImage renderFast() {
+        return MockNdviRenderer.render(size, size);
+    }
+
+    @Benchmark
+    public byte[] png() {
+        return MockNdviRenderer.png(size, size);
+    }
+}
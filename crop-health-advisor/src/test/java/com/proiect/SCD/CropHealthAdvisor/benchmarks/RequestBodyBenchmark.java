@@ -0,0 +1,51 @@
+package com.proiect.SCD.CropHealthAdvisor.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proiect.SCD.CropHealthAdvisor.services.LegacyRequestBodies;
+import com.proiect.SCD.CropHealthAdvisor.services.RequestTemplate;
+import com.proiect.SCD.CropHealthAdvisor.services.SentinelHubRequests;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request body construction: HashMap tree + ObjectMapper vs. precompiled templates.
+ * Run with {@code java -cp <test classpath> org.openjdk.jmh.Main RequestBodyBenchmark -prof gc}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestBodyBenchmark {
+
+    private static final String FROM = "2025-05-01T00:00:00Z";
+    private static final String TO = "2025-05-31T23:59:59Z";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private double lat = 45.7501;
+    private double lon = 21.2301;
+
+    @Benchmark
+    public String statisticsLegacy() throws Exception {
+        return LegacyRequestBodies.indicesStatistics(objectMapper, lon - 0.001, lat - 0.001, lon + 0.001, lat + 0.001, FROM, TO);
+    }
+
+    @Benchmark
+    public String statisticsTemplate() {
+        return SentinelHubRequests.INDICES_STATISTICS.render(
+                RequestTemplate.Params.of(lon - 0.001, lat - 0.001, lon + 0.001, lat + 0.001, FROM, TO));
+    }
+
+    @Benchmark
+    public String imageLegacy() throws Exception {
+        return LegacyRequestBodies.ndviImage(objectMapper, lon - 0.005, lat - 0.005, lon + 0.005, lat + 0.005, 512, 512);
+    }
+
+    @Benchmark
+    public String imageTemplate() {
+        return SentinelHubRequests.NDVI_IMAGE.render(
+                new RequestTemplate.Params(lon - 0.005, lat - 0.005, lon + 0.005, lat + 0.005, null, null, 512, 512));
+    }
+}
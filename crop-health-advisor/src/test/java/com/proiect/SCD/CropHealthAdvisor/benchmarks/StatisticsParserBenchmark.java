@@ -0,0 +1,49 @@
+package com.proiect.SCD.CropHealthAdvisor.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proiect.SCD.CropHealthAdvisor.dto.SatelliteDataDTO;
+import com.proiect.SCD.CropHealthAdvisor.services.StatisticsResponseParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a recorded 30-day Statistical API response (src/test/resources/sentinelhub):
+ * String + SatelliteDataDTO binding vs. the streaming parser.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatisticsParserBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] response;
+
+    @Setup
+    public void load() throws Exception {
+        try (InputStream in = getClass().getResourceAsStream("/sentinelhub/statistics-30d.json")) {
+            response = in.readAllBytes();
+        }
+    }
+
+    @Benchmark
+    public Double dtoBinding() throws Exception {
+        // bodyToMono(String.class) + readValue, then keep the last interval
+        String json = new String(response, StandardCharsets.UTF_8);
+        SatelliteDataDTO data = objectMapper.readValue(json, SatelliteDataDTO.class);
+        return data.getData().get(data.getData().size() - 1).getOutputs().get("ndvi").getStats().getMean();
+    }
+
+    @Benchmark
+    public double streaming() {
+        List<StatisticsResponseParser.Interval> intervals =
+                StatisticsResponseParser.parse(response, "ndvi", "evi", "ndwi");
+        return intervals.get(intervals.size() - 1).output(0).mean();
+    }
+}
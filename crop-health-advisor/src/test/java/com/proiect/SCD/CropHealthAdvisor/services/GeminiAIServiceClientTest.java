@@ -0,0 +1,204 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proiect.SCD.CropHealthAdvisor.dto.InterpretationRequest;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Streaming Gemini client against a local {@code streamGenerateContent} stub: chunk pass-through,
+ * retries before the first chunk, the concurrency limit and the timeout fallback.
+ */
+class GeminiAIServiceClientTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile int failFirst;
+    private volatile long delayMs;
+    private volatile long chunkDelayMs;
+    private volatile int repeatChunks = 1;
+    private volatile JsonNode lastBody;
+    private volatile String lastKey;
+    private volatile String lastPath;
+    private HttpServer server;
+
+    private GeminiAIService service(int maxConcurrent, long timeoutSeconds, int maxAttempts) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.createContext("/v1beta/models/", this::handleGenerate);
+        server.start();
+
+        GeminiAIService service = new GeminiAIService(new ObjectMapper(),
+                "http://localhost:" + server.getAddress().getPort(), maxConcurrent, timeoutSeconds);
+        ReflectionTestUtils.setField(service, "geminiApiKey", "test-key");
+        ReflectionTestUtils.setField(service, "geminiModel", "test-model");
+        ReflectionTestUtils.setField(service, "maxAttempts", maxAttempts);
+        ReflectionTestUtils.setField(service, "retryBackoffMs", 10L);
+        ReflectionTestUtils.setField(service, "interpretationCache", new InterpretationCache(100, ""));
+        return service;
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private static InterpretationRequest request(double ndvi) {
+        return new InterpretationRequest(
+                new InterpretationRequest.Metrics(ndvi, 0.38, -0.12, 22.0, 41.5, 45.0, 3.25, 12.0),
+                Locale.forLanguageTag("ro"));
+    }
+
+    @Test
+    void streamsChunksAsTheyArriveAndCachesTheText() throws IOException {
+        GeminiAIService service = service(2, 5, 3);
+
+        List<String> chunks = service.streamInterpretation(request(0.45)).collectList().block(Duration.ofSeconds(10));
+
+        String values = GeminiAIService.renderValues(request(0.45));
+        assertEquals(List.of(values + "Cultura \"A\" ", "este\nsănătoasă", "."), chunks);
+        assertEquals("/v1beta/models/test-model:streamGenerateContent", lastPath);
+        assertEquals("test-key", lastKey);
+        // The prompt travels as a JSON string, quotes and newlines escaped
+        String prompt = lastBody.path("contents").path(0).path("parts").path(0).path("text").asText();
+        assertEquals(GeminiAIService.renderPrompt(request(0.45)), prompt);
+
+        // Same bands and conditions: served from the cache below this request's own values
+        String response = service.getInterpretation(request(0.52)).block(Duration.ofSeconds(10));
+        JsonNode stored = MAPPER.readTree(response);
+        assertFalse(stored.path("mockAI").asBoolean());
+        assertEquals(GeminiAIService.renderValues(request(0.52)) + "Cultura \"A\" este\nsănătoasă.",
+                stored.path("interpretation").asText());
+        assertTrue(stored.path("interpretation").asText().startsWith("📊 VALORI MĂSURATE: NDVI 0.520 · "));
+        assertEquals(1, calls.get());
+        assertEquals(3L, service.getStats().get("chunks"));
+    }
+
+    @Test
+    void retriesServerErrorsBeforeFirstChunk() throws IOException {
+        GeminiAIService service = service(2, 5, 3);
+        failFirst = 2;
+
+        String response = service.getInterpretation(request(0.45)).block(Duration.ofSeconds(10));
+
+        assertEquals(GeminiAIService.renderValues(request(0.45)) + "Cultura \"A\" este\nsănătoasă.",
+                MAPPER.readTree(response).path("interpretation").asText());
+        assertEquals(3, calls.get());
+        Map<String, Object> stats = service.getStats();
+        assertEquals(2L, stats.get("retries"));
+        assertEquals(0L, stats.get("fallbacks"));
+    }
+
+    @Test
+    void limitsConcurrentCalls() throws IOException {
+        GeminiAIService service = service(2, 5, 1);
+        delayMs = 200;
+
+        List<String> responses = Flux.range(0, 6)
+                .flatMap(i -> service.getInterpretation(request(0.1 * i)), 6)
+                .collectList()
+                .block(Duration.ofSeconds(20));
+
+        assertEquals(6, responses.size());
+        assertEquals(6, calls.get());
+        assertEquals(2, maxInFlight.get());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> concurrency = (Map<String, Object>) service.getStats().get("concurrency");
+        assertEquals(0, concurrency.get("active"));
+        assertEquals(4L, concurrency.get("queuedCalls"));
+    }
+
+    @Test
+    void fallsBackToMockAfterTimeout() throws IOException {
+        GeminiAIService service = service(2, 1, 1);
+        delayMs = 2_000;
+
+        String response = service.getInterpretation(request(0.45)).block(Duration.ofSeconds(10));
+
+        assertTrue(MAPPER.readTree(response).path("mockAI").asBoolean());
+        Map<String, Object> stats = service.getStats();
+        assertEquals(1L, stats.get("timeouts"));
+        assertEquals(1L, stats.get("fallbacks"));
+    }
+
+    @Test
+    void slowlyDribbledAnswerHitsAttemptDeadline() throws IOException {
+        GeminiAIService service = service(1, 5, 1);
+        ReflectionTestUtils.setField(service, "attemptDeadlineSeconds", 1L);
+        chunkDelayMs = 300; // Every chunk within the 5 s chunk timeout...
+        repeatChunks = 10;  // ...but ~9 s in total
+
+        long start = System.currentTimeMillis();
+        String response = service.getInterpretation(request(0.45)).block(Duration.ofSeconds(10));
+
+        assertTrue(System.currentTimeMillis() - start < 3_000);
+        assertTrue(MAPPER.readTree(response).path("mockAI").asBoolean());
+        Map<String, Object> stats = service.getStats();
+        assertEquals(1L, stats.get("timeouts"));
+        assertEquals(1L, stats.get("fallbacks"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> concurrency = (Map<String, Object>) stats.get("concurrency");
+        assertEquals(0, concurrency.get("active"));
+    }
+
+    private void handleGenerate(HttpExchange exchange) throws IOException {
+        calls.incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            lastPath = exchange.getRequestURI().getPath();
+            lastKey = exchange.getRequestHeaders().getFirst("x-goog-api-key");
+            lastBody = MAPPER.readTree(exchange.getRequestBody());
+            if (failFirst > 0) {
+                failFirst--;
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            sleep(delayMs);
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (int i = 0; i < repeatChunks; i++) {
+                    for (String text : List.of("Cultura \"A\" ", "este\nsănătoasă", ".")) {
+                        sleep(chunkDelayMs);
+                        String event = MAPPER.writeValueAsString(Map.of("candidates", List.of(
+                                Map.of("content", Map.of("role", "model", "parts", List.of(Map.of("text", text)))))));
+                        out.write(("data: " + event + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+                        out.flush();
+                    }
+                }
+            }
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.proiect.SCD.CropHealthAdvisor.dto.InterpretationRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The interpretation uses the report metrics as given, not values scanned back out of a prompt.
+ */
+class GeminiAIServiceTest {
+
+    private static final InterpretationRequest REQUEST = new InterpretationRequest(
+            new InterpretationRequest.Metrics(0.45, 0.38, -0.12, 22.0, 41.5, 45.0, 3.25, 12.0),
+            Locale.forLanguageTag("ro"));
+
+    @Test
+    void mockInterpretationUsesRequestMetrics() {
+        GeminiAIService service = new GeminiAIService(null, "http://localhost", 1, 30);
+        ReflectionTestUtils.setField(service, "interpretationCache", new InterpretationCache(10, ""));
+        String response = service.getInterpretation(REQUEST).block();
+
+        assertNotNull(response);
+        assertTrue(response.contains("\"mockAI\":true"));
+        assertTrue(response.contains("NDVI excelent (0.450)"));
+        assertTrue(response.contains("Temperatura solului de 22.0°C se încadrează"));
+        assertTrue(response.contains("Precipitațiile de 45.0mm sunt în intervalul normal"));
+        assertTrue(response.contains("MENȚINEREA CONDIȚIILOR OPTIME"));
+    }
+
+    @Test
+    void maxCallDurationCoversEveryAttemptAndBackoff() {
+        GeminiAIService service = new GeminiAIService(null, "http://localhost", 1, 30);
+        // 3 attempts of 120s, backoffs of 500ms and 1s with up to 50% jitter
+        assertEquals(Duration.ofMillis(362_250), service.maxCallDuration());
+    }
+
+    @Test
+    void promptRendersAllMetricsInRequestedLanguage() {
+        String prompt = GeminiAIService.renderPrompt(REQUEST);
+
+        assertTrue(prompt.contains("NDVI (Normalized Difference Vegetation Index): 0.450\n"));
+        assertTrue(prompt.contains("EVI (Enhanced Vegetation Index): 0.380\n"));
+        assertTrue(prompt.contains("NDWI (Normalized Difference Water Index): -0.120\n"));
+        assertTrue(prompt.contains("Land Surface Temperature): 22.0°C\n"));
+        assertTrue(prompt.contains("Umiditate solului: 41.5%\n"));
+        assertTrue(prompt.contains("Precipitații estimate: 45.0mm\n"));
+        assertTrue(prompt.contains("Evapotranspirație: 3.25 mm/zi\n"));
+        assertTrue(prompt.contains("Acoperire nori: 12.0%\n"));
+        assertTrue(prompt.contains("Răspunde în română,"));
+
+        String english = GeminiAIService.renderPrompt(new InterpretationRequest(REQUEST.metrics(), Locale.ENGLISH));
+        assertTrue(english.contains("Răspunde în engleză,"));
+    }
+}
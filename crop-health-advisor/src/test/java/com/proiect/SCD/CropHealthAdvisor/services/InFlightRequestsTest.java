@@ -0,0 +1,66 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InFlightRequestsTest {
+
+    @Test
+    void concurrentCallersShareOneUpstreamCall() {
+        InFlightRequests<String, Integer> requests = new InFlightRequests<>();
+        Sinks.One<Integer> upstream = Sinks.one();
+        AtomicInteger calls = new AtomicInteger();
+        AtomicReference<Integer> first = new AtomicReference<>();
+        AtomicReference<Integer> second = new AtomicReference<>();
+
+        requests.execute("a", () -> { calls.incrementAndGet(); return upstream.asMono(); }).subscribe(first::set);
+        requests.execute("a", () -> { calls.incrementAndGet(); return upstream.asMono(); }).subscribe(second::set);
+        assertEquals(1, calls.get());
+        assertEquals(1, requests.size());
+
+        upstream.tryEmitValue(42);
+        assertEquals(42, first.get());
+        assertEquals(42, second.get());
+        assertEquals(0, requests.size());
+        assertEquals(1L, requests.getStats().get("upstreamCallsSaved"));
+
+        // Completed requests are not cached
+        assertEquals(7, requests.execute("a", () -> Mono.just(7)).block(Duration.ofSeconds(1)));
+    }
+
+    @Test
+    void entryIsRemovedOnError() {
+        InFlightRequests<String, Integer> requests = new InFlightRequests<>();
+        Mono<Integer> failing = requests.execute("a", () -> Mono.error(new IllegalStateException("upstream down")));
+
+        assertThrows(IllegalStateException.class, () -> failing.block(Duration.ofSeconds(1)));
+        assertEquals(0, requests.size());
+        assertEquals(1, requests.execute("a", () -> Mono.just(1)).block(Duration.ofSeconds(1)));
+    }
+
+    @Test
+    void hungUpstreamTimesOutAndFreesKey() {
+        InFlightRequests<String, Integer> requests = new InFlightRequests<>(Duration.ofMillis(200));
+        Mono<Integer> first = requests.execute("a", Mono::never).cache();
+        Mono<Integer> joined = requests.execute("a", () -> Mono.just(2)).cache();
+        first.subscribe(value -> { }, error -> { });
+        joined.subscribe(value -> { }, error -> { }); // Joins the hung request
+        assertEquals(1, requests.size());
+
+        assertThrows(RuntimeException.class, () -> first.block(Duration.ofSeconds(2)));
+        assertThrows(RuntimeException.class, () -> joined.block(Duration.ofSeconds(2)));
+        assertEquals(0, requests.size());
+        assertEquals(1L, requests.getStats().get("upstreamCallsSaved"));
+        assertEquals(1L, requests.getStats().get("timeouts"));
+
+        // The next caller starts a new upstream request
+        assertEquals(3, requests.execute("a", () -> Mono.just(3)).block(Duration.ofSeconds(1)));
+    }
+}
@@ -0,0 +1,140 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.proiect.SCD.CropHealthAdvisor.dto.InterpretationRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Metrics in the same bands and conditions share one interpretation, values on either side of a
+ * threshold never do; the cache is bounded and can be persisted.
+ */
+class InterpretationCacheTest {
+
+    private static final Locale RO = Locale.forLanguageTag("ro");
+
+    private static InterpretationRequest request(double ndvi, double temperature, double precipitation, Locale locale) {
+        return new InterpretationRequest(
+                new InterpretationRequest.Metrics(ndvi, 0.3, -0.1, temperature, 40, precipitation, 3, 10), locale);
+    }
+
+    private static InterpretationCache.Key key(InterpretationCache cache, double ndvi, double temperature,
+                                               double precipitation) {
+        return cache.keyFor(request(ndvi, temperature, precipitation, RO), "gemini-2.0-flash");
+    }
+
+    @Test
+    void sameBandsAndConditionsShareKey() {
+        InterpretationCache cache = new InterpretationCache(10, "");
+
+        assertEquals(key(cache, 0.45, 22.0, 45.0), key(cache, 0.52, 12.5, 70.0));
+        assertNotEquals(key(cache, 0.45, 22.0, 45.0),
+                cache.keyFor(request(0.45, 22.0, 45.0, Locale.ENGLISH), "gemini-2.0-flash"));
+        assertNotEquals(key(cache, 0.45, 22.0, 45.0),
+                cache.keyFor(request(0.45, 22.0, 45.0, RO), GeminiAIService.MOCK_MODEL));
+    }
+
+    @Test
+    void valuesOnEitherSideOfThresholdNeverShareKey() {
+        InterpretationCache cache = new InterpretationCache(10, "");
+
+        // NDVI 0.3: band and LOW_NDVI / OPTIMAL conditions
+        assertNotEquals(key(cache, 0.295, 22.0, 45.0), key(cache, 0.305, 22.0, 45.0));
+        // Temperature 30 °C: band and HEAT / OPTIMAL conditions
+        assertNotEquals(key(cache, 0.45, 29.6, 45.0), key(cache, 0.45, 30.4, 45.0));
+        // Temperature 35 °C: band only
+        assertNotEquals(key(cache, 0.45, 34.9, 45.0), key(cache, 0.45, 35.1, 45.0));
+        // Precipitation 30 mm: band and WATER / OPTIMAL conditions
+        assertNotEquals(key(cache, 0.45, 22.0, 29.9), key(cache, 0.45, 22.0, 30.1));
+        // Precipitation 80 mm: band only
+        assertNotEquals(key(cache, 0.45, 22.0, 79.9), key(cache, 0.45, 22.0, 80.1));
+    }
+
+    @Test
+    void otherMetricsDiscussedByTheModelAreKeyed() {
+        InterpretationCache cache = new InterpretationCache(10, "");
+        InterpretationCache.Key base = key(cache, 0.45, 22.0, 45.0);
+
+        // EVI, NDWI, soil moisture, evapotranspiration, cloud cover
+        assertNotEquals(base, keyWith(cache, 0.7, -0.1, 40, 3, 10));
+        assertNotEquals(base, keyWith(cache, 0.3, 0.4, 40, 3, 10));
+        assertNotEquals(base, keyWith(cache, 0.3, -0.1, 15, 3, 10));
+        assertNotEquals(base, keyWith(cache, 0.3, -0.1, 40, 6.5, 10));
+        assertNotEquals(base, keyWith(cache, 0.3, -0.1, 40, 3, 75));
+        assertNotEquals(base, keyWith(cache, 0.3, -0.1, 40, 3, Double.NaN));
+        // Same bands
+        assertEquals(base, keyWith(cache, 0.35, -0.2, 55, 2.5, 25));
+    }
+
+    private static InterpretationCache.Key keyWith(InterpretationCache cache, double evi, double ndwi,
+                                                   double soilMoisture, double evapotranspiration, double cloudCover) {
+        return cache.keyFor(new InterpretationRequest(new InterpretationRequest.Metrics(
+                0.45, evi, ndwi, 22.0, soilMoisture, 45.0, evapotranspiration, cloudCover), RO), "gemini-2.0-flash");
+    }
+
+    @Test
+    void mockInterpretationsAreNotCached() {
+        InterpretationCache cache = new InterpretationCache(10, "");
+        GeminiAIService service = new GeminiAIService(null, "http://localhost", 1, 30);
+        ReflectionTestUtils.setField(service, "interpretationCache", cache);
+
+        String below = service.getInterpretation(request(0.295, 29.6, 45.0, RO)).block();
+        String above = service.getInterpretation(request(0.305, 30.4, 45.0, RO)).block();
+
+        assertTrue(below.contains("(0.295)"));
+        assertTrue(below.contains("29.6°C se încadrează în intervalul optim"));
+        assertTrue(above.contains("(0.305)"));
+        assertTrue(above.contains("30.4°C este ridicată"));
+        assertEquals(0, cache.getStats().get("size"));
+        assertEquals(0L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        InterpretationCache cache = new InterpretationCache(2, "");
+        InterpretationCache.Key a = cache.keyFor(request(-0.5, 10, 10, RO), "gemini-2.0-flash");
+        InterpretationCache.Key b = cache.keyFor(request(-0.1, 10, 10, RO), "gemini-2.0-flash");
+        InterpretationCache.Key c = cache.keyFor(request(0.1, 10, 10, RO), "gemini-2.0-flash");
+
+        cache.put(a, "a");
+        cache.put(b, "b");
+        assertEquals("a", cache.get(a));
+        cache.put(c, "c");
+
+        assertEquals("a", cache.get(a));
+        assertNull(cache.get(b));
+        assertEquals("c", cache.get(c));
+        assertEquals(1L, cache.getStats().get("evictions"));
+    }
+
+    @Test
+    void survivesRestartWhenPersisted(@TempDir Path dir) {
+        String file = dir.resolve("cache/interpretations.json").toString();
+        InterpretationCache cache = new InterpretationCache(10, file);
+        InterpretationCache.Key key = cache.keyFor(request(0.45, 22, 45, RO), GeminiAIService.MOCK_MODEL);
+        cache.put(key, "Vegetație sănătoasă\n\"citat\"");
+        cache.save();
+
+        InterpretationCache restarted = new InterpretationCache(10, file);
+
+        assertEquals("Vegetație sănătoasă\n\"citat\"", restarted.get(restarted.keyFor(request(0.45, 22, 45, RO), GeminiAIService.MOCK_MODEL)));
+        assertEquals(true, restarted.getStats().get("persistent"));
+    }
+
+    @Test
+    void ignoresFileWithOlderKeys(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("interpretations.json");
+        Files.writeString(file, "[{\"key\":{\"ndviBand\":3,\"temperatureBand\":2,\"precipitationBand\":2,"
+                + "\"conditions\":8,\"locale\":\"ro\",\"model\":\"gemini-2.0-flash\"},\"interpretation\":\"old\"}]");
+
+        InterpretationCache cache = new InterpretationCache(10, file.toString());
+
+        assertEquals(0, cache.getStats().get("size"));
+    }
+}
@@ -0,0 +1,51 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * The previous per-pixel mock NDVI renderer (sqrt/pow, one Color and one setRGB per pixel),
+ * kept as the reference for {@link MockNdviRenderer} and its benchmark.
+ */
+public final class LegacyMockNdviRenderer {
+
+    private LegacyMockNdviRenderer() {
+    }
+
+    public static BufferedImage render(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+
+        // Create NDVI gradient: red -> orange -> yellow -> green
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                // Simulate NDVI distribution (center = greener, edges = redder)
+                double centerX = width / 2.0;
+                double centerY = height / 2.0;
+                double distance = Math.sqrt(Math.pow(x - centerX, 2) + Math.pow(y - centerY, 2));
+                double maxDistance = Math.sqrt(Math.pow(width/2.0, 2) + Math.pow(height/2.0, 2));
+                double normalizedDistance = distance / maxDistance;
+
+                // Simulated NDVI: -0.5 (red) at edges, 0.8 (green) at center
+                double ndvi = 0.8 - (normalizedDistance * 1.3);
+
+                Color color;
+                if (ndvi < 0) {
+                    color = new Color(255, 0, 0); // Red - water/bare soil
+                } else if (ndvi < 0.2) {
+                    color = new Color(255, 165, 0); // Orange - weak vegetation
+                } else if (ndvi < 0.5) {
+                    color = new Color(255, 255, 0); // Yellow - moderate vegetation
+                } else {
+                    color = new Color(0, 255, 0); // Green - healthy vegetation
+                }
+
+                image.setRGB(x, y, color.getRGB());
+            }
+        }
+
+        g2d.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,105 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The per-call HashMap request construction replaced by {@link SentinelHubRequests},
+ * kept as the baseline for equivalence tests and benchmarks.
+ */
+public final class LegacyRequestBodies {
+
+    private LegacyRequestBodies() {
+    }
+
+    public static String indicesStatistics(ObjectMapper objectMapper, double minLon, double minLat, double maxLon,
+                                           double maxLat, String timeFrom, String timeTo) throws Exception {
+        return statistics(objectMapper, "sentinel-2-l2a", SentinelHubRequests.INDICES_EVALSCRIPT,
+                minLon, minLat, maxLon, maxLat, timeFrom, timeTo);
+    }
+
+    public static String lstStatistics(ObjectMapper objectMapper, double minLon, double minLat, double maxLon,
+                                       double maxLat, String timeFrom, String timeTo) throws Exception {
+        return statistics(objectMapper, "modis", SentinelHubRequests.LST_EVALSCRIPT,
+                minLon, minLat, maxLon, maxLat, timeFrom, timeTo);
+    }
+
+    private static String statistics(ObjectMapper objectMapper, String type, String evalscript, double minLon,
+                                     double minLat, double maxLon, double maxLat, String timeFrom,
+                                     String timeTo) throws Exception {
+        Map<String, Object> requestBody = new HashMap<>();
+
+        Map<String, Object> input = new HashMap<>();
+        Map<String, Object> bounds = new HashMap<>();
+        bounds.put("bbox", new double[]{minLon, minLat, maxLon, maxLat});
+        bounds.put("properties", Map.of("crs", "http://www.opengis.net/def/crs/EPSG/0/4326"));
+        input.put("bounds", bounds);
+
+        Map<String, Object> dataSource = new HashMap<>();
+        dataSource.put("type", type);
+        Map<String, Object> dataFilter = new HashMap<>();
+        Map<String, String> timeRange = new HashMap<>();
+        timeRange.put("from", timeFrom);
+        timeRange.put("to", timeTo);
+        dataFilter.put("timeRange", timeRange);
+        dataSource.put("dataFilter", dataFilter);
+        input.put("data", new Object[]{dataSource});
+        requestBody.put("input", input);
+
+        Map<String, Object> aggregation = new HashMap<>();
+        Map<String, String> aggTimeRange = new HashMap<>();
+        aggTimeRange.put("from", timeFrom);
+        aggTimeRange.put("to", timeTo);
+        aggregation.put("timeRange", aggTimeRange);
+        aggregation.put("aggregationInterval", Map.of("of", "P1D"));
+        aggregation.put("evalscript", evalscript);
+        requestBody.put("aggregation", aggregation);
+
+        Map<String, Object> output = new HashMap<>();
+        output.put("width", 1);
+        output.put("height", 1);
+        Map<String, Object> response = new HashMap<>();
+        response.put("identifier", "default");
+        Map<String, String> format = new HashMap<>();
+        format.put("type", "application/json");
+        response.put("format", format);
+        output.put("responses", new Object[]{response});
+        requestBody.put("output", output);
+
+        return objectMapper.writeValueAsString(requestBody);
+    }
+
+    public static String ndviImage(ObjectMapper objectMapper, double minLon, double minLat, double maxLon,
+                                   double maxLat, int width, int height) throws Exception {
+        Map<String, Object> requestBody = new HashMap<>();
+
+        Map<String, Object> input = new HashMap<>();
+        Map<String, Object> bounds = new HashMap<>();
+        bounds.put("bbox", new double[]{minLon, minLat, maxLon, maxLat});
+        bounds.put("properties", Map.of("crs", "http://www.opengis.net/def/crs/EPSG/0/4326"));
+        input.put("bounds", bounds);
+
+        Map<String, Object> dataSource = new HashMap<>();
+        dataSource.put("type", "sentinel-2-l2a");
+        input.put("data", new Object[]{dataSource});
+        requestBody.put("input", input);
+
+        Map<String, Object> output = new HashMap<>();
+        output.put("width", width);
+        output.put("height", height);
+        Map<String, Object> response = new HashMap<>();
+        response.put("identifier", "default");
+        Map<String, String> format = new HashMap<>();
+        format.put("type", "image/png");
+        response.put("format", format);
+        output.put("responses", new Object[]{response});
+        requestBody.put("output", output);
+
+        // The evalscript was a constant-folded literal, never copied per call
+        requestBody.put("evalscript", SentinelHubRequests.NDVI_COLOR_EVALSCRIPT);
+
+        return objectMapper.writeValueAsString(requestBody);
+    }
+}
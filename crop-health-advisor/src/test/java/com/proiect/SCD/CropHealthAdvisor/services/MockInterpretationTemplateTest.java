@@ -0,0 +1,79 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The compiled template writes the same text as the previous generator (with a decimal point).
+ */
+class MockInterpretationTemplateTest {
+
+    private Locale defaultLocale;
+
+    @BeforeEach
+    void setUp() {
+        // The previous generator formatted numbers in the default locale
+        defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.ROOT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Locale.setDefault(defaultLocale);
+    }
+
+    private static void assertSameText(double ndvi, double temp, double precip) {
+        assertEquals(LegacyMockInterpretation.generate(ndvi, temp, precip),
+                MockInterpretationTemplate.render(ndvi, temp, precip),
+                "ndvi=" + ndvi + " temp=" + temp + " precip=" + precip);
+    }
+
+    @Test
+    void matchesLegacyGenerator() {
+        // Every band and condition boundary, and values on either side of it
+        double[] ndvis = {-1, -0.3, -0.2999, 0, -0.0001, 0.3, 0.2999, 0.6, 0.5999, 1, Double.NaN};
+        double[] temps = {-10, 5, 4.99, 10, 9.99, 15, 15.01, 30, 30.01, 35, 35.01, 50, Double.NaN};
+        double[] precips = {0, 10, 9.99, 30, 29.99, 80, 80.01, 100, 100.01, 150, Double.NaN};
+        for (double ndvi : ndvis) {
+            for (double temp : temps) {
+                for (double precip : precips) {
+                    assertSameText(ndvi, temp, precip);
+                }
+            }
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            assertSameText(random.nextDouble() * 2 - 1, random.nextDouble() * 60 - 10, random.nextDouble() * 120);
+        }
+    }
+
+    @Test
+    void formatsLikeFormatter() {
+        double[] values = {0, -0.0, 0.0005, 1.0005, -0.0004, 0.25, 0.35, 2.675, -2.675, 0.05, 0.15, 99.95,
+                1e-9, 123456.789, 1e15, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (double value : values) {
+            assertFixed(value);
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            // Few decimals, so that many values sit exactly on a rounding tie
+            assertFixed(Math.round((random.nextDouble() * 200 - 100) * 10_000) / 10_000.0);
+            assertFixed(random.nextGaussian() * Math.pow(10, random.nextInt(6)));
+        }
+    }
+
+    private static void assertFixed(double value) {
+        for (int decimals = 0; decimals <= 3; decimals++) {
+            StringBuilder sb = new StringBuilder();
+            MockInterpretationTemplate.appendFixed(sb, value, decimals);
+            assertEquals(String.format(Locale.ROOT, "%." + decimals + "f", value), sb.toString(),
+                    value + " with " + decimals + " decimals");
+        }
+    }
+}
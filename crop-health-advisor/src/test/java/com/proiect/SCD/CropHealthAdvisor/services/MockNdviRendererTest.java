@@ -0,0 +1,45 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The fast renderer draws the same classes as the per-pixel one.
+ */
+class MockNdviRendererTest {
+
+    @Test
+    void matchesLegacyRenderer() {
+        int[][] sizes = {{1, 1}, {7, 3}, {64, 64}, {512, 512}, {300, 1024}};
+        for (int[] size : sizes) {
+            BufferedImage expected = LegacyMockNdviRenderer.render(size[0], size[1]);
+            BufferedImage actual = MockNdviRenderer.render(size[0], size[1]);
+            int mismatches = 0;
+            for (int y = 0; y < size[1]; y++) {
+                for (int x = 0; x < size[0]; x++) {
+                    if (expected.getRGB(x, y) != actual.getRGB(x, y)) {
+                        mismatches++;
+                    }
+                }
+            }
+            assertEquals(0, mismatches, "size " + size[0] + "x" + size[1]);
+        }
+    }
+
+    @Test
+    void cachesEncodedPngPerSize() throws IOException {
+        byte[] png = MockNdviRenderer.png(128, 96);
+
+        assertSame(png, MockNdviRenderer.png(128, 96));
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(png));
+        assertEquals(128, decoded.getWidth());
+        assertEquals(96, decoded.getHeight());
+        assertEquals(0x00FF00, decoded.getRGB(64, 48) & 0xFFFFFF);
+    }
+}
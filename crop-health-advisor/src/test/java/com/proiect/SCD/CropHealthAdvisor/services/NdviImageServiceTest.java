@@ -0,0 +1,207 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * NDVI images are fetched once per acquisition and revalidated with ETags.
+ */
+class NdviImageServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger catalogCalls = new AtomicInteger();
+    private final List<JsonNode> processRequests = new CopyOnWriteArrayList<>();
+    private volatile boolean processFails;
+    private HttpServer server;
+    private NdviImageService service;
+    private NdviImageCache cache;
+
+    @TempDir
+    Path cacheDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/v1/catalog/1.0.0/search", this::handleCatalog);
+        server.createContext("/api/v1/process", this::handleProcess);
+        server.start();
+
+        SatelliteDataService satelliteDataService =
+                new SatelliteDataService(objectMapper, "http://localhost:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(satelliteDataService, "sentinelHubApiKey", "test-key");
+        ReflectionTestUtils.setField(satelliteDataService, "sentinelHubClientSecret", "");
+
+        cache = new NdviImageCache(cacheDir.toString(), 32 * 1024 * 1024);
+        service = new NdviImageService();
+        ReflectionTestUtils.setField(service, "satelliteDataService", satelliteDataService);
+        ReflectionTestUtils.setField(service, "imageCache", cache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void servesCachedImageAndAnswersNotModified() throws IOException {
+        NdviImageService.NdviImage first = service.getImage(45.75, 21.23, 64, 64, null).block(Duration.ofSeconds(10));
+        assertNotNull(first.etag());
+        assertArrayEquals(png(64), first.body().getContentAsByteArray());
+        JsonNode timeRange = processRequests.get(0).path("input").path("data").get(0).path("dataFilter").path("timeRange");
+        assertEquals("2025-06-10T23:59:59Z", timeRange.path("to").asText());
+
+        NdviImageService.NdviImage second = service.getImage(45.75, 21.23, 64, 64, null).block(Duration.ofSeconds(10));
+        assertArrayEquals(png(64), second.body().getContentAsByteArray());
+        assertEquals(first.etag(), second.etag());
+
+        NdviImageService.NdviImage revalidated =
+                service.getImage(45.75, 21.23, 64, 64, first.etag()).block(Duration.ofSeconds(10));
+        assertTrue(revalidated.notModified());
+
+        assertEquals(1, processRequests.size());
+        assertEquals(1, catalogCalls.get());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedImagesOverByteBudget() {
+        cache = new NdviImageCache(cacheDir.toString(), 1024);
+        ReflectionTestUtils.setField(service, "imageCache", cache);
+        for (int size = 1; size <= 40; size++) {
+            service.getImage(45.75, 21.23, size, size, null).block(Duration.ofSeconds(10));
+        }
+        long bytes = (Long) cache.getStats().get("bytes");
+        assertTrue(bytes <= 1024, "cache holds " + bytes + " bytes");
+        assertTrue((Long) cache.getStats().get("evictions") > 0);
+    }
+
+    @Test
+    void streamsLargeImagesIntoTheCache() throws Exception {
+        NdviImageService.NdviImage image = service.getImage(45.75, 21.23, 2048, 2048, null).block(Duration.ofSeconds(10));
+
+        assertEquals(largePng().length, image.body().contentLength());
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(largePng()));
+        assertEquals("\"" + sha256 + "\"", image.etag());
+        assertArrayEquals(largePng(), image.body().getContentAsByteArray());
+    }
+
+    @Test
+    void neverCachesMockImages() {
+        processFails = true;
+        NdviImageService.NdviImage image = service.getImage(45.75, 21.23, 32, 32, null).block(Duration.ofSeconds(10));
+
+        assertTrue(image.mock());
+        assertNull(image.etag());
+        assertEquals(0, cache.getStats().get("entries"));
+    }
+
+    @Test
+    void startupCleanupOnlyRemovesOwnFiles() throws IOException {
+        Path files = cacheDir.resolve(NdviImageCache.FILES_SUBDIRECTORY);
+        Path stale = files.resolve("0".repeat(64) + ".png");
+        Path staleTemp = files.resolve("image-123.tmp");
+        Path unrelatedPng = files.resolve("logo.png");
+        Path outside = cacheDir.resolve("f".repeat(64) + ".png");
+        for (Path file : List.of(stale, staleTemp, unrelatedPng, outside)) {
+            Files.write(file, new byte[]{1});
+        }
+
+        new NdviImageCache(cacheDir.toString(), 1024);
+
+        assertFalse(Files.exists(stale));
+        assertFalse(Files.exists(staleTemp));
+        assertTrue(Files.exists(unrelatedPng));
+        assertTrue(Files.exists(outside));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deletesTemporaryImagesThatAreNeverServed() throws IOException {
+        Flux<DataBuffer> failing = Flux.concat(
+                Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(png(8))),
+                Flux.error(new IOException("connection reset")));
+        assertThrows(RuntimeException.class, () -> cache.writeTemporary(failing).block(Duration.ofSeconds(5)));
+        assertEquals(0, cache.getStats().get("temporaryFiles"));
+
+        Path discarded = cache.writeTemporary(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(png(8))))
+                .block(Duration.ofSeconds(5));
+        assertTrue(Files.exists(discarded));
+        cache.purgeTemporaries();
+        assertTrue(Files.exists(discarded)); // Still young
+
+        Map<Path, Long> temporaries = (Map<Path, Long>) ReflectionTestUtils.getField(cache, "temporaries");
+        temporaries.put(discarded, System.currentTimeMillis() - NdviImageCache.TEMPORARY_MAX_AGE_MILLIS - 1);
+        cache.purgeTemporaries();
+        assertFalse(Files.exists(discarded));
+        assertEquals(0, cache.getStats().get("temporaryFiles"));
+    }
+
+    private void handleCatalog(HttpExchange exchange) throws IOException {
+        catalogCalls.incrementAndGet();
+        exchange.getRequestBody().readAllBytes();
+        respond(exchange, 200, "application/json",
+                "{\"features\":[\"2025-06-05\",\"2025-06-10\"]}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void handleProcess(HttpExchange exchange) throws IOException {
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        processRequests.add(request);
+        if (processFails) {
+            respond(exchange, 500, "application/json", "{}".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        int width = request.path("output").path("width").asInt();
+        respond(exchange, 200, "image/png", width == 2048 ? largePng() : png(width));
+    }
+
+    // Deterministic stand-in for a PNG, distinct per size
+    private static byte[] png(int width) {
+        byte[] bytes = new byte[100 + width];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 31 + width);
+        }
+        return bytes;
+    }
+
+    // Larger than the WebClient in-memory limit used for other responses
+    private static byte[] largePng() {
+        byte[] bytes = new byte[20 * 1024 * 1024];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i ^ (i >>> 8));
+        }
+        return bytes;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
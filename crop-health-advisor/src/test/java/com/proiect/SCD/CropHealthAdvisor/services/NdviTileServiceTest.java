@@ -0,0 +1,122 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * XYZ tiles are rendered once, stored in the pyramid and shared by concurrent requests.
+ */
+class NdviTileServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<JsonNode> processRequests = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private NdviTileStore store;
+    private NdviTileService service;
+
+    @TempDir
+    Path tileDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/v1/process", this::handleProcess);
+        server.start();
+
+        SatelliteDataService satelliteDataService =
+                new SatelliteDataService(objectMapper, "http://localhost:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(satelliteDataService, "sentinelHubApiKey", "test-key");
+        ReflectionTestUtils.setField(satelliteDataService, "sentinelHubClientSecret", "");
+
+        store = new NdviTileStore(tileDir.toString(), 64);
+        service = new NdviTileService();
+        ReflectionTestUtils.setField(service, "satelliteDataService", satelliteDataService);
+        ReflectionTestUtils.setField(service, "tileStore", store);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.stop(0);
+        store.close();
+    }
+
+    @Test
+    void concurrentRequestsShareOneRenderAndTileIsStored() {
+        List<byte[]> tiles = Flux.range(0, 8)
+                .flatMap(i -> service.getTile(14, 9158, 5760))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(8, tiles.size());
+        assertEquals(1, processRequests.size());
+        assertArrayEquals(tiles.get(0), service.getTile(14, 9158, 5760).block(Duration.ofSeconds(10)));
+        assertEquals(1, processRequests.size());
+        assertTrue(store.path(14, 9158, 5760).toFile().isFile());
+
+        JsonNode request = processRequests.get(0);
+        assertEquals("http://www.opengis.net/def/crs/EPSG/0/3857",
+                request.path("input").path("bounds").path("properties").path("crs").asText());
+        double[] bbox = NdviTileService.bbox(14, 9158, 5760);
+        assertEquals(bbox[0], request.path("input").path("bounds").path("bbox").get(0).asDouble(), 1e-6);
+        assertEquals(256, request.path("output").path("width").asInt());
+    }
+
+    @Test
+    void indexSurvivesReopening() throws IOException {
+        service.getTile(12, 2289, 1440).block(Duration.ofSeconds(10));
+        store.close();
+
+        NdviTileStore reopened = new NdviTileStore(tileDir.toString(), 64);
+        ReflectionTestUtils.setField(service, "tileStore", reopened);
+        service.getTile(12, 2289, 1440).block(Duration.ofSeconds(10));
+
+        assertEquals(1, processRequests.size());
+        assertEquals(1, reopened.getStats().get("tiles"));
+        store = reopened;
+    }
+
+    @Test
+    void computesWebMercatorBounds() {
+        double[] world = NdviTileService.bbox(0, 0, 0);
+        assertEquals(-20037508.342789244, world[0], 1e-6);
+        assertEquals(20037508.342789244, world[3], 1e-6);
+        double[] northEast = NdviTileService.bbox(1, 1, 0);
+        assertEquals(0, northEast[0], 1e-6);
+        assertEquals(0, northEast[1], 1e-6);
+        assertFalse(service.isServed(3, 0, 0));
+        assertFalse(service.isServed(10, 1024, 0));
+    }
+
+    private void handleProcess(HttpExchange exchange) throws IOException {
+        processRequests.add(objectMapper.readTree(exchange.getRequestBody()));
+        try {
+            Thread.sleep(100); // Keep the render in flight while the other requests arrive
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] body = new byte[]{(byte) 0x89, 'P', 'N', 'G', 1, 2, 3};
+        exchange.getResponseHeaders().add("Content-Type", "image/png");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
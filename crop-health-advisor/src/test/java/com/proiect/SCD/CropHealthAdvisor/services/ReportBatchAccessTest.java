@@ -0,0 +1,58 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.proiect.SCD.CropHealthAdvisor.dto.BatchReportRequest;
+import com.proiect.SCD.CropHealthAdvisor.models.User;
+import com.proiect.SCD.CropHealthAdvisor.repositories.LocationRepository;
+import com.proiect.SCD.CropHealthAdvisor.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Users without the admin role can only batch-generate reports for their own locations.
+ */
+class ReportBatchAccessTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final LocationRepository locationRepository = mock(LocationRepository.class);
+    private final ReportService service = new ReportService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "userRepository", userRepository);
+        ReflectionTestUtils.setField(service, "locationRepository", locationRepository);
+        User user = new User();
+        user.setId(7L);
+        user.setEmail("ana@example.com");
+        when(userRepository.findByEmail("ana@example.com")).thenReturn(Optional.of(user));
+        when(locationRepository.findIdsByUserId(7L)).thenReturn(List.of(1L, 2L, 3L));
+    }
+
+    private static BatchReportRequest request(boolean all, Long userId, List<Long> locationIds) {
+        BatchReportRequest request = new BatchReportRequest();
+        request.setAll(all);
+        request.setUserId(userId);
+        request.setLocationIds(locationIds);
+        return request;
+    }
+
+    @Test
+    void ownUserAndLocationsAreAllowed() {
+        assertTrue(service.isOwnBatch("ana@example.com", request(false, 7L, null)));
+        assertTrue(service.isOwnBatch("ana@example.com", request(false, null, List.of(1L, 3L))));
+    }
+
+    @Test
+    void fleetAndForeignDataAreRefused() {
+        assertFalse(service.isOwnBatch("ana@example.com", request(true, null, null)));
+        assertFalse(service.isOwnBatch("ana@example.com", request(false, 8L, null)));
+        assertFalse(service.isOwnBatch("ana@example.com", request(false, null, List.of(1L, 4L))));
+        assertFalse(service.isOwnBatch("unknown@example.com", request(false, null, List.of(1L))));
+    }
+}
@@ -0,0 +1,168 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.proiect.SCD.CropHealthAdvisor.dto.InterpretationRequest;
+import com.proiect.SCD.CropHealthAdvisor.models.InterpretationStatus;
+import com.proiect.SCD.CropHealthAdvisor.models.Reports;
+import com.proiect.SCD.CropHealthAdvisor.repositories.ReportRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * Saved reports get their interpretation from the worker queue; a full queue leaves them
+ * PENDING for the recovery sweep.
+ */
+class ReportInterpretationQueueTest {
+
+    private final GeminiAIService geminiAIService = mock(GeminiAIService.class);
+    private final ReportRepository reportRepository = mock(ReportRepository.class);
+    private ReportInterpretationQueue queue;
+
+    private ReportInterpretationQueue queue(int workers, int capacity) {
+        queue = new ReportInterpretationQueue(workers, capacity, 5);
+        ReflectionTestUtils.setField(queue, "geminiAIService", geminiAIService);
+        ReflectionTestUtils.setField(queue, "reportRepository", reportRepository);
+        ReflectionTestUtils.setField(queue, "interpretationLocale", Locale.forLanguageTag("ro"));
+        ReflectionTestUtils.setField(queue, "recoveryBatchSize", 10);
+        ReflectionTestUtils.setField(queue, "maxAttempts", 3);
+        return queue;
+    }
+
+    @AfterEach
+    void shutdown() {
+        if (queue != null) {
+            queue.shutdown();
+        }
+    }
+
+    private static Reports pendingReport(long id) {
+        Reports report = new Reports();
+        report.setId(id);
+        report.setNdviValue(0.45);
+        report.setTemperatureValue(22.0);
+        report.setPrecipitationValue(45.0);
+        report.setEviValue(0.38);
+        report.setInterpretationStatus(InterpretationStatus.PENDING);
+        report.setReportDate(LocalDateTime.now());
+        return report;
+    }
+
+    @Test
+    void writesInterpretationOfSavedReport() {
+        when(geminiAIService.getInterpretation(any())).thenReturn(Mono.just("{\"interpretation\":\"ok\"}"));
+        when(reportRepository.updateInterpretation(any(), any(), any())).thenReturn(1);
+        ReportInterpretationQueue queue = queue(1, 10);
+
+        assertTrue(queue.enqueue(pendingReport(1)));
+
+        verify(reportRepository, timeout(2000))
+                .updateInterpretation(1L, "{\"interpretation\":\"ok\"}", InterpretationStatus.COMPLETED);
+        ArgumentCaptor<InterpretationRequest> request = ArgumentCaptor.forClass(InterpretationRequest.class);
+        verify(geminiAIService).getInterpretation(request.capture());
+        assertEquals(0.45, request.getValue().metrics().ndvi());
+        assertEquals(0.38, request.getValue().metrics().evi());
+        assertTrue(Double.isNaN(request.getValue().metrics().soilMoisture())); // Not stored
+        assertEquals("ro", request.getValue().locale().toLanguageTag());
+    }
+
+    @Test
+    void reportEditedWhilePendingKeepsUserInterpretation() {
+        when(geminiAIService.getInterpretation(any())).thenReturn(Mono.just("generated"));
+        // No longer PENDING: the conditional update matches no row
+        when(reportRepository.updateInterpretation(1L, "generated", InterpretationStatus.COMPLETED)).thenReturn(0);
+        ReportInterpretationQueue queue = queue(1, 10);
+
+        assertTrue(queue.enqueue(pendingReport(1)));
+
+        verify(reportRepository, timeout(2000)).updateInterpretation(1L, "generated", InterpretationStatus.COMPLETED);
+        verify(reportRepository, after(200).never()).updateInterpretation(eq(1L), any(), eq(InterpretationStatus.FAILED));
+        Map<String, Object> stats = queue.getStats();
+        assertEquals(1L, stats.get("superseded"));
+        assertEquals(0L, stats.get("completed"));
+    }
+
+    @Test
+    void fullQueueLeavesReportPendingUntilRecovery() {
+        Sinks.One<String> gate = Sinks.one();
+        when(geminiAIService.getInterpretation(any())).thenReturn(gate.asMono());
+        ReportInterpretationQueue queue = queue(1, 1);
+
+        assertTrue(queue.enqueue(pendingReport(1)));   // Running, blocked on the gate
+        verify(geminiAIService, timeout(2000)).getInterpretation(any());
+        assertTrue(queue.enqueue(pendingReport(2)));   // Queued
+        assertFalse(queue.enqueue(pendingReport(2)));  // Already queued
+        assertFalse(queue.enqueue(pendingReport(3)));  // Queue full
+
+        Map<String, Object> stats = queue.getStats();
+        assertEquals(1, stats.get("queueDepth"));
+        assertEquals(1L, stats.get("rejected"));
+        assertEquals(2L, stats.get("submitted"));
+
+        gate.tryEmitValue("text");
+        verify(reportRepository, timeout(2000)).updateInterpretation(2L, "text", InterpretationStatus.COMPLETED);
+
+        when(reportRepository.findByInterpretationStatusOrderByIdAsc(eq(InterpretationStatus.PENDING), any(Pageable.class)))
+                .thenReturn(List.of(pendingReport(3)));
+        queue.recoverPending();
+
+        verify(reportRepository, timeout(2000)).updateInterpretation(3L, "text", InterpretationStatus.COMPLETED);
+        assertEquals(1L, queue.getStats().get("recovered"));
+    }
+
+    @Test
+    void recoverySweepRetriesFailedReportsWithAttemptsLeft() {
+        when(geminiAIService.getInterpretation(any())).thenReturn(Mono.just("text"));
+        Reports failedReport = pendingReport(8);
+        failedReport.setInterpretationStatus(InterpretationStatus.FAILED);
+        failedReport.setInterpretationAttempts(1);
+        when(reportRepository.findByInterpretationStatusAndInterpretationAttemptsLessThanOrderByIdAsc(
+                eq(InterpretationStatus.FAILED), eq(3), any(Pageable.class))).thenReturn(List.of(failedReport));
+        when(reportRepository.retryFailedInterpretation(8L)).thenReturn(1);
+        ReportInterpretationQueue queue = queue(1, 10);
+
+        queue.recoverPending();
+
+        verify(reportRepository, timeout(2000)).updateInterpretation(8L, "text", InterpretationStatus.COMPLETED);
+        assertEquals(1L, queue.getStats().get("retriedFailed"));
+    }
+
+    @Test
+    void timeoutCoversAllGeminiAttemptsUnlessConfigured() {
+        when(geminiAIService.maxCallDuration()).thenReturn(Duration.ofSeconds(362));
+        ReportInterpretationQueue derived = new ReportInterpretationQueue(1, 1, 0);
+        ReflectionTestUtils.setField(derived, "geminiAIService", geminiAIService);
+        try {
+            assertEquals(Duration.ofSeconds(392), derived.timeout());
+        } finally {
+            derived.shutdown();
+        }
+        assertEquals(Duration.ofSeconds(5), queue(1, 1).timeout());
+    }
+
+    @Test
+    void failedInterpretationKeepsMetricsAndMarksReport() {
+        when(geminiAIService.getInterpretation(any())).thenReturn(Mono.error(new IllegalStateException("boom")));
+        ReportInterpretationQueue queue = queue(1, 10);
+
+        assertTrue(queue.enqueue(pendingReport(7)));
+
+        verify(reportRepository, timeout(2000)).updateInterpretation(eq(7L), isNull(), eq(InterpretationStatus.FAILED));
+        verify(reportRepository, never()).save(any());
+    }
+}
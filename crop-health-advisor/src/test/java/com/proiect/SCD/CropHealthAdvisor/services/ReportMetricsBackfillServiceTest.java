@@ -0,0 +1,82 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proiect.SCD.CropHealthAdvisor.models.Location;
+import com.proiect.SCD.CropHealthAdvisor.models.Reports;
+import com.proiect.SCD.CropHealthAdvisor.models.SatelliteObservation;
+import com.proiect.SCD.CropHealthAdvisor.repositories.ReportRepository;
+import com.proiect.SCD.CropHealthAdvisor.repositories.SatelliteObservationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Older reports are filled from the stored series of their own acquisition window.
+ */
+class ReportMetricsBackfillServiceTest {
+
+    private final ReportRepository reportRepository = mock(ReportRepository.class);
+    private final SatelliteObservationRepository observationRepository = mock(SatelliteObservationRepository.class);
+
+    private static Reports report(long id, Location location, LocalDate date) {
+        Reports report = new Reports();
+        report.setId(id);
+        report.setLocation(location);
+        report.setNdviValue(0.5);
+        report.setTemperatureValue(25.0);
+        report.setReportDate(date.atTime(10, 0));
+        return report;
+    }
+
+    private static SatelliteObservation observation(LocalDate date, double evi, double ndwi, double validFraction) {
+        SatelliteObservation observation = new SatelliteObservation();
+        observation.setLocationId(1L);
+        observation.setObservationDate(date);
+        observation.setNdviMean(0.5);
+        observation.setEviMean(evi);
+        observation.setNdwiMean(ndwi);
+        observation.setValidFraction(validFraction);
+        return observation;
+    }
+
+    @Test
+    void fillsEachReportFromTheSceneOfItsDate() {
+        Location location = new Location();
+        location.setId(1L);
+        LocalDate may = LocalDate.of(2025, 5, 20);
+        LocalDate july = LocalDate.of(2025, 7, 10);
+        LocalDate march = LocalDate.of(2025, 3, 1);
+        Reports mayReport = report(1, location, may);
+        Reports julyReport = report(2, location, july);
+        Reports marchReport = report(3, location, march); // Before the stored series
+        when(reportRepository.findByEviValueIsNull()).thenReturn(List.of(mayReport, julyReport, marchReport));
+        when(observationRepository.findByLocationIdAndObservationDateBetweenOrderByObservationDate(
+                1L, march.minusDays(30), july)).thenReturn(List.of(
+                observation(LocalDate.of(2025, 5, 12), 0.41, 0.10, 0.95),
+                observation(LocalDate.of(2025, 5, 17), 0.30, -0.20, 0.20), // Cloudy, skipped
+                observation(LocalDate.of(2025, 7, 5), 0.55, 0.30, 0.80)));
+
+        ReportMetricsBackfillService service = new ReportMetricsBackfillService();
+        ReflectionTestUtils.setField(service, "reportRepository", reportRepository);
+        ReflectionTestUtils.setField(service, "observationRepository", observationRepository);
+        ReflectionTestUtils.setField(service, "satelliteDataService", new SatelliteDataService(new ObjectMapper(), "http://localhost"));
+
+        assertEquals(2, service.backfill());
+
+        assertEquals(0.41, mayReport.getEviValue());
+        assertEquals(0.10, mayReport.getNdwiValue());
+        assertEquals(55.0, mayReport.getSoilMoisture(), 1e-9);
+        assertEquals(5.0, mayReport.getCloudCover(), 1e-9);
+        assertEquals(0.55, julyReport.getEviValue());
+        assertEquals(20.0, julyReport.getCloudCover(), 1e-9);
+        assertNull(marchReport.getEviValue());
+        verify(reportRepository).saveAll(List.of(mayReport, julyReport));
+        verify(observationRepository, times(1)).findByLocationIdAndObservationDateBetweenOrderByObservationDate(any(), any(), any());
+    }
+}
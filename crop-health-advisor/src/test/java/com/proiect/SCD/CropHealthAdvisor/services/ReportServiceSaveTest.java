@@ -0,0 +1,66 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.proiect.SCD.CropHealthAdvisor.models.InterpretationStatus;
+import com.proiect.SCD.CropHealthAdvisor.models.Reports;
+import com.proiect.SCD.CropHealthAdvisor.repositories.ReportRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Updating a report must not take over the interpretation the queue is still writing.
+ */
+class ReportServiceSaveTest {
+
+    private final ReportRepository reportRepository = mock(ReportRepository.class);
+    private final ReportService service = new ReportService();
+    private Reports stored;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "reportRepository", reportRepository);
+        stored = new Reports();
+        stored.setId(5L);
+        stored.setNdviValue(0.45);
+        stored.setEviValue(0.38);
+        stored.setInterpretationStatus(InterpretationStatus.PENDING);
+        when(reportRepository.findById(5L)).thenReturn(Optional.of(stored));
+        when(reportRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private static Reports edit(String aiInterpretation) {
+        Reports edit = new Reports();
+        edit.setId(5L);
+        edit.setNdviValue(0.5);
+        edit.setTemperatureValue(21.0);
+        edit.setPrecipitationValue(40.0);
+        edit.setAiInterpretation(aiInterpretation);
+        edit.setReportDate(LocalDateTime.now());
+        return edit;
+    }
+
+    @Test
+    void blankInterpretationKeepsPendingReportQueued() {
+        Reports saved = service.save(edit(""));
+
+        assertEquals(0.5, saved.getNdviValue());
+        assertEquals(0.38, saved.getEviValue()); // Not sent, kept
+        assertNull(saved.getAiInterpretation());
+        assertEquals(InterpretationStatus.PENDING, saved.getInterpretationStatus());
+    }
+
+    @Test
+    void writtenInterpretationCompletesReport() {
+        Reports saved = service.save(edit("Cultura arată bine."));
+
+        assertEquals("Cultura arată bine.", saved.getAiInterpretation());
+        assertEquals(InterpretationStatus.COMPLETED, saved.getInterpretationStatus());
+    }
+}
@@ -0,0 +1,141 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proiect.SCD.CropHealthAdvisor.dto.SatelliteMetricsDTO;
+import com.proiect.SCD.CropHealthAdvisor.models.Location;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Grouped multi-location statistics against a local Sentinel Hub stub.
+ */
+class SatelliteDataServiceBatchTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger processCalls = new AtomicInteger();
+    private final AtomicInteger statisticsCalls = new AtomicInteger();
+    private HttpServer server;
+    private SatelliteDataService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/v1/process", this::handleProcess);
+        server.createContext("/api/v1/statistics", this::handleStatistics);
+        server.start();
+
+        service = new SatelliteDataService(objectMapper, "http://localhost:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(service, "sentinelHubApiKey", "test-key");
+        ReflectionTestUtils.setField(service, "sentinelHubClientSecret", "");
+        ReflectionTestUtils.setField(service, "metricsCache", new SatelliteMetricsCache(60, 100, 0.0005));
+        ReflectionTestUtils.setField(service, "batchCellDegrees", 0.02);
+        ReflectionTestUtils.setField(service, "batchConcurrency", 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private static Location location(long id, double lat, double lon) {
+        Location location = new Location();
+        location.setId(id);
+        location.setLatitude(lat);
+        location.setLongitude(lon);
+        return location;
+    }
+
+    @Test
+    void nearbyLocationsShareUpstreamRequests() {
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            locations.add(location(i + 1, 45.7501 + i * 0.002, 21.2301 + i * 0.002));
+        }
+        locations.add(location(99, 46.5001, 23.6001)); // Different grid cell
+
+        Map<Long, SatelliteMetricsDTO> metrics = service.prefetchSatelliteMetrics(locations).block(Duration.ofSeconds(10));
+
+        assertNotNull(metrics);
+        assertEquals(6, metrics.size());
+        assertEquals(2, processCalls.get());
+        assertEquals(2, statisticsCalls.get());
+        SatelliteMetricsDTO first = metrics.get(1L);
+        assertEquals(0.6, first.getNdvi(), 0.001);
+        assertEquals(0.4, first.getEvi(), 0.001);
+        assertEquals(-0.2, first.getNdwi(), 0.001);
+        assertEquals(21.5, first.getTemperature(), 0.001);
+        assertFalse(first.isMock());
+
+        Map<String, Object> stats = service.getBatchStats();
+        assertEquals(4L, stats.get("upstreamRequests"));
+        assertEquals(8L, stats.get("upstreamRequestsSaved"));
+
+        // Prefetched metrics are served from the cache
+        SatelliteMetricsDTO single = service.getSatelliteMetrics(45.7501, 21.2301).block(Duration.ofSeconds(10));
+        assertEquals(0.6, single.getNdvi(), 0.001);
+        assertEquals(2, processCalls.get());
+        assertEquals(2, statisticsCalls.get());
+    }
+
+    private void handleProcess(HttpExchange exchange) throws IOException {
+        processCalls.incrementAndGet();
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        int width = request.path("output").path("width").asInt();
+        int height = request.path("output").path("height").asInt();
+
+        ComponentColorModel colorModel = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB),
+                true, false, Transparency.TRANSLUCENT, DataBuffer.TYPE_USHORT);
+        WritableRaster raster = Raster.createInterleavedRaster(DataBuffer.TYPE_USHORT, width, height, 4, null);
+        int[] pixel = {EncodedIndexRaster.encode(0.6), EncodedIndexRaster.encode(0.4), EncodedIndexRaster.encode(-0.2), 65535};
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                raster.setPixel(x, y, pixel);
+            }
+        }
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(colorModel, raster, false, null), "png", png);
+        respond(exchange, "image/png", png.toByteArray());
+    }
+
+    private void handleStatistics(HttpExchange exchange) throws IOException {
+        statisticsCalls.incrementAndGet();
+        exchange.getRequestBody().readAllBytes();
+        String body = "{\"data\":[{\"interval\":{\"from\":\"2025-06-01T00:00:00Z\",\"to\":\"2025-06-02T00:00:00Z\"}," +
+                "\"outputs\":{\"lst\":{\"stats\":{\"mean\":21.5,\"sampleCount\":4}}}}]}";
+        respond(exchange, "application/json", body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
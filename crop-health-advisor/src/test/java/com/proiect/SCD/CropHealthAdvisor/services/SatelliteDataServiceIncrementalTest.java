@@ -0,0 +1,149 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proiect.SCD.CropHealthAdvisor.dto.SatelliteMetricsDTO;
+import com.proiect.SCD.CropHealthAdvisor.models.Location;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Only the days after the stored series are requested for a known location.
+ */
+class SatelliteDataServiceIncrementalTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<JsonNode> indexRequests = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private SatelliteDataService service;
+    private SatelliteTimeSeriesService timeSeriesService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/v1/statistics", this::handleStatistics);
+        server.start();
+
+        timeSeriesService = mock(SatelliteTimeSeriesService.class);
+        when(timeSeriesService.storeIntervals(anyLong(), anyList())).thenReturn(Mono.empty());
+        when(timeSeriesService.markFetchedThrough(anyLong(), any())).thenReturn(Mono.empty());
+
+        service = new SatelliteDataService(objectMapper, "http://localhost:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(service, "sentinelHubApiKey", "test-key");
+        ReflectionTestUtils.setField(service, "sentinelHubClientSecret", "");
+        ReflectionTestUtils.setField(service, "metricsCache", new SatelliteMetricsCache(60, 100, 0.0005));
+        ReflectionTestUtils.setField(service, "timeSeriesService", timeSeriesService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private static Location location() {
+        return location(5L);
+    }
+
+    private static Location location(long id) {
+        Location location = new Location();
+        location.setId(id);
+        location.setLatitude(45.7501);
+        location.setLongitude(21.2301);
+        return location;
+    }
+
+    @Test
+    void requestsOnlyDaysAfterStoredSeries() {
+        LocalDate today = LocalDate.now();
+        when(timeSeriesService.getFetchedThrough(5L)).thenReturn(Mono.just(today.minusDays(1)));
+
+        SatelliteMetricsDTO metrics = service.getSatelliteMetrics(location(), ReportProgressListener.NONE)
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(1, indexRequests.size());
+        JsonNode timeRange = indexRequests.get(0).path("aggregation").path("timeRange");
+        assertEquals(today.minusDays(1) + "T00:00:00Z", timeRange.path("from").asText());
+        assertEquals(today + "T23:59:59Z", timeRange.path("to").asText());
+        assertEquals(0.6, metrics.getNdvi(), 1e-9);
+        verify(timeSeriesService).storeIntervals(eq(5L), anyList());
+        verify(timeSeriesService).markFetchedThrough(5L, today);
+        assertEquals(29L, service.getTimeSeriesFetchStats().get("daysSkipped"));
+    }
+
+    @Test
+    void requestsFullWindowWithoutStoredSeries() {
+        LocalDate today = LocalDate.now();
+        when(timeSeriesService.getFetchedThrough(5L)).thenReturn(Mono.empty());
+
+        service.getSatelliteMetrics(location(), ReportProgressListener.NONE).block(Duration.ofSeconds(10));
+
+        assertEquals(today.minusDays(30) + "T00:00:00Z",
+                indexRequests.get(0).path("aggregation").path("timeRange").path("from").asText());
+        assertEquals(1L, service.getTimeSeriesFetchStats().get("fullFetches"));
+    }
+
+    @Test
+    void storesSeriesOfLocationServedFromCache() {
+        LocalDate today = LocalDate.now();
+        when(timeSeriesService.getFetchedThrough(5L)).thenReturn(Mono.just(today.minusDays(1)));
+        when(timeSeriesService.getFetchedThrough(6L)).thenReturn(Mono.empty());
+        service.getSatelliteMetrics(location(5L), ReportProgressListener.NONE).block(Duration.ofSeconds(10));
+
+        // Same coordinates: metrics come from the cache, the series of location 6 is still stored
+        SatelliteMetricsDTO metrics = service.getSatelliteMetrics(location(6L), ReportProgressListener.NONE)
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(0.6, metrics.getNdvi(), 1e-9);
+        assertEquals(2, indexRequests.size());
+        assertEquals(today.minusDays(30) + "T00:00:00Z",
+                indexRequests.get(1).path("aggregation").path("timeRange").path("from").asText());
+        verify(timeSeriesService).storeIntervals(eq(6L), anyList());
+        verify(timeSeriesService).markFetchedThrough(6L, today);
+
+        // Up to date: no further request
+        when(timeSeriesService.getFetchedThrough(6L)).thenReturn(Mono.just(today));
+        service.getSatelliteMetrics(location(6L), ReportProgressListener.NONE).block(Duration.ofSeconds(10));
+        assertEquals(2, indexRequests.size());
+        assertEquals(1L, service.getTimeSeriesFetchStats().get("syncFetches"));
+    }
+
+    private void handleStatistics(HttpExchange exchange) throws IOException {
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        String body;
+        if (request.path("input").path("data").get(0).path("type").asText().equals("modis")) {
+            body = "{\"data\":[{\"interval\":{\"from\":\"2025-06-01T00:00:00Z\",\"to\":\"2025-06-02T00:00:00Z\"}," +
+                    "\"outputs\":{\"lst\":{\"bands\":{\"B0\":{\"stats\":{\"mean\":21.5,\"sampleCount\":4}}}}}}]}";
+        } else {
+            indexRequests.add(request);
+            body = "{\"data\":[{\"interval\":{\"from\":\"2025-06-01T00:00:00Z\",\"to\":\"2025-06-02T00:00:00Z\"}," +
+                    "\"outputs\":{" +
+                    "\"ndvi\":{\"bands\":{\"B0\":{\"stats\":{\"mean\":0.6,\"sampleCount\":441}}}}," +
+                    "\"evi\":{\"bands\":{\"B0\":{\"stats\":{\"mean\":0.4,\"sampleCount\":441}}}}," +
+                    "\"ndwi\":{\"bands\":{\"B0\":{\"stats\":{\"mean\":-0.2,\"sampleCount\":441}}}}}}]}";
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
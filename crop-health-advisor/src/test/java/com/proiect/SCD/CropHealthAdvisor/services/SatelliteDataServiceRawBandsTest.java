@@ -0,0 +1,281 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proiect.SCD.CropHealthAdvisor.dto.SatelliteMetricsDTO;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Raw-band mode: metrics and NDVI images computed from one stored FLOAT32 raster per acquisition.
+ */
+class SatelliteDataServiceRawBandsTest {
+
+    private static final double LAT = 45.75, LON = 21.23;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger processCalls = new AtomicInteger();
+    private final AtomicInteger catalogCalls = new AtomicInteger();
+    private volatile JsonNode processRequest;
+    private final AtomicInteger indexStatisticsCalls = new AtomicInteger();
+    private volatile boolean cloudy;
+    private HttpServer server;
+    private SatelliteDataService service;
+
+    @TempDir
+    Path storeDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/v1/process", this::handleProcess);
+        server.createContext("/api/v1/statistics", this::handleStatistics);
+        server.createContext("/api/v1/catalog/1.0.0/search", this::handleCatalog);
+        server.start();
+        service = newService();
+    }
+
+    private SatelliteDataService newService() {
+        SatelliteDataService service =
+                new SatelliteDataService(objectMapper, "http://localhost:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(service, "sentinelHubApiKey", "test-key");
+        ReflectionTestUtils.setField(service, "sentinelHubClientSecret", "");
+        ReflectionTestUtils.setField(service, "metricsCache", new SatelliteMetricsCache(60, 100, 0.0005));
+        ReflectionTestUtils.setField(service, "rawBandsEnabled", true);
+        ReflectionTestUtils.setField(service, "bandRasterStore", new BandRasterStore(storeDir.toString(), 1 << 20));
+        return service;
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void metricsAndImagesShareOneStoredRaster() throws IOException {
+        SatelliteMetricsDTO metrics = service.getSatelliteMetrics(LAT, LON).block(Duration.ofSeconds(10));
+
+        assertFalse(metrics.isMock());
+        assertEquals(ndvi(0.05f, 0.45f), metrics.getNdvi(), 1e-6);
+        assertEquals(0, metrics.getCloudCover(), 1e-9);
+        assertEquals(21.5, metrics.getTemperature(), 1e-9);
+        assertEquals(0, indexStatisticsCalls.get());
+        // Native 10m resolution over the ~780m x 1.1km bbox, pinned to the latest acquisition
+        assertEquals(78, processRequest.path("output").path("width").asInt());
+        assertEquals(111, processRequest.path("output").path("height").asInt());
+        assertEquals("2025-06-10T23:59:59Z", processRequest.path("input").path("data").get(0)
+                .path("dataFilter").path("timeRange").path("to").asText());
+
+        for (int size : new int[]{64, 256}) {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(image(service, size, null)));
+            assertEquals(size, image.getWidth());
+            assertEquals(0x00FF00, image.getRGB(size / 2, size / 2) & 0xFFFFFF);
+            assertEquals(0xFF0000, image.getRGB(0, 0) & 0xFFFFFF); // Water row at the top
+        }
+
+        assertEquals(1, processCalls.get());
+        assertEquals(1, catalogCalls.get());
+    }
+
+    @Test
+    void storedRastersSurviveRestart() {
+        service.getSatelliteMetrics(LAT, LON).block(Duration.ofSeconds(10));
+
+        SatelliteDataService restarted = newService();
+        byte[] png = image(restarted, 128, LocalDate.parse("2025-06-10"));
+
+        assertTrue(png.length > 0);
+        assertEquals(1, processCalls.get());
+        Map<?, ?> store = (Map<?, ?>) restarted.getRawBandStats().get("store");
+        assertEquals(1, store.get("rasters"));
+        assertEquals(1L, store.get("hits"));
+    }
+
+    @Test
+    void cloudyFieldFallsBackToStatistics() {
+        cloudy = true;
+        service.getSatelliteMetrics(LAT, LON).block(Duration.ofSeconds(10));
+
+        assertEquals(1, processCalls.get());
+        assertEquals(1, indexStatisticsCalls.get());
+        assertEquals(1L, service.getRawBandStats().get("fallbacks"));
+    }
+
+    @Test
+    void kernelMatchesPerPixelComputation() throws IOException {
+        int width = 300, height = 280;
+        Random random = new Random(7);
+        float[] samples = new float[width * height * BandRaster.BANDS];
+        for (int i = 0; i < samples.length; i += BandRaster.BANDS) {
+            for (int band = 0; band < BandRaster.MASK; band++) {
+                samples[i + band] = random.nextFloat() * 0.6f;
+            }
+            samples[i + BandRaster.MASK] = random.nextInt(10) < 8 ? 1 : 0;
+        }
+        BandRaster raster = BandRaster.of(samples, width, height, 21.0, 45.0, 21.3, 45.28);
+
+        BandIndexKernel.IndexStats result = BandIndexKernel.stats(raster, 45.14, 21.15, 0.05);
+
+        int[] window = raster.window(45.14, 21.15, 0.05);
+        double sum = 0, min = Double.MAX_VALUE;
+        long valid = 0, windowPixels = 0;
+        for (int y = window[2]; y <= window[3]; y++) {
+            for (int x = window[0]; x <= window[1]; x++) {
+                windowPixels++;
+                int i = (y * width + x) * BandRaster.BANDS;
+                if (samples[i + BandRaster.MASK] == 0) {
+                    continue;
+                }
+                double ndvi = ndvi(samples[i + BandRaster.RED], samples[i + BandRaster.NIR]);
+                sum += ndvi;
+                min = Math.min(min, ndvi);
+                valid++;
+            }
+        }
+        assertEquals(windowPixels, result.ndvi().sampleCount());
+        assertEquals(windowPixels - valid, result.ndvi().noDataCount());
+        assertEquals(sum / valid, result.ndvi().mean(), 1e-9);
+        assertEquals(min, result.ndvi().min(), 1e-9);
+        assertEquals((double) valid / windowPixels, result.validFraction(), 1e-12);
+
+        // Parallel rendering picks the nearest source pixel like the Process API
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(BandIndexKernel.render(raster, 600, 140)));
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int i = ((y * 2 + 1) * width + x / 2) * BandRaster.BANDS; // Source pixel centers
+                double ndvi = ((double) samples[i + BandRaster.NIR] - samples[i + BandRaster.RED])
+                        / ((double) samples[i + BandRaster.NIR] + samples[i + BandRaster.RED]);
+                int expected = ndvi < 0 ? 0xFF0000 : ndvi < 0.2 ? 0xFFA500 : ndvi < 0.5 ? 0xFFFF00 : 0x00FF00;
+                assertEquals(expected, image.getRGB(x, y) & 0xFFFFFF);
+            }
+        }
+    }
+
+    private static byte[] image(SatelliteDataService service, int size, LocalDate acquisitionDate) {
+        double buffer = SatelliteDataService.NDVI_IMAGE_BUFFER;
+        DataBuffer png = DataBufferUtils.join(service.fetchNdviImage(LON - buffer, LAT - buffer, LON + buffer, LAT + buffer,
+                size, size, acquisitionDate, 0)).block(Duration.ofSeconds(10));
+        byte[] bytes = new byte[png.readableByteCount()];
+        png.read(bytes);
+        return bytes;
+    }
+
+    private static double ndvi(float red, float nir) {
+        return Math.max(-1, Math.min(1, ((double) nir - red) / ((double) nir + red)));
+    }
+
+    private void handleProcess(HttpExchange exchange) throws IOException {
+        processCalls.incrementAndGet();
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        processRequest = request;
+        int width = request.path("output").path("width").asInt();
+        int height = request.path("output").path("height").asInt();
+        float[] samples = new float[width * height * BandRaster.BANDS];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = (y * width + x) * BandRaster.BANDS;
+                boolean water = y == 0;
+                samples[i + BandRaster.BLUE] = 0.03f;
+                samples[i + BandRaster.GREEN] = 0.06f;
+                samples[i + BandRaster.RED] = water ? 0.1f : 0.05f;
+                samples[i + BandRaster.NIR] = water ? 0.02f : 0.45f;
+                samples[i + BandRaster.MASK] = cloudy ? 0 : 1;
+            }
+        }
+        respond(exchange, "image/tiff", tiff(width, height, samples));
+    }
+
+    private void handleStatistics(HttpExchange exchange) throws IOException {
+        String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        String body;
+        if (request.contains("LST")) {
+            body = "{\"data\":[{\"interval\":{\"from\":\"2025-06-01T00:00:00Z\",\"to\":\"2025-06-02T00:00:00Z\"}," +
+                    "\"outputs\":{\"lst\":{\"stats\":{\"mean\":21.5,\"sampleCount\":4}}}}]}";
+        } else {
+            indexStatisticsCalls.incrementAndGet();
+            body = "{\"data\":[]}";
+        }
+        respond(exchange, "application/json", body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void handleCatalog(HttpExchange exchange) throws IOException {
+        catalogCalls.incrementAndGet();
+        exchange.getRequestBody().readAllBytes();
+        respond(exchange, "application/json",
+                "{\"features\":[\"2025-06-05\",\"2025-06-10\"]}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Uncompressed little-endian TIFF, one strip of pixel-interleaved FLOAT32 samples
+    private static byte[] tiff(int width, int height, float[] samples) {
+        int bands = BandRaster.BANDS;
+        int dataLength = samples.length * Float.BYTES;
+        int ifdOffset = 8 + dataLength;
+        int entries = 9;
+        int bitsOffset = ifdOffset + 2 + entries * 12 + 4;
+        int formatOffset = bitsOffset + 2 * bands;
+        ByteBuffer tiff = ByteBuffer.allocate(formatOffset + 2 * bands).order(ByteOrder.LITTLE_ENDIAN);
+        tiff.put((byte) 'I').put((byte) 'I').putShort((short) 42).putInt(ifdOffset);
+        for (float sample : samples) {
+            tiff.putFloat(sample);
+        }
+        tiff.putShort((short) entries);
+        shortEntry(tiff, 256, width);          // ImageWidth
+        shortEntry(tiff, 257, height);         // ImageLength
+        offsetEntry(tiff, 258, 3, bands, bitsOffset); // BitsPerSample
+        shortEntry(tiff, 259, 1);              // No compression
+        shortEntry(tiff, 262, 1);              // BlackIsZero
+        offsetEntry(tiff, 273, 4, 1, 8);       // StripOffsets
+        shortEntry(tiff, 277, bands);          // SamplesPerPixel
+        offsetEntry(tiff, 279, 4, 1, dataLength); // StripByteCounts
+        offsetEntry(tiff, 339, 3, bands, formatOffset); // SampleFormat
+        tiff.putInt(0);
+        for (int band = 0; band < bands; band++) {
+            tiff.putShort((short) 32);
+        }
+        for (int band = 0; band < bands; band++) {
+            tiff.putShort((short) 3); // IEEE float
+        }
+        return tiff.array();
+    }
+
+    private static void shortEntry(ByteBuffer tiff, int tag, int value) {
+        tiff.putShort((short) tag).putShort((short) 3).putInt(1).putShort((short) value).putShort((short) 0);
+    }
+
+    private static void offsetEntry(ByteBuffer tiff, int tag, int type, int count, int value) {
+        tiff.putShort((short) tag).putShort((short) type).putInt(count).putInt(value);
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Single-flight OAuth token refresh against a local token endpoint stub.
+ */
+class SatelliteDataServiceTokenTest {
+
+    private final AtomicInteger tokenCalls = new AtomicInteger();
+    private volatile int expiresIn = 3600;
+    private volatile boolean emptyBody;
+    private volatile long delayMs = 200; // Slow enough for all callers to pile up
+    private HttpServer server;
+    private SatelliteDataService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.createContext("/oauth/token", this::handleToken);
+        server.start();
+
+        service = new SatelliteDataService(new ObjectMapper(), "http://localhost:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(service, "sentinelHubApiKey", "client-id");
+        ReflectionTestUtils.setField(service, "sentinelHubClientSecret", "secret");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Mono<String> accessToken() {
+        return (Mono<String>) ReflectionTestUtils.invokeMethod(service, "getAccessToken");
+    }
+
+    @Test
+    void concurrentCallersShareOneRefresh() {
+        List<String> tokens = Flux.range(0, 50)
+                .flatMap(i -> accessToken(), 50)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(50, tokens.size());
+        assertTrue(tokens.stream().allMatch("token-1"::equals));
+        assertEquals(1, tokenCalls.get());
+
+        // Cached afterwards
+        assertEquals("token-1", accessToken().block(Duration.ofSeconds(5)));
+        assertEquals(1, tokenCalls.get());
+
+        Map<String, Object> stats = service.getTokenStats();
+        assertEquals(1L, stats.get("refreshes"));
+        assertEquals(0L, stats.get("refreshFailures"));
+    }
+
+    @Test
+    void tokenCloseToExpiryIsRefreshedInBackground() throws InterruptedException {
+        expiresIn = 120; // Expires after 60s, refresh-ahead window (300s) already reached
+        assertEquals("token-1", accessToken().block(Duration.ofSeconds(5)));
+
+        // Still valid: served immediately while the refresh runs
+        assertEquals("token-1", accessToken().block(Duration.ofSeconds(5)));
+        for (int i = 0; i < 50 && tokenCalls.get() < 2; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(2, tokenCalls.get());
+        assertEquals(1L, service.getTokenStats().get("proactiveRefreshes"));
+    }
+
+    @Test
+    void emptyTokenResponseEndsRefresh() {
+        emptyBody = true;
+        // Falls back to the API key instead of waiting on a refresh that never completes
+        assertEquals("client-id", accessToken().block(Duration.ofSeconds(5)));
+        assertEquals(1L, service.getTokenStats().get("refreshFailures"));
+
+        emptyBody = false;
+        assertEquals("token-2", accessToken().block(Duration.ofSeconds(5)));
+        assertEquals(2, tokenCalls.get());
+    }
+
+    @Test
+    void hungTokenRequestTimesOut() {
+        ReflectionTestUtils.setField(service, "tokenTimeoutSeconds", 1L);
+        delayMs = 3_000;
+        assertEquals("client-id", accessToken().block(Duration.ofSeconds(5)));
+        assertEquals(1L, service.getTokenStats().get("refreshFailures"));
+
+        delayMs = 0;
+        assertEquals("token-2", accessToken().block(Duration.ofSeconds(5)));
+    }
+
+    private void handleToken(HttpExchange exchange) throws IOException {
+        int call = tokenCalls.incrementAndGet();
+        exchange.getRequestBody().readAllBytes();
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] body = emptyBody ? new byte[0]
+                : ("{\"access_token\":\"token-" + call + "\",\"expires_in\":" + expiresIn + "}")
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        } catch (IOException e) {
+            // Client gave up (timeout test)
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.proiect.SCD.CropHealthAdvisor.dto.SatelliteMetricsDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SatelliteMetricsCacheTest {
+
+    private static final LocalDate FROM = LocalDate.of(2025, 5, 1);
+    private static final LocalDate TO = LocalDate.of(2025, 5, 31);
+
+    private static SatelliteMetricsDTO metrics(double ndvi) {
+        return new SatelliteMetricsDTO(ndvi, 0.3, 0.1, 20.0, 10.0);
+    }
+
+    @Test
+    void nearbyCoordinatesShareEntry() {
+        SatelliteMetricsCache cache = new SatelliteMetricsCache(60, 10, 0.0005);
+        cache.put(cache.keyFor(45.75001, 21.23001, FROM, TO), metrics(0.6));
+
+        SatelliteMetricsDTO hit = cache.get(cache.keyFor(45.75003, 21.22999, FROM, TO));
+        assertNotNull(hit);
+        assertEquals(0.6, hit.getNdvi());
+        assertNull(cache.get(cache.keyFor(45.75001, 21.23001, FROM.plusDays(1), TO.plusDays(1))));
+        assertEquals(1L, cache.getStats().get("hits"));
+        assertEquals(1L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    void mockMetricsAreNotCached() {
+        SatelliteMetricsCache cache = new SatelliteMetricsCache(60, 10, 0.0005);
+        SatelliteMetricsDTO mock = metrics(0.2);
+        mock.setMock(true);
+        SatelliteMetricsCache.Key key = cache.keyFor(45.0, 21.0, FROM, TO);
+        cache.put(key, mock);
+
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    void pinnedEntryOutlivesTtlUntilEndOfWindow() throws InterruptedException {
+        SatelliteMetricsCache cache = new SatelliteMetricsCache(60, 10, 0.0005);
+        ReflectionTestUtils.setField(cache, "ttlMillis", 50L);
+        LocalDate today = LocalDate.now();
+        SatelliteMetricsCache.Key precomputed = cache.keyFor(45.0, 21.0, today.minusDays(30), today);
+        SatelliteMetricsCache.Key other = cache.keyFor(46.0, 21.0, today.minusDays(30), today);
+        cache.put(precomputed, metrics(0.6));
+        cache.put(other, metrics(0.4));
+
+        assertTrue(cache.pinForWindow(precomputed));
+        assertFalse(cache.pinForWindow(cache.keyFor(47.0, 21.0, today.minusDays(30), today)));
+        Thread.sleep(100);
+
+        assertNotNull(cache.get(precomputed));
+        assertNull(cache.get(other));
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        SatelliteMetricsCache cache = new SatelliteMetricsCache(60, 2, 0.0005);
+        SatelliteMetricsCache.Key a = cache.keyFor(45.0, 21.0, FROM, TO);
+        SatelliteMetricsCache.Key b = cache.keyFor(46.0, 21.0, FROM, TO);
+        SatelliteMetricsCache.Key c = cache.keyFor(47.0, 21.0, FROM, TO);
+        cache.put(a, metrics(0.1));
+        cache.put(b, metrics(0.2));
+        cache.get(a);
+        cache.put(c, metrics(0.3));
+
+        assertNotNull(cache.get(a));
+        assertNull(cache.get(b));
+        assertNotNull(cache.get(c));
+        assertEquals(1L, cache.getStats().get("evictions"));
+    }
+
+    @Test
+    void returnedMetricsAreCopies() {
+        SatelliteMetricsCache cache = new SatelliteMetricsCache(60, 10, 0.0005);
+        SatelliteMetricsCache.Key key = cache.keyFor(45.0, 21.0, FROM, TO);
+        cache.put(key, metrics(0.5));
+
+        cache.get(key).setNdvi(-1.0);
+        assertEquals(0.5, cache.get(key).getNdvi());
+    }
+}
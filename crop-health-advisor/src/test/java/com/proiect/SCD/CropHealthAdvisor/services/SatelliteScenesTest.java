@@ -0,0 +1,68 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Most recent clear scene wins over newer cloudy days.
+ */
+class SatelliteScenesTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 6, 1);
+
+    private static SatelliteScenes.Scene scene(int day, double ndvi, double validFraction) {
+        return new SatelliteScenes.Scene(DAY.plusDays(day), ndvi, 0.4, -0.2, validFraction);
+    }
+
+    @Test
+    void skipsNewerCloudyDays() {
+        List<SatelliteScenes.Scene> scenes = List.of(
+                scene(0, 0.55, 0.95),
+                scene(5, 0.62, 0.9),
+                scene(10, 0.3, 0.2),
+                scene(12, Double.NaN, 0.0));
+
+        SatelliteScenes.Selection selection = SatelliteScenes.select(scenes, 0.6);
+
+        assertEquals(DAY.plusDays(5), selection.scene().date());
+        assertEquals(1, selection.cloudySkipped());
+        assertFalse(selection.belowThreshold());
+        assertEquals(10.0, selection.scene().cloudCoverPercent(), 1e-9);
+    }
+
+    @Test
+    void fallsBackToClearestDayBelowThreshold() {
+        List<SatelliteScenes.Scene> scenes = List.of(
+                scene(0, 0.55, 0.5),
+                scene(5, 0.62, 0.3));
+
+        SatelliteScenes.Selection selection = SatelliteScenes.select(scenes, 0.6);
+
+        assertEquals(DAY, selection.scene().date());
+        assertTrue(selection.belowThreshold());
+        assertEquals(2, selection.cloudySkipped());
+    }
+
+    @Test
+    void noSceneWithoutValidPixels() {
+        assertNull(SatelliteScenes.select(List.of(scene(0, Double.NaN, 0.0)), 0.6).scene());
+        assertNull(SatelliteScenes.select(List.of(), 0.6).scene());
+    }
+
+    @Test
+    void readsValidFractionFromNoDataCount() {
+        StatisticsResponseParser.Stats ndvi = new StatisticsResponseParser.Stats(0.1, 0.9, 0.6, 0.05, 400, 100);
+        StatisticsResponseParser.Interval interval = new StatisticsResponseParser.Interval(
+                "2025-06-01T00:00:00Z", "2025-06-02T00:00:00Z", new StatisticsResponseParser.Stats[]{ndvi, null, null});
+
+        SatelliteScenes.Scene scene = SatelliteScenes.of(interval);
+
+        assertEquals(DAY, scene.date());
+        assertEquals(0.75, scene.validFraction(), 1e-9);
+        assertTrue(Double.isNaN(scene.evi()));
+    }
+}
@@ -0,0 +1,49 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.proiect.SCD.CropHealthAdvisor.models.SatelliteObservation;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SatelliteTimeSeriesServiceTest {
+
+    @Test
+    void everyDailyIntervalBecomesAnObservation() throws Exception {
+        List<StatisticsResponseParser.Interval> intervals = StatisticsResponseParser.parse(
+                StatisticsResponseParserTest.recordedResponse(), "ndvi", "evi", "ndwi");
+
+        List<SatelliteObservation> observations = intervals.stream()
+                .map(interval -> SatelliteTimeSeriesService.toObservation(7L, interval))
+                .toList();
+
+        assertEquals(30, observations.size());
+        assertEquals(LocalDate.of(2025, 5, 1), observations.get(0).getObservationDate());
+        assertEquals(LocalDate.of(2025, 5, 30), observations.get(29).getObservationDate());
+        SatelliteObservation last = observations.get(29);
+        assertEquals(7L, last.getLocationId());
+        assertEquals(intervals.get(29).output(0).mean(), last.getNdviMean(), 1e-12);
+        assertEquals(intervals.get(29).output(2).stdev(), last.getNdwiStdev(), 1e-12);
+        assertEquals(441, last.getEviSampleCount());
+        assertTrue(last.getNdviMin() <= last.getNdviMean() && last.getNdviMean() <= last.getNdviMax());
+    }
+
+    @Test
+    void missingStatisticsAreStoredAsNull() {
+        StatisticsResponseParser.Stats cloudy = new StatisticsResponseParser.Stats(
+                Double.NaN, Double.NaN, Double.NaN, Double.NaN, 441, 441);
+        StatisticsResponseParser.Interval interval = new StatisticsResponseParser.Interval(
+                "2025-06-01T00:00:00Z", "2025-06-02T00:00:00Z",
+                new StatisticsResponseParser.Stats[]{cloudy, null, null});
+
+        SatelliteObservation observation = SatelliteTimeSeriesService.toObservation(1L, interval);
+
+        assertNull(observation.getNdviMean());
+        assertEquals(441, observation.getNdviSampleCount());
+        assertNull(observation.getEviMean());
+        assertNull(SatelliteTimeSeriesService.toObservation(1L, new StatisticsResponseParser.Interval(
+                "2025-06-01T00:00:00Z", null, new StatisticsResponseParser.Stats[3])));
+    }
+}
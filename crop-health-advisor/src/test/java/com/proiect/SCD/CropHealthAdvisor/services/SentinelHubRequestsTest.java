@@ -0,0 +1,51 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Template-rendered request bodies must match the former HashMap-built ones.
+ */
+class SentinelHubRequestsTest {
+
+    private static final String FROM = "2025-05-01T00:00:00Z";
+    private static final String TO = "2025-05-31T23:59:59Z";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void statisticsBodiesMatchLegacyConstruction() throws Exception {
+        JsonNode indices = objectMapper.readTree(SentinelHubRequests.INDICES_STATISTICS.render(
+                RequestTemplate.Params.of(21.2291, 45.7491, 21.2311, 45.7511, FROM, TO)));
+        assertEquals(objectMapper.readTree(LegacyRequestBodies.indicesStatistics(objectMapper,
+                21.2291, 45.7491, 21.2311, 45.7511, FROM, TO)), indices);
+
+        JsonNode lst = objectMapper.readTree(SentinelHubRequests.LST_STATISTICS.render(
+                RequestTemplate.Params.of(-0.0001, 1.0E-4, 0.001, 45.0, FROM, TO)));
+        assertEquals(objectMapper.readTree(LegacyRequestBodies.lstStatistics(objectMapper,
+                -0.0001, 1.0E-4, 0.001, 45.0, FROM, TO)), lst);
+    }
+
+    @Test
+    void imageBodyMatchesLegacyConstruction() throws Exception {
+        JsonNode image = objectMapper.readTree(SentinelHubRequests.NDVI_IMAGE.render(
+                new RequestTemplate.Params(21.225, 45.745, 21.235, 45.755, null, null, 512, 256)));
+        assertEquals(objectMapper.readTree(LegacyRequestBodies.ndviImage(objectMapper,
+                21.225, 45.745, 21.235, 45.755, 512, 256)), image);
+    }
+
+    @Test
+    void encodedIndicesBodyUsesMostRecentScene() throws Exception {
+        JsonNode body = objectMapper.readTree(SentinelHubRequests.ENCODED_INDICES_IMAGE.render(
+                new RequestTemplate.Params(21.2, 45.7, 21.3, 45.8, FROM, TO, 300, 200)));
+        JsonNode dataFilter = body.path("input").path("data").get(0).path("dataFilter");
+        assertEquals("mostRecent", dataFilter.path("mosaickingOrder").asText());
+        assertEquals(FROM, dataFilter.path("timeRange").path("from").asText());
+        assertEquals(300, body.path("output").path("width").asInt());
+        assertEquals(45.8, body.path("input").path("bounds").path("bbox").get(3).asDouble());
+        assertEquals(EncodedIndexRaster.EVALSCRIPT, body.path("evalscript").asText());
+    }
+}
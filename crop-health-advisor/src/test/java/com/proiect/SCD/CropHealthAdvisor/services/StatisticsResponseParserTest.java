@@ -0,0 +1,78 @@
+package com.proiect.SCD.CropHealthAdvisor.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatisticsResponseParserTest {
+
+    static byte[] recordedResponse() throws Exception {
+        try (InputStream in = StatisticsResponseParserTest.class.getResourceAsStream("/sentinelhub/statistics-30d.json")) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Test
+    void parsesRecordedResponseFedInSmallBuffers() throws Exception {
+        byte[] body = recordedResponse();
+        // Split at arbitrary points, also inside tokens
+        List<DataBuffer> buffers = new ArrayList<>();
+        for (int offset = 0; offset < body.length; offset += 997) {
+            buffers.add(DefaultDataBufferFactory.sharedInstance.wrap(
+                    Arrays.copyOfRange(body, offset, Math.min(body.length, offset + 997))));
+        }
+
+        List<StatisticsResponseParser.Interval> intervals = StatisticsResponseParser
+                .parse(Flux.fromIterable(buffers), "ndvi", "evi", "ndwi")
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(30, intervals.size());
+        StatisticsResponseParser.Interval last = intervals.get(29);
+        assertEquals("2025-05-30T00:00:00Z", last.from());
+        assertEquals(List.of(StatisticsResponseParser.parse(body, "ndvi", "evi", "ndwi").get(29).outputs()),
+                List.of(last.outputs()));
+        assertEquals(441, last.output(0).sampleCount());
+        assertTrue(last.output(0).mean() > 0.5 && last.output(0).mean() < 0.7);
+        assertTrue(last.output(2).mean() < 0);
+    }
+
+    @Test
+    void parsesBandsLayoutAndNaNStrings() {
+        String body = "{\"data\":[" +
+                "{\"interval\":{\"from\":\"2025-06-01T00:00:00Z\",\"to\":\"2025-06-02T00:00:00Z\"}," +
+                "\"outputs\":{\"lst\":{\"bands\":{\"B0\":{\"stats\":{\"min\":\"NaN\",\"max\":\"NaN\",\"mean\":\"NaN\"," +
+                "\"stDev\":\"NaN\",\"sampleCount\":4,\"noDataCount\":4}}}}}}," +
+                "{\"interval\":{\"from\":\"2025-06-02T00:00:00Z\",\"to\":\"2025-06-03T00:00:00Z\"}," +
+                "\"outputs\":{\"other\":{\"bands\":{\"B0\":{\"stats\":{\"mean\":99}}}}," +
+                "\"lst\":{\"bands\":{\"B0\":{\"stats\":{\"min\":20,\"max\":23,\"mean\":21.5,\"stDev\":1.2," +
+                "\"sampleCount\":4,\"noDataCount\":0},\"histogram\":{\"bins\":[{\"lowEdge\":20,\"count\":2}]}}}}}}]," +
+                "\"status\":\"OK\"}";
+
+        List<StatisticsResponseParser.Interval> intervals =
+                StatisticsResponseParser.parse(body.getBytes(StandardCharsets.UTF_8), "lst");
+
+        assertEquals(2, intervals.size());
+        assertFalse(intervals.get(0).output(0).hasMean());
+        assertEquals(4, intervals.get(0).output(0).noDataCount());
+        StatisticsResponseParser.Stats lst = intervals.get(1).output(0);
+        assertEquals(21.5, lst.mean(), 1e-9);
+        assertEquals(1.2, lst.stdev(), 1e-9);
+        assertEquals(20, lst.min(), 1e-9);
+    }
+
+    @Test
+    void rejectsTruncatedResponse() {
+        byte[] body = "{\"data\":[{\"interval\":{\"from\":\"2025-06-01".getBytes(StandardCharsets.UTF_8);
+        assertThrows(IllegalStateException.class, () -> StatisticsResponseParser.parse(body, "lst"));
+    }
+}